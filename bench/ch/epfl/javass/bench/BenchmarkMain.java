@@ -0,0 +1,54 @@
+package ch.epfl.javass.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler (which gives the allocation rate of
+ * each benchmark) and writes their results as JSON, to be compared between
+ * versions.
+ *
+ * The benchmarks are compiled with the sources of the project, JMH and its
+ * annotation processor (jmh-core and jmh-generator-annprocess, 1.37) on the
+ * class path, and run with
+ *
+ * java -cp classes:jmh-libs ch.epfl.javass.bench.BenchmarkMain [regex]
+ * [result.json]
+ *
+ * RolloutBenchmark also needs the classes of the vector directory, and the
+ * option --add-modules jdk.incubator.vector after java (JMH gives the options
+ * of this JVM to the ones it forks)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param (args)
+     *            the regular expression of the benchmarks to run (all of them
+     *            by default) and the file of the results (jmh-result.json by
+     *            default)
+     * @throws RunnerException
+     *             if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0]
+                : BenchmarkMain.class.getPackage().getName() + ".*";
+        String result = args.length > 1 ? args[1] : "jmh-result.json";
+
+        Options options = new OptionsBuilder().include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON).result(result).build();
+        new Runner(options).run();
+    }
+}
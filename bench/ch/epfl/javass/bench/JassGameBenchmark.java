@@ -0,0 +1,61 @@
+package ch.epfl.javass.bench;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.sim.PlayerConfig;
+
+/**
+ * Benchmark of a whole JassGame between random players, the games following
+ * a fixed sequence of seeds
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JassGameBenchmark {
+
+    private static final int SEEDS = 256;
+
+    private static final PlayerConfig RANDOM = PlayerConfig.random("random");
+
+    private long seed = 0;
+
+    @Benchmark
+    public boolean game() {
+        long gameSeed = seed;
+        seed = (seed + 1) % SEEDS;
+
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId p : PlayerId.ALL) {
+            players.put(p, RANDOM.newPlayer(p, gameSeed * PlayerId.COUNT
+                    + p.ordinal()));
+            names.put(p, p.name());
+        }
+
+        JassGame game = new JassGame(gameSeed, players, names);
+        while (!game.isGameOver())
+            game.advanceToEndOfNextTrick();
+        return game.isGameOver();
+    }
+}
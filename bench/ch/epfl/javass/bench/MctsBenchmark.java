@@ -0,0 +1,89 @@
+package ch.epfl.javass.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.MctsPlayer;
+import ch.epfl.javass.jass.PackedRollouts;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Benchmarks of the MctsPlayer: a single random rollout and a whole decision
+ * with a fixed number of iterations, both from fixed positions
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MctsBenchmark {
+
+    private static final int POSITIONS = 64;
+
+    private Positions positions;
+    private TurnState[] states;
+    private CardSet[] hands;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        positions = new Positions(2019, POSITIONS);
+        states = new TurnState[POSITIONS];
+        hands = new CardSet[POSITIONS];
+        for (int i = 0; i < POSITIONS; ++i) {
+            states[i] = TurnState.ofPackedComponents(positions.scores[i],
+                    positions.unplayedCards[i], positions.tricks[i]);
+            hands[i] = CardSet.ofPacked(positions.hands[i]);
+        }
+    }
+
+    // The positions are taken in turn, and the seeds only depend on them, so
+    // that every run does the same work
+    private int nextPosition() {
+        int i = next;
+        next = (next + 1) % POSITIONS;
+        return i;
+    }
+
+    @Benchmark
+    public int rollout() {
+        int i = nextPosition();
+        return PackedRollouts.turnPoints(positions.scores[i],
+                positions.unplayedCards[i], positions.tricks[i],
+                positions.hands[i], positions.players[i], i);
+    }
+
+    @Benchmark
+    public Card cardToPlay(Iterations it) {
+        int i = nextPosition();
+        return new MctsPlayer(positions.players[i], i, it.iterations)
+                .cardToPlay(states[i], hands[i]);
+    }
+
+    /**
+     * Number of iterations of the MctsPlayer (in its own state so that the
+     * rollout is not measured once per number)
+     */
+    @State(Scope.Thread)
+    public static class Iterations {
+        @Param({ "100", "1000" })
+        public int iterations;
+    }
+}
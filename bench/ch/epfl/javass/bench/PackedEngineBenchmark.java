@@ -0,0 +1,86 @@
+package ch.epfl.javass.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * Benchmarks of the packed operations the simulations spend most of their time
+ * in. Each invocation goes through all the positions, so that the branches
+ * taken vary like in a real game
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedEngineBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    private Positions positions;
+    private int[] points;
+
+    @Setup
+    public void setUp() {
+        positions = new Positions(2019, POSITIONS);
+        points = new int[POSITIONS];
+        for (int i = 0; i < POSITIONS; ++i)
+            points[i] = PackedTrick.points(positions.fullTricks[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void playableCards(Blackhole b) {
+        int[] tricks = positions.tricks;
+        long[] hands = positions.hands;
+        for (int i = 0; i < POSITIONS; ++i)
+            b.consume(PackedTrick.playableCards(tricks[i], hands[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void winningPlayer(Blackhole b) {
+        int[] tricks = positions.fullTricks;
+        for (int i = 0; i < POSITIONS; ++i)
+            b.consume(PackedTrick.winningPlayer(tricks[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void cardSetGet(Blackhole b) {
+        long[] hands = positions.hands;
+        for (int i = 0; i < POSITIONS; ++i)
+            b.consume(PackedCardSet.get(hands[i],
+                    i % PackedCardSet.size(hands[i])));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void withAdditionalTrick(Blackhole b) {
+        long[] scores = positions.scores;
+        for (int i = 0; i < POSITIONS; ++i)
+            b.consume(PackedScore.withAdditionalTrick(scores[i],
+                    TeamId.ALL.get(i & 1), points[i]));
+    }
+}
@@ -0,0 +1,106 @@
+package ch.epfl.javass.bench;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedDealer;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+
+/**
+ * Fixed positions used by the benchmarks: states reached by random players
+ * from seeded deals, so that every run measures exactly the same work
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+final class Positions {
+
+    final long[] scores;
+    final long[] unplayedCards;
+    final int[] tricks;
+    final long[] hands;
+    final PlayerId[] players;
+    final int[] fullTricks;
+
+    /**
+     * Constructs positions
+     *
+     * @param (seed)
+     *            the seed of the deals and of the random players
+     * @param (count)
+     *            the number of positions
+     */
+    Positions(long seed, int count) {
+        scores = new long[count];
+        unplayedCards = new long[count];
+        tricks = new int[count];
+        hands = new long[count];
+        players = new PlayerId[count];
+        fullTricks = new int[count];
+
+        SplittableRandom rng = new SplittableRandom(seed);
+        long[] dealt = new long[PlayerId.COUNT];
+        for (int i = 0; i < count; ++i) {
+            PackedDealer.deal(seed, i, dealt);
+            Color trump = Color.ALL.get(rng.nextInt(Color.COUNT));
+            int trick = PackedTrick.firstEmpty(trump,
+                    PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT)));
+            long score = PackedScore.INITIAL;
+            long unplayed = PackedCardSet.ALL_CARDS;
+
+            // Plays a random number of Cards (leaving at least one to play)
+            int cardsPlayed = rng.nextInt(Jass.HAND_SIZE * PlayerId.COUNT);
+            for (int c = 0; c < cardsPlayed; ++c) {
+                int card = randomCard(trick, dealt, rng);
+                unplayed = PackedCardSet.remove(unplayed, card);
+                trick = PackedTrick.withAddedCard(trick, card);
+                if (PackedTrick.isFull(trick)) {
+                    score = PackedScore.withAdditionalTrick(score,
+                            PackedTrick.winningPlayer(trick).team(),
+                            PackedTrick.points(trick));
+                    trick = PackedTrick.nextEmpty(trick);
+                }
+            }
+
+            PlayerId p = PackedTrick.player(trick, PackedTrick.size(trick));
+            scores[i] = score;
+            unplayedCards[i] = unplayed;
+            tricks[i] = trick;
+            hands[i] = dealt[p.ordinal()];
+            players[i] = p;
+
+            // The Trick of the position, once the other players played
+            while (!PackedTrick.isFull(trick))
+                trick = PackedTrick.withAddedCard(trick,
+                        randomCard(trick, dealt, rng));
+            fullTricks[i] = trick;
+        }
+    }
+
+    /*
+     * Removes a random playable Card from the hand of the next player of the
+     * Trick and returns it
+     */
+    private static int randomCard(int trick, long[] hands,
+            SplittableRandom rng) {
+        int p = PackedTrick.player(trick, PackedTrick.size(trick)).ordinal();
+        long playable = PackedTrick.playableCards(trick, hands[p]);
+        int card = PackedCardSet.get(playable,
+                rng.nextInt(PackedCardSet.size(playable)));
+        hands[p] = PackedCardSet.remove(hands[p], card);
+        return card;
+    }
+
+    /**
+     * Returns the number of positions
+     *
+     * @return the number of positions
+     */
+    int count() {
+        return tricks.length;
+    }
+}
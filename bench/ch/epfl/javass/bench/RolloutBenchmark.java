@@ -0,0 +1,80 @@
+package ch.epfl.javass.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.javass.jass.PackedRollouts;
+import ch.epfl.javass.jass.RolloutBackend;
+
+/**
+ * Compares the rollouts per millisecond of the scalar backend and of the one
+ * using the Vector API, several Turns being simulated from each position like
+ * with MctsPlayer.withRolloutsPerLeaf(). The vector backend needs the classes
+ * of the vector directory and --add-modules jdk.incubator.vector when running
+ * BenchmarkMain (the forked JVMs get the same options)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RolloutBenchmark {
+
+    private static final int POSITIONS = 64;
+    private static final int ROLLOUTS = 8;
+
+    @Param({ "scalar", "vector" })
+    public String backend;
+
+    private Positions positions;
+    private RolloutBackend rollouts;
+    private final long[] seeds = new long[ROLLOUTS];
+    private final int[] points = new int[ROLLOUTS];
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        positions = new Positions(2019, POSITIONS);
+        if (backend.equals("scalar"))
+            rollouts = PackedRollouts.SCALAR;
+        else if (PackedRollouts.hasVectorBackend())
+            rollouts = PackedRollouts.newVectorBackend();
+        else
+            throw new IllegalStateException(
+                    "The vector backend isn't available");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROLLOUTS)
+    public int rollouts() {
+        int i = next;
+        next = (next + 1) % POSITIONS;
+        // The seeds only depend on the position, so that both backends do
+        // the same work
+        for (int k = 0; k < ROLLOUTS; ++k)
+            seeds[k] = i * ROLLOUTS + k;
+        rollouts.turnPoints(positions.scores[i], positions.unplayedCards[i],
+                positions.tricks[i], positions.hands[i], positions.players[i],
+                seeds, points);
+        int total = 0;
+        for (int p : points)
+            total += p;
+        return total;
+    }
+}
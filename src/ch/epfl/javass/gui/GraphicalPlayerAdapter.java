@@ -2,13 +2,15 @@ package ch.epfl.javass.gui;
 
 import static javafx.application.Platform.runLater;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.Card.Color;
 import ch.epfl.javass.jass.CardSet;
-import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.EventBatchPlayer;
+import ch.epfl.javass.jass.GameEvent;
 import ch.epfl.javass.jass.PlayerId;
 import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TeamId;
@@ -21,7 +23,7 @@ import ch.epfl.javass.jass.TurnState;
  * @author Joseph Abboud (296753)
  * @author Zad Abi Fadel (295734)
  */
-public final class GraphicalPlayerAdapter implements Player {
+public final class GraphicalPlayerAdapter implements EventBatchPlayer {
 
     private final TrickBean trickBean;
     private final ScoreBean scoreBean;
@@ -48,17 +50,29 @@ public final class GraphicalPlayerAdapter implements Player {
         // We initialize card to a random value
         Card card = null;
 
-        handBean.setPlayableCards(state.trick().playableCards(hand));
+        // Like the batches of events, the Beans are updated by the JavaFX
+        // thread, so that they change in the order of the game
+        CardSet playable = state.trick().playableCards(hand);
+        runLater(() -> handBean.setPlayableCards(playable));
         try {
             card = queue.take();
         } catch (InterruptedException e) {
             throw new Error(e);
         }
 
-        handBean.setPlayableCards(CardSet.EMPTY);
+        runLater(() -> handBean.setPlayableCards(CardSet.EMPTY));
         return card;
     }
 
+    @Override
+    public void handleEvents(List<GameEvent> events) {
+        // A single task of the JavaFX thread for the whole batch
+        runLater(() -> {
+            for (GameEvent e : events)
+                e.deliverTo(this);
+        });
+    }
+
     @Override
     public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
         graphicalPlayer = new GraphicalPlayer(ownId, playerNames, scoreBean,
@@ -0,0 +1,129 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.javass.Preconditions.checkState;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.GameStepper.Step;
+
+/**
+ * Game of Jass played with AsyncPlayers. Unlike a JassGame, which uses a
+ * thread until the game is over, it only runs when a player has made its
+ * choice: the game goes on until it has to wait for a player, and is then
+ * continued by the executor once the future of the player is completed. A
+ * small pool of threads can thus play many games whose players take their
+ * time.
+ *
+ * A game gives its players exactly the same calls as a JassGame with the same
+ * seed, both following the steps of the same GameStepper (players which are
+ * also EventBatchPlayers receive their events in the same batches)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class AsyncJassGame {
+
+    private final Map<PlayerId, AsyncPlayer> players;
+    // The rules of the game, shared with JassGame
+    private final GameStepper stepper;
+
+    private final CompletableFuture<TeamId> winner = new CompletableFuture<>();
+    private Executor executor;
+    private boolean started = false;
+
+    // The step the game waits for the choice of, and this choice
+    private Step step;
+    private CompletableFuture<?> choice;
+
+    /**
+     * Constructs a game of Jass
+     *
+     * @param (rngSeed)
+     *            the seed used to generate all random events in the game
+     * @param (players)
+     *            the Map containing all Players, associated with their
+     *            respective IDs
+     * @param (playerNames)
+     *            the Map containing all Players' names, associated with their
+     *            respective Id's
+     */
+    public AsyncJassGame(long rngSeed, Map<PlayerId, AsyncPlayer> players,
+            Map<PlayerId, String> playerNames) {
+        this.players = unmodifiableMap(new EnumMap<>(players));
+        this.stepper = new GameStepper(rngSeed, this.players, playerNames);
+    }
+
+    /**
+     * Starts the game
+     *
+     * @param (executor)
+     *            the executor which runs the game, until its end, each time
+     *            the choice of a player is made
+     * @throws IllegalStateException
+     *             if the game was already started
+     * @return a future completed with the winning Team at the end of the game
+     *         (or exceptionally if a player fails to choose)
+     */
+    public CompletableFuture<TeamId> play(Executor executor) {
+        checkState(!started);
+        started = true;
+        this.executor = executor;
+        executor.execute(this::advance);
+        return winner;
+    }
+
+    /*
+     * Runs the steps of the game until it has to wait for a choice which isn't
+     * made yet
+     */
+    private void advance() {
+        try {
+            while (true) {
+                if (choice != null) {
+                    if (!choice.isDone()) {
+                        choice.whenCompleteAsync((c, e) -> advance(),
+                                executor);
+                        return;
+                    }
+                    Object made = choice.join();
+                    choice = null;
+                    if (step == Step.NEED_TRUMP)
+                        stepper.trumpChosen((Color) made);
+                    else
+                        stepper.cardPlayed((Card) made);
+                }
+
+                step = stepper.step();
+                switch (step) {
+                case NEED_TRUMP:
+                    choice = players.get(stepper.player())
+                            .chooseTrumpAsync(stepper.hand());
+                    break;
+                case NEED_CARD:
+                    choice = players.get(stepper.player())
+                            .cardToPlayAsync(stepper.turnState(),
+                                    stepper.hand());
+                    break;
+                case TRICK_OVER:
+                    if (stepper.isGameOver()) {
+                        winner.complete(stepper.winningTeam());
+                        return;
+                    }
+                    break;
+                default:
+                    throw new Error();
+                }
+            }
+        } catch (CompletionException e) {
+            winner.completeExceptionally(e.getCause());
+        } catch (RuntimeException e) {
+            winner.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ch.epfl.javass.jass;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import ch.epfl.javass.jass.Card.Color;
+
+/**
+ * Player which doesn't make the game wait for its choices: it returns at once
+ * a future completed once it has chosen (for example when a remote human
+ * player answers). An AsyncJassGame goes on with the game when the future is
+ * completed, without blocking a thread in the meantime.
+ *
+ * An AsyncPlayer is also a Player, which waits for its futures, so it can play
+ * in a JassGame too. Conversely, a Player becomes an AsyncPlayer with of
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public interface AsyncPlayer extends Player {
+
+    /**
+     * Starts choosing the Card to play
+     *
+     * @param (state)
+     *            the current TurnState
+     * @param (hand)
+     *            the hand of the player
+     * @return a future completed with the Card the player wants to play
+     */
+    CompletableFuture<Card> cardToPlayAsync(TurnState state, CardSet hand);
+
+    /**
+     * Starts choosing the trump Color at the beginning of the Turn
+     *
+     * @param (hand)
+     *            the player's hand at the beginning of the Turn
+     * @return a future completed with the chosen trump Color, or with null if
+     *         the player leaves the choice to the game
+     */
+    default CompletableFuture<Color> chooseTrumpAsync(CardSet hand) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    default Card cardToPlay(TurnState state, CardSet hand) {
+        return cardToPlayAsync(state, hand).join();
+    }
+
+    @Override
+    default Color chooseTrump(CardSet hand) {
+        return chooseTrumpAsync(hand).join();
+    }
+
+    /**
+     * Returns an AsyncPlayer whose choices are made by the given Player on the
+     * given executor (its other methods being called directly)
+     *
+     * @param (player)
+     *            the Player making the choices
+     * @param (executor)
+     *            the executor on which the Player makes its choices
+     * @return an AsyncPlayer behaving like the Player
+     */
+    static AsyncPlayer of(Player player, Executor executor) {
+        return new AsyncPlayerAdapter(player, executor);
+    }
+
+    /**
+     * Returns an AsyncPlayer whose choices are made by the given Player as
+     * soon as they are asked for, its futures being already completed
+     *
+     * @param (player)
+     *            the Player making the choices
+     * @return an AsyncPlayer behaving like the Player
+     */
+    static AsyncPlayer of(Player player) {
+        return of(player, Runnable::run);
+    }
+}
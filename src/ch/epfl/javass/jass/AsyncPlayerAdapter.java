@@ -0,0 +1,80 @@
+package ch.epfl.javass.jass;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import ch.epfl.javass.jass.Card.Color;
+
+/**
+ * AsyncPlayer making the choices of a Player on an executor (see
+ * AsyncPlayer.of)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+final class AsyncPlayerAdapter implements AsyncPlayer {
+
+    private final Player underlyingPlayer;
+    private final Executor executor;
+
+    AsyncPlayerAdapter(Player underlyingPlayer, Executor executor) {
+        this.underlyingPlayer = underlyingPlayer;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Card> cardToPlayAsync(TurnState state,
+            CardSet hand) {
+        return CompletableFuture.supplyAsync(
+                () -> underlyingPlayer.cardToPlay(state, hand), executor);
+    }
+
+    @Override
+    public CompletableFuture<Color> chooseTrumpAsync(CardSet hand) {
+        return CompletableFuture.supplyAsync(
+                () -> underlyingPlayer.chooseTrump(hand), executor);
+    }
+
+    // Waits for the underlying Player directly, without the executor
+
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        return underlyingPlayer.cardToPlay(state, hand);
+    }
+
+    @Override
+    public Color chooseTrump(CardSet hand) {
+        return underlyingPlayer.chooseTrump(hand);
+    }
+
+    @Override
+    public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        underlyingPlayer.setPlayers(ownId, playerNames);
+    }
+
+    @Override
+    public void updateHand(CardSet newHand) {
+        underlyingPlayer.updateHand(newHand);
+    }
+
+    @Override
+    public void setTrump(Color trump) {
+        underlyingPlayer.setTrump(trump);
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        underlyingPlayer.updateTrick(newTrick);
+    }
+
+    @Override
+    public void updateScore(Score score) {
+        underlyingPlayer.updateScore(score);
+    }
+
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        underlyingPlayer.setWinningTeam(winningTeam);
+    }
+}
@@ -0,0 +1,46 @@
+package ch.epfl.javass.jass;
+
+import java.util.List;
+
+/**
+ * Player receiving the notifications of a JassGame in batches of events
+ * instead of one call per notification: the game gives it all the events since
+ * the previous batch just before asking it to choose (a Card or the trump),
+ * after each Card played and at the end of each Trick. A player which has to
+ * send each notification somewhere (to another machine or to the JavaFX
+ * thread, for example) can thus send them together.
+ *
+ * The individual notifications must still be supported, for the games which
+ * don't batch their events
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public interface EventBatchPlayer extends Player {
+
+    /**
+     * Handles a batch of events
+     *
+     * @param (events)
+     *            the unmodifiable list of the events since the previous batch,
+     *            in the order they happened (never empty)
+     */
+    void handleEvents(List<GameEvent> events);
+
+    /**
+     * Gives a batch of events to a player, in one call if it is an
+     * EventBatchPlayer and one notification at a time otherwise
+     *
+     * @param (events)
+     *            the unmodifiable list of the events, in order
+     * @param (player)
+     *            the player receiving the events
+     */
+    static void deliver(List<GameEvent> events, Player player) {
+        if (player instanceof EventBatchPlayer)
+            ((EventBatchPlayer) player).handleEvents(events);
+        else
+            for (GameEvent e : events)
+                e.deliverTo(player);
+    }
+}
@@ -0,0 +1,186 @@
+package ch.epfl.javass.jass;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+import ch.epfl.javass.jass.Card.Color;
+
+/**
+ * Immutable event of a game, corresponding to one of the notifications of a
+ * Player (setPlayers, updateHand, setTrump, updateTrick, updateScore or
+ * setWinningTeam). The events are given in batches to the EventBatchPlayers
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class GameEvent {
+
+    /**
+     * The types of events, named after the commands of the same notifications
+     * sent to remote players
+     */
+    public enum Type {
+        PLAYERS, HAND, TRUMP, TRICK, SCORE, WINNER;
+    }
+
+    private final Type type;
+    // The packed hand, trick or score, or the ordinal of the player's Id, the
+    // trump Color or the winning Team
+    private final long value;
+    private final Map<PlayerId, String> playerNames;
+
+    private GameEvent(Type type, long value,
+            Map<PlayerId, String> playerNames) {
+        this.type = type;
+        this.value = value;
+        this.playerNames = playerNames;
+    }
+
+    /**
+     * Returns the event of setPlayers
+     *
+     * @param (ownId)
+     *            the Id of the player receiving the event
+     * @param (playerNames)
+     *            the names of the players
+     * @return the event setting the players
+     */
+    public static GameEvent players(PlayerId ownId,
+            Map<PlayerId, String> playerNames) {
+        return new GameEvent(Type.PLAYERS, ownId.ordinal(),
+                unmodifiableMap(new EnumMap<>(playerNames)));
+    }
+
+    /**
+     * Returns the event of updateHand
+     *
+     * @param (newHand)
+     *            the new hand of the player
+     * @return the event updating the hand
+     */
+    public static GameEvent hand(CardSet newHand) {
+        return new GameEvent(Type.HAND, newHand.packed(), null);
+    }
+
+    /**
+     * Returns the event of setTrump
+     *
+     * @param (trump)
+     *            the trump Color of the Turn
+     * @return the event setting the trump
+     */
+    public static GameEvent trump(Color trump) {
+        return new GameEvent(Type.TRUMP, trump.ordinal(), null);
+    }
+
+    /**
+     * Returns the event of updateTrick
+     *
+     * @param (newTrick)
+     *            the current Trick
+     * @return the event updating the Trick
+     */
+    public static GameEvent trick(Trick newTrick) {
+        return new GameEvent(Type.TRICK, newTrick.packed(), null);
+    }
+
+    /**
+     * Returns the event of updateScore
+     *
+     * @param (score)
+     *            the current Score
+     * @return the event updating the Score
+     */
+    public static GameEvent score(Score score) {
+        return new GameEvent(Type.SCORE, score.packed(), null);
+    }
+
+    /**
+     * Returns the event of setWinningTeam
+     *
+     * @param (winningTeam)
+     *            the Team which won the game
+     * @return the event ending the game
+     */
+    public static GameEvent winner(TeamId winningTeam) {
+        return new GameEvent(Type.WINNER, winningTeam.ordinal(), null);
+    }
+
+    /**
+     * Getter for the type of the event
+     *
+     * @return the type of the event
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Calls the notification of the event on the given player
+     *
+     * @param (player)
+     *            the player receiving the event
+     */
+    public void deliverTo(Player player) {
+        switch (type) {
+        case PLAYERS:
+            player.setPlayers(PlayerId.ALL.get((int) value), playerNames);
+            break;
+        case HAND:
+            player.updateHand(CardSet.ofPacked(value));
+            break;
+        case TRUMP:
+            player.setTrump(Color.ALL.get((int) value));
+            break;
+        case TRICK:
+            player.updateTrick(Trick.ofPacked((int) value));
+            break;
+        case SCORE:
+            player.updateScore(Score.ofPacked(value));
+            break;
+        case WINNER:
+            player.setWinningTeam(TeamId.ALL.get((int) value));
+            break;
+        default:
+            throw new Error();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || obj.getClass() != getClass())
+            return false;
+        GameEvent that = (GameEvent) obj;
+        return type == that.type && value == that.value
+                && Objects.equals(playerNames, that.playerNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, value, playerNames);
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+        case PLAYERS:
+            return type + " " + PlayerId.ALL.get((int) value) + " "
+                    + playerNames;
+        case HAND:
+            return type + " " + CardSet.ofPacked(value);
+        case TRUMP:
+            return type + " " + Color.ALL.get((int) value);
+        case TRICK:
+            return type + " " + Trick.ofPacked((int) value);
+        case SCORE:
+            return type + " " + Score.ofPacked(value);
+        case WINNER:
+            return type + " " + TeamId.ALL.get((int) value);
+        default:
+            throw new Error();
+        }
+    }
+}
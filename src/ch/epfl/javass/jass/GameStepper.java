@@ -0,0 +1,340 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.javass.Preconditions.checkState;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import ch.epfl.javass.jass.Card.Color;
+
+/**
+ * Rules of a game of Jass, shared by JassGame and AsyncJassGame: the game is
+ * advanced step by step until it needs the choice of a player, which the
+ * driver of the game asks for (at once or asynchronously) and then gives
+ * back. The stepper informs the players about the game itself, holding the
+ * events of the EventBatchPlayers until they have to be delivered, so that
+ * both drivers give their players exactly the same calls
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+final class GameStepper {
+
+    /**
+     * What a step of the game ends with
+     */
+    enum Step {
+        // The player returned by player() must choose the trump Color
+        NEED_TRUMP,
+        // The player returned by player() must choose a Card to play
+        NEED_CARD,
+        // A Trick was collected (and the game may be over)
+        TRICK_OVER;
+    }
+
+    private final Random shuffleRng;
+    private final Random trumpRng;
+
+    private final Map<PlayerId, ? extends Player> players;
+    private final Map<PlayerId, String> playerNames;
+    private final Map<PlayerId, CardSet> hands = new EnumMap<>(
+            PlayerId.class);
+    private final List<Card> deck = new ArrayList<>();
+
+    // The events not yet given to the players receiving them in batches
+    private final Map<PlayerId, List<GameEvent>> pendingEvents = new EnumMap<>(
+            PlayerId.class);
+
+    private TurnState turnState;
+    private PlayerId startingPlayer;
+    private Color drawnTrump;
+
+    // The choice the stepper waits for, if any
+    private Step pending = null;
+    private boolean trickStarted = false;
+    private boolean trickCollected = false;
+
+    /**
+     * Constructs the stepper of a game of Jass
+     *
+     * @param (rngSeed)
+     *            the seed used to generate all random events in the game
+     * @param (players)
+     *            the Map containing all Players, associated with their
+     *            respective IDs
+     * @param (playerNames)
+     *            the Map containing all Players' names, associated with their
+     *            respective Id's
+     */
+    GameStepper(long rngSeed, Map<PlayerId, ? extends Player> players,
+            Map<PlayerId, String> playerNames) {
+        Random rng = new Random(rngSeed);
+        this.shuffleRng = new Random(rng.nextLong());
+        this.trumpRng = new Random(rng.nextLong());
+
+        this.players = unmodifiableMap(new EnumMap<>(players));
+        this.playerNames = unmodifiableMap(new EnumMap<>(playerNames));
+        for (Map.Entry<PlayerId, ? extends Player> e : this.players
+                .entrySet())
+            if (e.getValue() instanceof EventBatchPlayer)
+                pendingEvents.put(e.getKey(), new ArrayList<>());
+
+        turnState = TurnState.initial(Color.SPADE, Score.INITIAL,
+                PlayerId.PLAYER_1);
+    }
+
+    /**
+     * Checks if the game is over (one of the teams got at least 1000 points)
+     *
+     * @return true if one of the teams has won and false otherwise
+     */
+    boolean isGameOver() {
+        return turnState.score().totalPoints(TeamId.TEAM_1) >= Jass.WINNING_POINTS
+                || turnState.score()
+                        .totalPoints(TeamId.TEAM_2) >= Jass.WINNING_POINTS;
+    }
+
+    /**
+     * Advances the game until it needs the choice of a player or until the
+     * current Trick is collected, starting a new Trick (and a new Turn) if
+     * needed
+     *
+     * @throws IllegalStateException
+     *             if the stepper still waits for a choice
+     * @return what the step ends with
+     */
+    Step step() {
+        checkState(pending == null);
+
+        if (trickCollected) {
+            trickCollected = false;
+            trickStarted = false;
+            return Step.TRICK_OVER;
+        }
+
+        if (!trickStarted) {
+            trickStarted = true;
+            // Initializes a new Trick at the end of the Turn (the values of
+            // trump Color and first player do not matter) as they will change
+            // when the trump is chosen
+            if (turnState.isTerminal())
+                turnState = TurnState.initial(Color.SPADE,
+                        turnState.score().nextTurn(), PlayerId.PLAYER_1);
+
+            if (turnState.trick().index() == 0) {
+                dealTurn();
+                // The first player of the Turn may choose the trump Color
+                deliverEvents(startingPlayer);
+                return pending = Step.NEED_TRUMP;
+            }
+            startTrick();
+        }
+
+        // Every batching player sees the Cards already played before the next
+        // one is chosen, and not only before its own choice
+        for (PlayerId player : PlayerId.ALL)
+            deliverEvents(player);
+        return pending = Step.NEED_CARD;
+    }
+
+    /**
+     * Returns the player whose choice the stepper waits for
+     *
+     * @throws IllegalStateException
+     *             if the stepper waits for no choice
+     * @return the player who must choose
+     */
+    PlayerId player() {
+        checkState(pending != null);
+        return pending == Step.NEED_TRUMP ? startingPlayer
+                : turnState.nextPlayer();
+    }
+
+    /**
+     * Returns the current hand of the player who must choose
+     *
+     * @throws IllegalStateException
+     *             if the stepper waits for no choice
+     * @return the hand of the player who must choose
+     */
+    CardSet hand() {
+        return hands.get(player());
+    }
+
+    /**
+     * Returns the current state of the Turn
+     *
+     * @return the state of the Turn
+     */
+    TurnState turnState() {
+        return turnState;
+    }
+
+    /**
+     * Gives the trump Color chosen by the first player of the Turn, and
+     * starts its first Trick
+     *
+     * @param (chosenTrump)
+     *            the chosen Color, or null to keep the one drawn at random
+     * @throws IllegalStateException
+     *             if the stepper doesn't wait for the trump Color
+     */
+    void trumpChosen(Color chosenTrump) {
+        checkState(pending == Step.NEED_TRUMP);
+        pending = null;
+
+        Color trump = chosenTrump == null ? drawnTrump : chosenTrump;
+        turnState = TurnState.initial(trump, turnState.score(),
+                startingPlayer);
+
+        GameEvent trumpEvent = GameEvent.trump(trump);
+        for (PlayerId player : PlayerId.ALL) {
+            // Informs players about their respective hands
+            notifyPlayer(player, GameEvent.hand(hands.get(player)));
+
+            // Checks if the game is not over and informs players about trump
+            // Color
+            if (!isGameOver())
+                notifyPlayer(player, trumpEvent);
+        }
+        startTrick();
+    }
+
+    /**
+     * Gives the Card played by the next player, and collects the Trick once
+     * it is full
+     *
+     * @param (card)
+     *            the Card played
+     * @throws IllegalStateException
+     *             if the stepper doesn't wait for a Card
+     */
+    void cardPlayed(Card card) {
+        checkState(pending == Step.NEED_CARD);
+        pending = null;
+
+        PlayerId player = turnState.nextPlayer();
+        CardSet newHand = hands.get(player).remove(card);
+        notifyPlayer(player, GameEvent.hand(newHand));
+        turnState = turnState.withNewCardPlayed(card);
+        GameEvent trick = GameEvent.trick(turnState.trick());
+        for (PlayerId plyr : PlayerId.ALL)
+            notifyPlayer(plyr, trick);
+        hands.put(player, newHand);
+
+        if (!turnState.trick().isFull())
+            return;
+
+        turnState = turnState.withTrickCollected();
+        if (isGameOver())
+            declareWinner();
+        for (PlayerId plyr : PlayerId.ALL)
+            deliverEvents(plyr);
+        trickCollected = true;
+    }
+
+    /**
+     * Returns the winning team of the game
+     *
+     * @throws IllegalStateException
+     *             if the game isn't over
+     * @return the winning team
+     */
+    TeamId winningTeam() {
+        checkState(isGameOver());
+        return turnState.score().nextTurn()
+                .totalPoints(TeamId.TEAM_1) >= Jass.WINNING_POINTS
+                        ? TeamId.TEAM_1
+                        : TeamId.TEAM_2;
+    }
+
+    /*
+     * Shuffles and deals the Cards, draws the trump Color and finds the first
+     * player of the Turn
+     */
+    private void dealTurn() {
+        deck.clear();
+        // Places Cards in order inside the deck, then shuffles it
+        for (int i = 0; i < CardSet.ALL_CARDS.size(); ++i)
+            deck.add(CardSet.ALL_CARDS.get(i));
+        Collections.shuffle(deck, shuffleRng);
+
+        // Player_1 gets the first 9 Cards, Player_2 the next 9 Cards...
+        for (PlayerId player : PlayerId.ALL)
+            hands.put(player, CardSet.of(deck.subList(
+                    player.ordinal() * Jass.HAND_SIZE,
+                    (player.ordinal() + 1) * Jass.HAND_SIZE)));
+
+        // Random trump Color, always drawn so that the random events of the
+        // game do not depend on the players' choices
+        drawnTrump = Color.ALL.get(trumpRng.nextInt(Color.COUNT));
+
+        // Checks if the Turn is the first of the game so the first player is
+        // the one who has the seven of diamonds, and informs each player about
+        // the other players in the game. Otherwise the first player is the one
+        // after the first player of the previous Turn
+        if (turnState.packedScore() == 0) {
+            for (PlayerId player : PlayerId.ALL) {
+                notifyPlayer(player, GameEvent.players(player, playerNames));
+                if (hands.get(player)
+                        .contains(Card.of(Color.DIAMOND, Card.Rank.SEVEN)))
+                    startingPlayer = player;
+            }
+        } else
+            startingPlayer = PlayerId.ALL
+                    .get((startingPlayer.ordinal() + 1) % PlayerId.COUNT);
+    }
+
+    /*
+     * Informs the players about the new Trick and the Score
+     */
+    private void startTrick() {
+        GameEvent score = GameEvent.score(turnState.score());
+        GameEvent trick = GameEvent.trick(turnState.trick());
+        for (PlayerId player : PlayerId.ALL) {
+            notifyPlayer(player, score);
+            notifyPlayer(player, trick);
+        }
+    }
+
+    private void declareWinner() {
+        // Stops the Turn where it is and adds the current Turn points to the
+        // Game points
+        GameEvent scoreEvent = GameEvent.score(turnState.score().nextTurn());
+        GameEvent winnerEvent = GameEvent.winner(winningTeam());
+        for (PlayerId player : PlayerId.ALL) {
+            notifyPlayer(player, scoreEvent);
+            notifyPlayer(player, winnerEvent);
+        }
+    }
+
+    /*
+     * Notifies a player at once, or keeps the event for its next batch if it
+     * is an EventBatchPlayer
+     */
+    private void notifyPlayer(PlayerId player, GameEvent event) {
+        List<GameEvent> pending = pendingEvents.get(player);
+        if (pending == null)
+            event.deliverTo(players.get(player));
+        else
+            pending.add(event);
+    }
+
+    /*
+     * Gives its pending events to a player receiving them in batches (before
+     * it has to choose, after each Card played and at the end of each Trick)
+     */
+    private void deliverEvents(PlayerId player) {
+        List<GameEvent> pending = pendingEvents.get(player);
+        if (pending != null && !pending.isEmpty()) {
+            List<GameEvent> batch = List.copyOf(pending);
+            pending.clear();
+            ((EventBatchPlayer) players.get(player)).handleEvents(batch);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+import ch.epfl.javass.jass.Card.Color;
+
+/**
+ * Linear estimate of the points a Team will have at the end of a Turn, given
+ * the packed components of the state of the Turn and the hand of one of its
+ * players. It is used by the MctsPlayer to evaluate a new Node instead of
+ * simulating a whole Turn.
+ *
+ * Evaluating a state does not allocate any object, so it can be done for every
+ * Node of a search
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class LinearValueFunction {
+
+    /**
+     * Number of features extracted from a state (the first one is always 1)
+     */
+    public static final int FEATURES_COUNT = 11;
+
+    private final double[] weights;
+
+    private LinearValueFunction(double[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Constructs a value function given the weight of each feature
+     *
+     * @param (weights)
+     *            the weights of the features
+     * @throws IllegalArgumentException
+     *             if there is not exactly one weight per feature
+     * @return the value function with the given weights
+     */
+    public static LinearValueFunction ofWeights(double... weights) {
+        checkArgument(weights.length == FEATURES_COUNT);
+        return new LinearValueFunction(weights.clone());
+    }
+
+    /**
+     * Constructs a value function given the String representation of its
+     * weights (as given by toString())
+     *
+     * @param (s)
+     *            the weights separated by commas
+     * @throws IllegalArgumentException
+     *             if there is not exactly one weight per feature
+     * @throws NumberFormatException
+     *             if a weight is not a number
+     * @return the value function with the given weights
+     */
+    public static LinearValueFunction ofString(String s) {
+        String[] parts = s.trim().split(",");
+        double[] weights = new double[parts.length];
+        for (int i = 0; i < parts.length; ++i)
+            weights[i] = Double.parseDouble(parts[i].trim());
+        return ofWeights(weights);
+    }
+
+    /**
+     * Returns the weights of the features
+     *
+     * @return a copy of the weights of the features
+     */
+    public double[] weights() {
+        return weights.clone();
+    }
+
+    /**
+     * Returns the estimated points of the Team of the given player at the end
+     * of the Turn
+     *
+     * @param (pkScore)
+     *            the packed version of the current Score
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards
+     * @param (pkTrick)
+     *            the packed version of the current Trick
+     * @param (pkHand)
+     *            the packed version of the hand of the player
+     * @param (ownId)
+     *            the player whose Team's points are estimated
+     * @return the estimated points at the end of the Turn
+     */
+    public double evaluate(long pkScore, long pkUnplayedCards, int pkTrick,
+            long pkHand, PlayerId ownId) {
+        if (pkTrick == PackedTrick.INVALID)
+            return PackedScore.turnPoints(pkScore, ownId.team());
+
+        return accumulate(weights, null, pkScore, pkUnplayedCards, pkTrick,
+                pkHand, ownId);
+    }
+
+    /**
+     * Fills the given array with the features of a (non terminal) state
+     *
+     * @param (pkScore)
+     *            the packed version of the current Score
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards
+     * @param (pkTrick)
+     *            the packed version of the current Trick
+     * @param (pkHand)
+     *            the packed version of the hand of the player
+     * @param (ownId)
+     *            the player from whose point of view the features are computed
+     * @param (features)
+     *            the array of size FEATURES_COUNT to fill
+     */
+    public static void features(long pkScore, long pkUnplayedCards,
+            int pkTrick, long pkHand, PlayerId ownId, double[] features) {
+        checkArgument(features.length == FEATURES_COUNT);
+        accumulate(null, features, pkScore, pkUnplayedCards, pkTrick, pkHand,
+                ownId);
+    }
+
+    /*
+     * Computes each feature, writes it in the features array if it is not null
+     * and returns the sum of the features multiplied by their weight if the
+     * weights are not null
+     */
+    private static double accumulate(double[] weights, double[] features,
+            long pkScore, long pkUnplayedCards, int pkTrick, long pkHand,
+            PlayerId ownId) {
+        TeamId team = ownId.team();
+        Color trump = PackedTrick.trump(pkTrick);
+        long others = PackedCardSet.difference(pkUnplayedCards, pkHand);
+
+        double sum = 0;
+        int k = 0;
+
+        sum += feature(weights, features, k++, 1);
+        sum += feature(weights, features, k++,
+                PackedScore.turnPoints(pkScore, team));
+        sum += feature(weights, features, k++,
+                PackedScore.turnPoints(pkScore, team.other()));
+        sum += feature(weights, features, k++, PackedCardSet
+                .size(PackedCardSet.subsetOfColor(pkHand, trump)));
+        sum += feature(weights, features, k++, PackedCardSet
+                .size(PackedCardSet.subsetOfColor(others, trump)));
+        sum += feature(weights, features, k++,
+                masterCards(pkUnplayedCards, pkHand, trump));
+        sum += feature(weights, features, k++, trickPoints(pkTrick));
+        sum += feature(weights, features, k++, trickLeader(pkTrick, team));
+        sum += feature(weights, features, k++, points(pkHand, trump));
+        sum += feature(weights, features, k++, points(others, trump));
+        sum += feature(weights, features, k++,
+                Jass.TRICKS_PER_TURN - PackedTrick.index(pkTrick));
+
+        assert k == FEATURES_COUNT;
+        return sum;
+    }
+
+    private static double feature(double[] weights, double[] features,
+            int index, double value) {
+        if (features != null)
+            features[index] = value;
+        return weights == null ? 0 : weights[index] * value;
+    }
+
+    /*
+     * Returns the number of Colors whose best unplayed Card is in the hand
+     */
+    private static int masterCards(long pkUnplayedCards, long pkHand,
+            Color trump) {
+        int count = 0;
+        for (Color color : Color.ALL) {
+            long unplayed = PackedCardSet.subsetOfColor(pkUnplayedCards,
+                    color);
+            if (unplayed == PackedCardSet.EMPTY)
+                continue;
+
+            long best;
+            if (color == trump) {
+                // The best trump is the one with no better trump unplayed
+                best = PackedCardSet.EMPTY;
+                for (long s = unplayed; s != 0; s &= s - 1) {
+                    int card = Long.numberOfTrailingZeros(s);
+                    if ((PackedCardSet.trumpAbove(card) & unplayed) == 0)
+                        best = PackedCardSet.singleton(card);
+                }
+            } else
+                best = Long.highestOneBit(unplayed);
+
+            if ((best & pkHand) != 0)
+                ++count;
+        }
+        return count;
+    }
+
+    private static int points(long pkCardSet, Color trump) {
+        int points = 0;
+        for (long s = pkCardSet; s != 0; s &= s - 1)
+            points += PackedCard.points(trump, Long.numberOfTrailingZeros(s));
+        return points;
+    }
+
+    private static int trickPoints(int pkTrick) {
+        int points = 0;
+        for (int i = 0; i < PackedTrick.size(pkTrick); ++i)
+            points += PackedCard.points(PackedTrick.trump(pkTrick),
+                    PackedTrick.card(pkTrick, i));
+        return points;
+    }
+
+    /*
+     * Returns 1 if the given Team currently wins the Trick, -1 if the other
+     * Team does and 0 if the Trick is empty
+     */
+    private static int trickLeader(int pkTrick, TeamId team) {
+        if (PackedTrick.isEmpty(pkTrick))
+            return 0;
+        return PackedTrick.winningPlayer(pkTrick).team() == team ? 1 : -1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof LinearValueFunction)
+            return Arrays.equals(((LinearValueFunction) obj).weights, weights);
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner j = new StringJoiner(",");
+        for (double w : weights)
+            j.add(Double.toString(w));
+        return j.toString();
+    }
+}
@@ -4,7 +4,12 @@ import static ch.epfl.javass.Preconditions.checkArgument;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Contains the methods necessary for the algorithm of MonteCarlor Tree Search,
@@ -14,7 +19,7 @@ import java.util.SplittableRandom;
  * @author Joseph Abboud (296753)
  * @author Zad Abi Fadel (295734)
  */
-public final class MctsPlayer implements Player {
+public final class MctsPlayer implements TimeBudgetedPlayer {
 
     private Node node = null;
     private final int c = 40;
@@ -23,6 +28,67 @@ public final class MctsPlayer implements Player {
     private final int iterations;
     private final long rngSeed;
 
+    // Options of the search, only set when a Player is created by one of the
+    // with...() methods
+    // Share of a CPU used to search while the other players are choosing their
+    // Card (0 means that pondering is disabled)
+    private double ponderShare = 0;
+    // Evaluates the new Nodes instead of simulating a Turn (if not null)
+    private LinearValueFunction valueFunction = null;
+    // Number of Turns simulated from each new Node
+    private int rolloutsPerLeaf = 1;
+    // Simulates the Turns of each new Node in lockstep with the Vector API
+    private boolean vectorRollouts = false;
+    // Size of the memory used to store the tree outside of the heap (0 means
+    // that the Nodes are objects)
+    private int offHeapBytes = 0;
+    // Maximum number of nodes of the tree, after which Turns are simulated
+    // from the leaves instead of adding new nodes
+    private int nodeBudget = Integer.MAX_VALUE;
+
+    private OffHeapTree offHeapTree = null;
+    // Indices of the nodes from the root to the node being added in the
+    // off-heap tree
+    private final int[] offHeapPath = new int[Jass.TRICKS_PER_TURN
+            * PlayerId.COUNT + 1];
+
+    // Number of nodes of the current tree, and the largest number of nodes a
+    // tree had
+    private int nodesCount = 0;
+    private int nodesHighWaterMark = 0;
+
+    // Backend simulating the Turns of the new Nodes with vectorRollouts, and
+    // its seeds and points, created with the first simulation
+    private RolloutBackend rolloutBackend = null;
+    private long[] rolloutSeeds = null;
+    private int[] rolloutPoints = null;
+
+    private final TurnStateTracker tracker = new TurnStateTracker();
+    // Runs the background searches of this Player on a single thread, which
+    // is created with the first one and stops when it has been idle for a
+    // while
+    private ThreadPoolExecutor ponderExecutor = null;
+    private Future<?> ponderTask = null;
+    // Counted down to stop the current background search (waking it up if it
+    // is sleeping)
+    private CountDownLatch ponderStop = null;
+
+    // Number of iterations done between two checks of the CPU share while
+    // pondering
+    private static final int PONDER_SLICE = 64;
+    // Time after which the idle thread of the background searches stops
+    private static final long PONDER_KEEP_ALIVE_MS = 10_000;
+
+    // Maximum number of points a Team can get during a Turn (157 points and
+    // the match bonus)
+    private static final int MAX_TURN_POINTS = 157
+            + Jass.MATCH_ADDITIONAL_POINTS;
+
+    /**
+     * Number of bytes used by each node of an off-heap tree
+     */
+    public static final int OFF_HEAP_NODE_BYTES = OffHeapTree.RECORD_SIZE;
+
     /**
      * Public constructor
      * 
@@ -41,20 +107,183 @@ public final class MctsPlayer implements Player {
         this.rngSeed = rngSeed;
     }
 
+    /*
+     * Copies the options of the given Player, but not the state of its search
+     */
+    private MctsPlayer(MctsPlayer that) {
+        this(that.ownId, that.rngSeed, that.iterations);
+        this.ponderShare = that.ponderShare;
+        this.valueFunction = that.valueFunction;
+        this.rolloutsPerLeaf = that.rolloutsPerLeaf;
+        this.vectorRollouts = that.vectorRollouts;
+        this.offHeapBytes = that.offHeapBytes;
+        this.nodeBudget = that.nodeBudget;
+    }
+
+    /**
+     * Returns a copy of this Player which keeps searching in the background
+     * while the other players are choosing their Card, and reuses the part of
+     * that search which matches the Card actually played
+     * 
+     * @param (cpuShare)
+     *            the share of a CPU used by the background search, between 0
+     *            (pondering disabled) and 1 (one full CPU)
+     * @throws IllegalArgumentException
+     *             if cpuShare is not between 0 and 1
+     * @return a pondering copy of this Player
+     */
+    public MctsPlayer withPondering(double cpuShare) {
+        checkArgument(cpuShare >= 0 && cpuShare <= 1);
+        MctsPlayer p = new MctsPlayer(this);
+        p.ponderShare = cpuShare;
+        return p;
+    }
+
+    /**
+     * Returns a copy of this Player which evaluates the new nodes of its search
+     * with the given value function instead of simulating a random Turn from
+     * them
+     * 
+     * @param (valueFunction)
+     *            the value function used to evaluate the new nodes, or null to
+     *            simulate random Turns
+     * @return a copy of this Player using the given value function
+     */
+    public MctsPlayer withValueFunction(LinearValueFunction valueFunction) {
+        MctsPlayer p = new MctsPlayer(this);
+        p.valueFunction = valueFunction;
+        return p;
+    }
+
+    /**
+     * Returns a copy of this Player which simulates several Turns from each
+     * new node of its search, one after the other, so that the nodes start
+     * with a more precise estimate and less time is spent going through the
+     * tree
+     * 
+     * @param (rollouts)
+     *            the number of Turns simulated from each new node
+     * @throws IllegalArgumentException
+     *             if rollouts is not strictly positive
+     * @return a copy of this Player simulating the given number of Turns
+     */
+    public MctsPlayer withRolloutsPerLeaf(int rollouts) {
+        checkArgument(rollouts > 0);
+        MctsPlayer p = new MctsPlayer(this);
+        p.rolloutsPerLeaf = rollouts;
+        return p;
+    }
+
+    /**
+     * Returns a copy of this Player which simulates the Turns of each new node
+     * in lockstep with the Vector API (see PackedRollouts.newVectorBackend()),
+     * several Turns being advanced at once. The simulations give the same
+     * points as the scalar ones, so the Player plays the same Cards. It pays
+     * off with a number of rollouts per leaf which is a multiple of the
+     * lanes of the backend, and the Player simulates the Turns one after the
+     * other if the Vector API isn't available
+     * 
+     * @param (enabled)
+     *            true to simulate the Turns in lockstep, false to simulate
+     *            them one after the other
+     * @return a copy of this Player simulating its Turns as given
+     */
+    public MctsPlayer withVectorRollouts(boolean enabled) {
+        MctsPlayer p = new MctsPlayer(this);
+        p.vectorRollouts = enabled;
+        return p;
+    }
+
+    /**
+     * Returns a copy of this Player which stores its search tree in a direct
+     * buffer of the given size instead of creating an object per node, so
+     * that very large searches do not put any pressure on the garbage
+     * collector. The buffer is allocated once and reused for every Card, and
+     * once it is full the search goes on like when the node budget is reached.
+     * The tree is not kept from one Card to the next, so this Player does not
+     * ponder
+     * 
+     * @param (maxBytes)
+     *            the size of the buffer (each node uses OFF_HEAP_NODE_BYTES
+     *            bytes), or 0 to store the nodes on the heap
+     * @throws IllegalArgumentException
+     *             if maxBytes is not 0 and too small to store a single node
+     * @return a copy of this Player storing its tree in the given memory
+     */
+    public MctsPlayer withOffHeapTree(int maxBytes) {
+        checkArgument(maxBytes == 0 || maxBytes >= OFF_HEAP_NODE_BYTES);
+        MctsPlayer p = new MctsPlayer(this);
+        p.offHeapBytes = maxBytes;
+        return p;
+    }
+
+    /**
+     * Returns a copy of this Player whose search tree never has more than the
+     * given number of nodes. Once the budget is reached, the search stops
+     * adding nodes and simulates more Turns from the leaves it reaches instead
+     * 
+     * @param (maxNodes)
+     *            the maximum number of nodes of the tree
+     * @throws IllegalArgumentException
+     *             if maxNodes is not strictly positive
+     * @return a copy of this Player with the given node budget
+     */
+    public MctsPlayer withNodeBudget(int maxNodes) {
+        checkArgument(maxNodes > 0);
+        MctsPlayer p = new MctsPlayer(this);
+        p.nodeBudget = maxNodes;
+        return p;
+    }
+
+    /**
+     * Returns the largest number of nodes the search tree of this Player has
+     * had since it was created
+     * 
+     * @return the high-water mark of the number of nodes
+     */
+    public int nodesHighWaterMark() {
+        return nodesHighWaterMark;
+    }
+
     @Override
     public Card cardToPlay(TurnState turnState, CardSet hand) {
+        return cardToPlay(turnState, hand, 0);
+    }
+
+    /**
+     * Chooses the Card to play by doing at least the given number of
+     * iterations, and then keeps on iterating until the time budget is spent.
+     * If the calling thread is interrupted, the search stops early and the
+     * best Card found so far is played (the thread staying interrupted)
+     */
+    @Override
+    public Card cardToPlay(TurnState turnState, CardSet hand,
+            long timeBudget) {
+        long deadline = System.nanoTime() + timeBudget * 1_000_000;
         long pkHand = hand.packed();
+        stopPondering();
 
         // If there is only 1 possible playable card, there is no need to
         // conduct the algorithm since there is only one choice
         if (turnState.trick().playableCards(hand).size() == 1)
             return turnState.trick().playableCards(hand).get(0);
 
-        // Create the first parent Node
-        node = new Node(turnState, pkHand, ownId, rngSeed);
+        if (offHeapBytes != 0)
+            return offHeapCardToPlay(turnState, hand, deadline);
 
-        for (int i = 0; i < iterations; ++i) {
-            List<Node> nodes = addNode(pkHand);
+        // Create the first parent Node, unless the tree built while pondering
+        // already starts from this state
+        if (ponderShare == 0 || node == null
+                || !node.turnState.equals(turnState) || node.hand != pkHand)
+            node = newRoot(turnState, pkHand);
+
+        for (int i = 0; i < iterations
+                || System.nanoTime() - deadline < 0; ++i) {
+            // A search that was cancelled (for example by Future.cancel(true))
+            // stops, once the root has a child, and plays its best Card yet
+            if (i > 0 && Thread.currentThread().isInterrupted())
+                break;
+            List<Node> nodes = addNode(node, pkHand);
             distributePoints(nodes);
         }
 
@@ -62,6 +291,145 @@ public final class MctsPlayer implements Player {
                 .get(node.extractBestChildIndex(0));
     }
 
+    @Override
+    public Card.Color chooseTrump(CardSet hand) {
+        return TrumpEvaluator.bestTrump(hand.packed());
+    }
+
+    @Override
+    public void updateHand(CardSet newHand) {
+        tracker.updateHand(newHand.packed());
+    }
+
+    @Override
+    public void updateScore(Score score) {
+        tracker.updateScore(score.packed());
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        tracker.updateTrick(newTrick.packed());
+        if (ponderShare > 0 && offHeapBytes == 0)
+            ponder();
+    }
+
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        stopPondering();
+        tracker.reset();
+        node = null;
+        nodesCount = 0;
+    }
+
+    /**
+     * Cancels the background search if there is one running, and waits for it
+     * to stop
+     */
+    public void stopPondering() {
+        if (ponderTask == null)
+            return;
+
+        ponderStop.countDown();
+        try {
+            ponderTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        ponderTask = null;
+    }
+
+    /*
+     * Moves the root of the tree to the tracked state of the game (keeping the
+     * subtree of the Card that was played if it exists) and starts searching
+     * from it in the background if another player is to play
+     */
+    private void ponder() {
+        stopPondering();
+
+        TurnState state = tracker.turnState();
+        if (state == null || state.isTerminal()) {
+            node = null;
+            nodesCount = 0;
+            return;
+        }
+
+        if (node != null && !node.turnState.equals(state)) {
+            node = node.childFor(state);
+            nodesCount = node == null ? 0 : node.subtreeSize();
+        }
+
+        long pkHand = tracker.packedHand();
+        if (state.nextPlayer().equals(ownId)
+                || PackedCardSet.isEmpty(pkHand))
+            return;
+
+        if (node == null || node.hand != pkHand)
+            node = newRoot(state, pkHand);
+
+        Node root = node;
+        CountDownLatch stop = new CountDownLatch(1);
+        ponderStop = stop;
+        ponderTask = ponderExecutor().submit(() -> {
+            while (stop.getCount() != 0
+                    && root.randomTurnsNumber < iterations) {
+                long time = System.nanoTime();
+                for (int i = 0; i < PONDER_SLICE && stop.getCount() != 0; ++i)
+                    distributePoints(addNode(root, pkHand));
+                long elapsed = System.nanoTime() - time;
+
+                // Sleeps long enough for the search to only use its share of
+                // the CPU
+                if (ponderShare < 1) {
+                    try {
+                        stop.await((long) (elapsed * (1 - ponderShare)
+                                / ponderShare), TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    private ThreadPoolExecutor ponderExecutor() {
+        if (ponderExecutor == null) {
+            ponderExecutor = new ThreadPoolExecutor(1, 1,
+                    PONDER_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "mcts-ponder");
+                        t.setDaemon(true);
+                        return t;
+                    });
+            ponderExecutor.allowCoreThreadTimeOut(true);
+        }
+        return ponderExecutor;
+    }
+
+    /*
+     * Returns the number of Turns simulated from the root of the current tree
+     * (0 if there is none), without stopping the background search
+     */
+    int searchedTurns() {
+        return node == null ? 0 : node.randomTurnsNumber;
+    }
+
+    /*
+     * Returns true if a background search is running
+     */
+    boolean isPondering() {
+        return ponderTask != null && !ponderTask.isDone();
+    }
+
+    /*
+     * Creates the root of a new tree
+     */
+    private Node newRoot(TurnState turnState, long hand) {
+        nodesCount = 0;
+        return new Node(turnState, hand);
+    }
+
     /*
      * Goes through all nodes of a list (bottom to top) and updates the total
      * points of each Node and the turn simulated that originated from this Node
@@ -73,10 +441,10 @@ public final class MctsPlayer implements Player {
         }
     }
 
-    private List<Node> addNode(long hand) {
+    private List<Node> addNode(Node root, long hand) {
         boolean added = false;
         List<Node> nodes = new ArrayList<>();
-        Node n = node;
+        Node n = root;
 
         while (!added) {
             // Necessary condition so the List nodes don't get filled with null
@@ -92,7 +460,12 @@ public final class MctsPlayer implements Player {
             // best child
             if (PackedCardSet.isEmpty(n.nonExistingChildren))
                 n = n.children[n.extractBestChildIndex(c)];
-            else {
+            else if (nodesCount >= nodeBudget) {
+                // The budget is reached, so Turns are simulated from n again
+                // instead of adding one of its children
+                n.addSimulation();
+                added = true;
+            } else {
                 for (int i = 0; i < n.children.length; ++i) {
                     if (n.children[i] == null) {
 
@@ -104,8 +477,7 @@ public final class MctsPlayer implements Player {
                                         Card.ofPacked(card));
                         if (!state.isTerminal()) {
                             n.children[i] = new Node(state,
-                                    PackedCardSet.remove(hand, card), ownId,
-                                    rngSeed);
+                                    PackedCardSet.remove(hand, card));
                             if (n != null)
                                 nodes.add(n.children[i]);
                             added = true;
@@ -123,7 +495,216 @@ public final class MctsPlayer implements Player {
         return nodes;
     }
 
-    private static class Node {
+    /*
+     * Does the search of cardToPlay() in the off-heap tree, which is cleared
+     * first
+     */
+    private Card offHeapCardToPlay(TurnState turnState, CardSet hand,
+            long deadline) {
+        if (offHeapTree == null)
+            offHeapTree = new OffHeapTree(offHeapBytes);
+        offHeapTree.clear();
+
+        long pkHand = hand.packed();
+        addOffHeapNode(turnState.packedScore(),
+                turnState.packedUnplayedCards(), turnState.packedTrick(),
+                pkHand);
+
+        for (int i = 0; (i < iterations
+                || System.nanoTime() - deadline < 0)
+                && !Thread.currentThread().isInterrupted(); ++i)
+            addOffHeapNode(pkHand);
+
+        // If the tree was too small for the root to have a child, the first
+        // Card is played
+        int best = bestOffHeapChild(0, 0);
+        return turnState.trick().playableCards(hand)
+                .get(best == -1 ? 0 : offHeapTree.childIndex(best));
+    }
+
+    /*
+     * Same as addNode() followed by distributePoints() in the off-heap tree
+     * (the points of the new node are directly added to its ancestors)
+     */
+    private void addOffHeapNode(long hand) {
+        OffHeapTree tree = offHeapTree;
+        int depth = 0;
+        int n = 0;
+
+        while (true) {
+            offHeapPath[depth++] = n;
+
+            long nonExistingChildren = tree.nonExistingChildren(n);
+            if (PackedCardSet.isEmpty(nonExistingChildren)) {
+                n = bestOffHeapChild(n, c);
+                if (n == -1)
+                    return;
+                continue;
+            }
+
+            if (tree.size() >= Math.min(tree.capacity(), nodeBudget)) {
+                // The tree is full, so Turns are simulated from n again
+                // instead of adding one of its children
+                int points = evaluation(tree.packedScore(n),
+                        tree.packedUnplayedCards(n), tree.packedTrick(n),
+                        tree.packedHand(n),
+                        leafRngSeed(tree.randomTurnsNumber(n)));
+                for (int d = 0; d < depth; ++d)
+                    tree.addSimulation(offHeapPath[d], points,
+                            turnsNumberPerNode());
+                return;
+            }
+
+            // Plays the first card of the nonExistingChildren set and
+            // collects the Trick if it is full
+            int card = PackedCardSet.get(nonExistingChildren, 0);
+            long score = tree.packedScore(n);
+            long unplayed = PackedCardSet.remove(tree.packedUnplayedCards(n),
+                    card);
+            int trick = PackedTrick.withAddedCard(tree.packedTrick(n), card);
+            if (PackedTrick.isFull(trick)) {
+                score = PackedScore.withAdditionalTrick(score,
+                        PackedTrick.winningPlayer(trick).team(),
+                        PackedTrick.points(trick));
+                trick = PackedTrick.nextEmpty(trick);
+            }
+
+            if (trick == PackedTrick.INVALID) {
+                // No node is created for a terminal state, the next card of
+                // the same node is tried instead
+                tree.addChild(n, card, -1);
+                --depth;
+                continue;
+            }
+
+            int child = addOffHeapNode(score, unplayed, trick,
+                    PackedCardSet.remove(hand, card));
+            tree.addChild(n, card, child);
+            for (int d = 0; d < depth; ++d)
+                tree.addSimulation(offHeapPath[d], tree.totalPoints(child),
+                        tree.randomTurnsNumber(child));
+            return;
+        }
+    }
+
+    /*
+     * Evaluates a new node of the off-heap tree and adds it, returning its
+     * index
+     */
+    private int addOffHeapNode(long pkScore, long pkUnplayedCards, int pkTrick,
+            long hand) {
+        int node = offHeapTree.add(pkScore, pkUnplayedCards, pkTrick, hand,
+                playableCards(pkUnplayedCards, pkTrick, hand),
+                evaluation(pkScore, pkUnplayedCards, pkTrick, hand, rngSeed),
+                turnsNumberPerNode());
+        nodesHighWaterMark = Math.max(nodesHighWaterMark, offHeapTree.size());
+        return node;
+    }
+
+    /*
+     * Returns the seed of the simulations done from a leaf which already has
+     * the given number of simulations, so that they are not the same as the
+     * previous ones
+     */
+    private long leafRngSeed(int randomTurnsNumber) {
+        return SplitMix.seed(rngSeed, randomTurnsNumber);
+    }
+
+    /*
+     * Same as Node.extractBestChildIndex() for a node of the off-heap tree,
+     * but returns the best child itself (or -1 if the node has no child). In
+     * case of equality, the child added first is chosen
+     */
+    private int bestOffHeapChild(int node, int c) {
+        OffHeapTree tree = offHeapTree;
+        int parentNumber = tree.randomTurnsNumber(node);
+
+        int best = -1;
+        double bestV = 0;
+        for (int child = tree.lastChild(node); child != -1; child = tree
+                .previousSibling(child)) {
+            double v = calculateV(c, tree.totalPoints(child),
+                    tree.randomTurnsNumber(child), parentNumber);
+            if (best == -1 || v >= bestV) {
+                best = child;
+                bestV = v;
+            }
+        }
+        return best;
+    }
+
+    private static double calculateV(int c, int totalPoints,
+            int randomTurnsNumber, int parentNumber) {
+        return totalPoints / (double) randomTurnsNumber + c * Math
+                .sqrt((2 * Math.log(parentNumber)) / randomTurnsNumber);
+    }
+
+    /*
+     * Number of Turns simulated (or estimated) from each new node
+     */
+    private int turnsNumberPerNode() {
+        return valueFunction != null ? 1 : rolloutsPerLeaf;
+    }
+
+    /*
+     * Returns the points the player's team gets in the Turns simulated from
+     * the given state (or its estimated points if there is a value function)
+     */
+    private int evaluation(long pkScore, long pkUnplayedCards, int pkTrick,
+            long hand, long rngSeed) {
+        if (valueFunction != null) {
+            double points = valueFunction.evaluate(pkScore, pkUnplayedCards,
+                    pkTrick, hand, ownId);
+            return (int) Math.max(0,
+                    Math.min(Math.round(points), MAX_TURN_POINTS));
+        }
+
+        int points = 0;
+        if (vectorRollouts) {
+            if (rolloutBackend == null) {
+                rolloutBackend = PackedRollouts.newVectorBackend();
+                rolloutSeeds = new long[rolloutsPerLeaf];
+                rolloutPoints = new int[rolloutsPerLeaf];
+            }
+            for (int k = 0; k < rolloutsPerLeaf; ++k)
+                rolloutSeeds[k] = rolloutSeed(rngSeed, k);
+            rolloutBackend.turnPoints(pkScore, pkUnplayedCards, pkTrick, hand,
+                    ownId, rolloutSeeds, rolloutPoints);
+            for (int k = 0; k < rolloutsPerLeaf; ++k)
+                points += rolloutPoints[k];
+            return points;
+        }
+
+        for (int k = 0; k < rolloutsPerLeaf; ++k)
+            points += PackedRollouts.turnPoints(pkScore, pkUnplayedCards,
+                    pkTrick, hand, ownId, rolloutSeed(rngSeed, k));
+        return points;
+    }
+
+    /*
+     * Returns the seed of the k-th Turn simulated with the given seed: the
+     * first one uses the seed itself, like when a single Turn was simulated
+     * from each node, and the next ones independent seeds derived from it
+     */
+    private static long rolloutSeed(long seed, int k) {
+        return k == 0 ? seed : SplitMix.seed(seed, k);
+    }
+
+    /*
+     * Returns the playable cards in a packed version, depending on the hand of
+     * the player if it's his turn to play in the simulated Turn, or depending
+     * on the unplayedCards of the Trick if it is not the player's turn
+     */
+    private long playableCards(long pkUnplayedCards, int pkTrick,
+            long hand) {
+        if (PackedTrick.player(pkTrick, PackedTrick.size(pkTrick)) == ownId)
+            return PackedTrick.playableCards(pkTrick, hand);
+
+        return PackedTrick.playableCards(pkTrick,
+                PackedCardSet.difference(pkUnplayedCards, hand));
+    }
+
+    private final class Node {
 
         private TurnState turnState;
         private Node[] children;
@@ -134,44 +715,59 @@ public final class MctsPlayer implements Player {
         // 157-turnPoints (it could be 257-0)
         private int otherPoints;
         private int randomTurnsNumber;
+        // Number of Turns simulated (or estimated) from this Node itself
+        private int ownTurnsNumber;
         private long hand;
         private final PlayerId playerId;
 
-        private Node(TurnState turnState, long hand, PlayerId id,
-                long rngSeed) {
+        private Node(TurnState turnState, long hand) {
             this.turnState = turnState;
-            playerId = id;
-            nonExistingChildren = playableCards(turnState, hand);
+            playerId = ownId;
+            nonExistingChildren = playableCards(
+                    turnState.packedUnplayedCards(), turnState.packedTrick(),
+                    hand);
             children = new Node[PackedCardSet.size(nonExistingChildren)];
             this.hand = hand;
-            turnPoints = turnPoints(rngSeed);
+            otherPoints = PackedScore.turnPoints(turnState.packedScore(),
+                    playerId.team().other());
+            turnPoints = evaluation(turnState.packedScore(),
+                    turnState.packedUnplayedCards(), turnState.packedTrick(),
+                    hand, rngSeed);
+            ownTurnsNumber = turnsNumberPerNode();
+            nodesHighWaterMark = Math.max(nodesHighWaterMark, ++nodesCount);
         }
 
         /*
-         * Simulates a full Turn going from this Node's Trick in order to see
-         * what score it expects to get if the Card of the Node is played
+         * Simulates more Turns from this Node, when the node budget does not
+         * allow to add one of its children
          */
-        private int turnPoints(long rngSeed) {
-            long hnd = hand;
-            SplittableRandom rng = new SplittableRandom(rngSeed);
-
-            TurnState trnStt = TurnState.ofPackedComponents(
-                    turnState.packedScore(), turnState.packedUnplayedCards(),
-                    turnState.packedTrick());
-
-            while (!trnStt.isTerminal()) {
-                turnPoints = trnStt.score().turnPoints(playerId.team());
-                otherPoints = trnStt.score()
-                        .turnPoints(playerId.team().other());
-
-                long set = playableCards(trnStt, hnd);
-                int c = PackedCardSet.get(set,
-                        rng.nextInt(PackedCardSet.size(set)));
-                hnd = PackedCardSet.remove(hnd, c);
-                trnStt = trnStt
-                        .withNewCardPlayedAndTrickCollected(Card.ofPacked(c));
-            }
-            return turnPoints;
+        private void addSimulation() {
+            turnPoints += evaluation(turnState.packedScore(),
+                    turnState.packedUnplayedCards(), turnState.packedTrick(),
+                    hand, leafRngSeed(randomTurnsNumber));
+            ownTurnsNumber += turnsNumberPerNode();
+        }
+
+        /*
+         * Returns the number of nodes of the subtree starting at this Node
+         */
+        private int subtreeSize() {
+            int size = 1;
+            for (Node child : children)
+                if (child != null)
+                    size += child.subtreeSize();
+            return size;
+        }
+
+        /*
+         * Returns the child whose TurnState is the given one, or null if it
+         * has not been created yet
+         */
+        private Node childFor(TurnState state) {
+            for (Node child : children)
+                if (child != null && child.turnState.equals(state))
+                    return child;
+            return null;
         }
 
         private int extractBestChildIndex(int c) {
@@ -181,10 +777,9 @@ public final class MctsPlayer implements Player {
                 if (children[i] != null) {
                     int pts = children[i].totalPoints;
                     int nbr = children[i].randomTurnsNumber;
-                    if (children[i].calculateV(c, pts, nbr,
-                            randomTurnsNumber) > child.calculateV(c,
-                                    child.totalPoints, child.randomTurnsNumber,
-                                    randomTurnsNumber)) {
+                    if (calculateV(c, pts, nbr, randomTurnsNumber) > calculateV(
+                            c, child.totalPoints, child.randomTurnsNumber,
+                            randomTurnsNumber)) {
                         child = children[i];
                         index = i;
                     }
@@ -193,12 +788,6 @@ public final class MctsPlayer implements Player {
             return index;
         }
 
-        private double calculateV(int c, int totalPoints, int randomTurnsNumber,
-                int parentNumber) {
-            return totalPoints / (double) randomTurnsNumber + c * Math
-                    .sqrt((2 * Math.log(parentNumber)) / randomTurnsNumber);
-        }
-
         /*
          * Computes the number of turns simulated from a node depending on its
          * children (this method is used in distributePoints() and works from
@@ -206,7 +795,7 @@ public final class MctsPlayer implements Player {
          * children only)
          */
         private int randomTurnsNumber() {
-            randomTurnsNumber = 1;
+            randomTurnsNumber = ownTurnsNumber;
             for (Node child : children)
                 if (child != null) {
                     randomTurnsNumber += child.randomTurnsNumber;
@@ -233,21 +822,5 @@ public final class MctsPlayer implements Player {
             }
             return totalPoints;
         }
-
-        /*
-         * Returns the playable cards in a packed version, depending on the hand
-         * of the player if it's his turn to play in the simulated Turn, or
-         * depending on the unplayedCards of the Trick if it is not the node's
-         * owner turn
-         */
-        private long playableCards(TurnState turnState, long hand) {
-
-            if (turnState.nextPlayer().equals(playerId))
-                return PackedTrick.playableCards(turnState.packedTrick(), hand);
-
-            return PackedTrick.playableCards(turnState.packedTrick(),
-                    PackedCardSet.difference(turnState.packedUnplayedCards(),
-                            hand));
-        }
     }
 }
\ No newline at end of file
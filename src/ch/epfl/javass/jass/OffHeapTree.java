@@ -0,0 +1,236 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Stores the nodes of a MonteCarlo search tree outside of the Java heap, as
+ * fixed-width records in a direct ByteBuffer, so that very large searches do
+ * not create millions of objects for the garbage collector to go through.
+ * Nodes are designated by their index in the buffer (the root being 0) and
+ * the buffer is reused from one search to the next
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+final class OffHeapTree {
+
+    // Offsets of the components of a node in its record. The children of a
+    // node are linked from the last one created to the first one
+    private static final int SCORE = 0;
+    private static final int UNPLAYED_CARDS = 8;
+    private static final int HAND = 16;
+    private static final int NON_EXISTING_CHILDREN = 24;
+    private static final int TRICK = 32;
+    private static final int TOTAL_POINTS = 36;
+    private static final int RANDOM_TURNS_NUMBER = 40;
+    private static final int LAST_CHILD = 44;
+    private static final int PREVIOUS_SIBLING = 48;
+    private static final int CHILD_INDEX = 52;
+
+    /**
+     * Size of the record of a node, in bytes (a multiple of 8 so that the
+     * longs of every record are aligned)
+     */
+    static final int RECORD_SIZE = 56;
+
+    // Index of a node which does not exist (the root can never be a child)
+    private static final int NO_NODE = 0;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private int size = 0;
+
+    /**
+     * Allocates a tree which uses at most the given number of bytes
+     *
+     * @param (maxBytes)
+     *            the size of the memory used to store the nodes
+     * @throws IllegalArgumentException
+     *             if maxBytes is too small to store a single node
+     */
+    OffHeapTree(int maxBytes) {
+        checkArgument(maxBytes >= RECORD_SIZE);
+        capacity = maxBytes / RECORD_SIZE;
+        buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the maximum number of nodes of the tree
+     *
+     * @return the number of nodes that fit in the tree
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the current number of nodes of the tree
+     *
+     * @return the number of nodes added since the tree was last cleared
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all nodes, so that the memory is reused by the next search
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a node without children
+     *
+     * @param (pkScore)
+     *            the packed version of the Score of the node
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards of the node
+     * @param (pkTrick)
+     *            the packed version of the Trick of the node
+     * @param (pkHand)
+     *            the packed version of the hand of the player
+     * @param (playableCards)
+     *            the packed version of the Cards which can be played from the
+     *            node (one child per Card)
+     * @param (turnPoints)
+     *            the points simulated from the node
+     * @param (turnsNumber)
+     *            the number of Turns simulated from the node
+     * @return the index of the new node, or -1 if the tree is full
+     */
+    int add(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand,
+            long playableCards, int turnPoints, int turnsNumber) {
+        if (size == capacity)
+            return -1;
+
+        int node = size++;
+        int base = node * RECORD_SIZE;
+        buffer.putLong(base + SCORE, pkScore);
+        buffer.putLong(base + UNPLAYED_CARDS, pkUnplayedCards);
+        buffer.putLong(base + HAND, pkHand);
+        buffer.putLong(base + NON_EXISTING_CHILDREN, playableCards);
+        buffer.putInt(base + TRICK, pkTrick);
+        buffer.putInt(base + TOTAL_POINTS, turnPoints);
+        buffer.putInt(base + RANDOM_TURNS_NUMBER, turnsNumber);
+        buffer.putInt(base + LAST_CHILD, NO_NODE);
+        buffer.putInt(base + PREVIOUS_SIBLING, NO_NODE);
+        buffer.putInt(base + CHILD_INDEX, 0);
+        return node;
+    }
+
+    long packedScore(int node) {
+        return buffer.getLong(node * RECORD_SIZE + SCORE);
+    }
+
+    long packedUnplayedCards(int node) {
+        return buffer.getLong(node * RECORD_SIZE + UNPLAYED_CARDS);
+    }
+
+    long packedHand(int node) {
+        return buffer.getLong(node * RECORD_SIZE + HAND);
+    }
+
+    int packedTrick(int node) {
+        return buffer.getInt(node * RECORD_SIZE + TRICK);
+    }
+
+    long nonExistingChildren(int node) {
+        return buffer.getLong(node * RECORD_SIZE + NON_EXISTING_CHILDREN);
+    }
+
+    int totalPoints(int node) {
+        return buffer.getInt(node * RECORD_SIZE + TOTAL_POINTS);
+    }
+
+    int randomTurnsNumber(int node) {
+        return buffer.getInt(node * RECORD_SIZE + RANDOM_TURNS_NUMBER);
+    }
+
+    /**
+     * Returns the last child added to a node
+     *
+     * @param (node)
+     *            the index of the node
+     * @return the index of the child, or -1 if the node has no child
+     */
+    int lastChild(int node) {
+        return orNone(buffer.getInt(node * RECORD_SIZE + LAST_CHILD));
+    }
+
+    /**
+     * Returns the child added to the same parent just before the given one
+     *
+     * @param (node)
+     *            the index of the child
+     * @return the index of the previous child, or -1 if there is none
+     */
+    int previousSibling(int node) {
+        return orNone(buffer.getInt(node * RECORD_SIZE + PREVIOUS_SIBLING));
+    }
+
+    /**
+     * Returns the index of a node among the children of its parent (0 for the
+     * first child added, and so on)
+     *
+     * @param (node)
+     *            the index of the child
+     * @return the index of the node among its siblings
+     */
+    int childIndex(int node) {
+        return buffer.getInt(node * RECORD_SIZE + CHILD_INDEX);
+    }
+
+    /**
+     * Records that the child of the given Card will never be created (or has
+     * just been), and links it to the node if it exists
+     *
+     * @param (node)
+     *            the index of the node
+     * @param (pkCard)
+     *            the packed version of the Card of the child
+     * @param (child)
+     *            the index of the child, or -1 if it does not exist
+     */
+    void addChild(int node, int pkCard, int child) {
+        int base = node * RECORD_SIZE;
+        buffer.putLong(base + NON_EXISTING_CHILDREN, PackedCardSet
+                .remove(buffer.getLong(base + NON_EXISTING_CHILDREN), pkCard));
+        if (child == -1)
+            return;
+
+        int last = lastChild(node);
+        buffer.putInt(child * RECORD_SIZE + CHILD_INDEX,
+                last == -1 ? 0 : childIndex(last) + 1);
+        buffer.putInt(child * RECORD_SIZE + PREVIOUS_SIBLING,
+                last == -1 ? NO_NODE : last);
+        buffer.putInt(base + LAST_CHILD, child);
+    }
+
+    /**
+     * Adds the points and the Turns simulated from a new node to one of its
+     * ancestors
+     *
+     * @param (node)
+     *            the index of the ancestor
+     * @param (turnPoints)
+     *            the points simulated from the new node
+     * @param (turnsNumber)
+     *            the number of Turns simulated from the new node
+     */
+    void addSimulation(int node, int turnPoints, int turnsNumber) {
+        int base = node * RECORD_SIZE;
+        buffer.putInt(base + TOTAL_POINTS,
+                buffer.getInt(base + TOTAL_POINTS) + turnPoints);
+        buffer.putInt(base + RANDOM_TURNS_NUMBER,
+                buffer.getInt(base + RANDOM_TURNS_NUMBER) + turnsNumber);
+    }
+
+    private static int orNone(int node) {
+        return node == NO_NODE ? -1 : node;
+    }
+}
@@ -1,6 +1,7 @@
 
 package ch.epfl.javass.jass;
 
+import java.util.List;
 import java.util.Map;
 
 import ch.epfl.javass.Preconditions;
@@ -12,7 +13,7 @@ import ch.epfl.javass.Preconditions;
  * @author Joseph Abboud (296753)
  * @author Zad Abi Fadel (295734)
  */
-public final class PacedPlayer implements Player {
+public final class PacedPlayer implements EventBatchPlayer {
 
     private final Player underlyingPlayer;
     private final double minTime;
@@ -35,7 +36,13 @@ public final class PacedPlayer implements Player {
     @Override
     public Card cardToPlay(TurnState state, CardSet hand) {
         long time = System.currentTimeMillis();
-        Card temp = underlyingPlayer.cardToPlay(state, hand);
+
+        // A Player able to use the waiting time is given all of it to choose
+        // its Card instead of sleeping
+        Card temp = underlyingPlayer instanceof TimeBudgetedPlayer
+                ? ((TimeBudgetedPlayer) underlyingPlayer).cardToPlay(state,
+                        hand, (long) minTime)
+                : underlyingPlayer.cardToPlay(state, hand);
         long timeAfter = System.currentTimeMillis();
 
         // Checks if the minimum time has passed
@@ -48,6 +55,11 @@ public final class PacedPlayer implements Player {
         return temp;
     }
 
+    @Override
+    public void handleEvents(List<GameEvent> events) {
+        EventBatchPlayer.deliver(events, underlyingPlayer);
+    }
+
     @Override
     public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
         underlyingPlayer.setPlayers(ownId, playerNames);
@@ -58,6 +70,11 @@ public final class PacedPlayer implements Player {
         underlyingPlayer.updateHand(newHand);
     }
 
+    @Override
+    public Card.Color chooseTrump(CardSet hand) {
+        return underlyingPlayer.chooseTrump(hand);
+    }
+
     @Override
     public void setTrump(Card.Color trump) {
         underlyingPlayer.setTrump(trump);
@@ -0,0 +1,72 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals the hands of the players directly as PackedCardSets. Each deal is
+ * identified by a seed and an index and uses its own random generator, so any
+ * deal can be made again without making the ones before it (for example the
+ * deal of a Turn in the middle of a game simulated in parallel)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class PackedDealer {
+
+    // All the packed Cards, in order
+    private static final int[] ORDERED_DECK = orderedDeck();
+
+    private PackedDealer() {
+    }
+
+    /**
+     * Deals the Cards to the players
+     *
+     * @param (seed)
+     *            the seed of the sequence of deals
+     * @param (index)
+     *            the index of the deal in the sequence
+     * @param (hands)
+     *            the array filled with the packed hand of each player (indexed
+     *            by PlayerId ordinal)
+     * @throws IllegalArgumentException
+     *             if there is not exactly one hand per player
+     */
+    public static void deal(long seed, long index, long[] hands) {
+        checkArgument(hands.length == PlayerId.COUNT);
+
+        int[] deck = ORDERED_DECK.clone();
+
+        // The generators of consecutive deals are not related
+        SplittableRandom rng = new SplittableRandom(SplitMix.seed(seed, index));
+
+        // Only the Cards of the first players have to be drawn, the last
+        // player gets the remaining ones
+        int drawn = (PlayerId.COUNT - 1) * Jass.HAND_SIZE;
+        for (int i = 0; i < drawn; ++i) {
+            int j = i + rng.nextInt(deck.length - i);
+            int card = deck[i];
+            deck[i] = deck[j];
+            deck[j] = card;
+        }
+
+        long remaining = PackedCardSet.ALL_CARDS;
+        for (int p = 0; p < PlayerId.COUNT - 1; ++p) {
+            long hand = PackedCardSet.EMPTY;
+            for (int i = p * Jass.HAND_SIZE; i < (p + 1) * Jass.HAND_SIZE; ++i)
+                hand = PackedCardSet.add(hand, deck[i]);
+            hands[p] = hand;
+            remaining = PackedCardSet.difference(remaining, hand);
+        }
+        hands[PlayerId.COUNT - 1] = remaining;
+    }
+
+    private static int[] orderedDeck() {
+        int[] deck = new int[PackedCardSet.size(PackedCardSet.ALL_CARDS)];
+        for (int i = 0; i < deck.length; ++i)
+            deck[i] = PackedCardSet.get(PackedCardSet.ALL_CARDS, i);
+        return deck;
+    }
+}
@@ -0,0 +1,132 @@
+package ch.epfl.javass.jass;
+
+import java.lang.reflect.Constructor;
+import java.util.SplittableRandom;
+
+/**
+ * Simulates random Turns entirely on packed values, without creating any
+ * TurnState or Card. A simulation plays the same Cards as one which goes
+ * through TurnStates with a SplittableRandom of the same seed, so both give
+ * the same points.
+ *
+ * The simulations can also be done by a RolloutBackend: the scalar one, which
+ * simulates the Turns one after the other, or the one of the vector source
+ * directory (VectorRollouts), which advances several Turns in lockstep with
+ * the Vector API. The latter is only available when it is on the class path
+ * and the jdk.incubator.vector module is added to the runtime
+ * (--add-modules jdk.incubator.vector, from Java 16 on)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class PackedRollouts {
+
+    /**
+     * The backend simulating the Turns one after the other with turnPoints()
+     */
+    public static final RolloutBackend SCALAR = (pkScore, pkUnplayedCards,
+            pkTrick, pkHand, ownId, rngSeeds, points) -> {
+        for (int i = 0; i < rngSeeds.length; ++i)
+            points[i] = turnPoints(pkScore, pkUnplayedCards, pkTrick, pkHand,
+                    ownId, rngSeeds[i]);
+    };
+
+    // The constructor of VectorRollouts, or null if the vector backend isn't
+    // available
+    private static final Constructor<?> VECTOR = vectorBackend();
+
+    private PackedRollouts() {
+    }
+
+    /**
+     * Returns true if the backend using the Vector API is available
+     *
+     * @return true if newVectorBackend() gives a backend using the Vector API
+     */
+    public static boolean hasVectorBackend() {
+        return VECTOR != null;
+    }
+
+    /**
+     * Returns a new backend advancing several Turns in lockstep with the
+     * Vector API, or the scalar backend if it isn't available (see
+     * hasVectorBackend())
+     *
+     * @return a new backend, to be used by a single thread
+     */
+    public static RolloutBackend newVectorBackend() {
+        if (VECTOR == null)
+            return SCALAR;
+        try {
+            return (RolloutBackend) VECTOR.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+    }
+
+    /**
+     * Simulates a random Turn from the given state and returns the points the
+     * player's Team has in it. Like the simulations of the MctsPlayer, the
+     * points are counted before the last Card of the Turn is played
+     *
+     * @param (pkScore)
+     *            the packed version of the current Score
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards
+     * @param (pkTrick)
+     *            the packed version of the current (not full) Trick
+     * @param (pkHand)
+     *            the packed version of the player's hand
+     * @param (ownId)
+     *            the player whose hand is known
+     * @param (rngSeed)
+     *            the seed of the random events of the simulation
+     * @return the points of the player's Team in the simulated Turn
+     */
+    public static int turnPoints(long pkScore, long pkUnplayedCards,
+            int pkTrick, long pkHand, PlayerId ownId, long rngSeed) {
+        SplittableRandom rng = new SplittableRandom(rngSeed);
+        long score = pkScore;
+        long unplayed = pkUnplayedCards;
+        long hand = pkHand;
+        int trick = pkTrick;
+
+        while (true) {
+            long playable = PackedTrick.player(trick,
+                    PackedTrick.size(trick)) == ownId
+                            ? PackedTrick.playableCards(trick, hand)
+                            : PackedTrick.playableCards(trick,
+                                    PackedCardSet.difference(unplayed, hand));
+            int card = PackedCardSet.get(playable,
+                    rng.nextInt(PackedCardSet.size(playable)));
+            unplayed = PackedCardSet.remove(unplayed, card);
+            hand = PackedCardSet.remove(hand, card);
+
+            trick = PackedTrick.withAddedCard(trick, card);
+            if (PackedTrick.isFull(trick)) {
+                // The points of the last Trick are not counted
+                if (PackedTrick.isLast(trick))
+                    return PackedScore.turnPoints(score, ownId.team());
+                score = PackedScore.withAdditionalTrick(score,
+                        PackedTrick.winningPlayer(trick).team(),
+                        PackedTrick.points(trick));
+                trick = PackedTrick.nextEmpty(trick);
+            }
+        }
+    }
+
+    private static Constructor<?> vectorBackend() {
+        // VectorRollouts is compiled apart, as it needs jdk.incubator.vector,
+        // and fails to load if the module isn't there
+        try {
+            Constructor<?> c = Class
+                    .forName("ch.epfl.javass.jass.VectorRollouts")
+                    .asSubclass(RolloutBackend.class).getConstructor();
+            c.newInstance();
+            return c;
+        } catch (ReflectiveOperationException | LinkageError
+                | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -6,8 +6,6 @@ import static ch.epfl.javass.bits.Bits32.pack;
 import static ch.epfl.javass.jass.PackedCardSet.subsetOfColor;
 import static ch.epfl.javass.jass.Jass.TRICKS_PER_TURN;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.StringJoiner;
 
 import ch.epfl.javass.jass.Card.Color;
@@ -329,121 +327,127 @@ public final class PackedTrick {
         if (isEmpty(pkTrick))
             return pkHand;
 
+        // These do not change in the method, and are only extracted once as
+        // this method is called for every Card of every simulated Turn
+        int size = size(pkTrick);
+        Color trump = trump(pkTrick);
+        Color baseColor = baseColor(pkTrick);
+
         /// The cases where only one card has been played
-        if (size(pkTrick) == 1) {
+        if (size == 1) {
             // Check if the hand contains cards from the base Color
-            if (subsetOfColor(pkHand, baseColor(pkTrick)) == 0)
+            if (subsetOfColor(pkHand, baseColor) == 0)
                 return pkHand;
 
             // Check if base Color is trump
-            if (baseColor(pkTrick).equals(trump(pkTrick)))
+            if (baseColor.equals(trump))
                 // Check if the hand only has the jack as a trump card
-                if (subsetOfColor(pkHand, trump(pkTrick)) == PackedCardSet
-                        .singleton(PackedCard.pack(trump(pkTrick), Rank.JACK)))
+                if (subsetOfColor(pkHand, trump) == PackedCardSet
+                        .singleton(PackedCard.pack(trump, Rank.JACK)))
                     return pkHand;
 
-            return PackedCardSet.union(subsetOfColor(pkHand, trump(pkTrick)),
-                    subsetOfColor(pkHand, baseColor(pkTrick)));
+            return PackedCardSet.union(subsetOfColor(pkHand, trump),
+                    subsetOfColor(pkHand, baseColor));
         }
 
         /// The cases where 2 cards have been played
-        if (size(pkTrick) == 2) {
+        if (size == 2) {
             // Check if base Color is trump
-            if (baseColor(pkTrick).equals(trump(pkTrick))) {
+            if (baseColor.equals(trump)) {
                 // Check if the hand only has the jack as a trump card or does
                 // not have any trump Card
-                if (subsetOfColor(pkHand, trump(pkTrick)) == PackedCardSet
-                        .singleton(PackedCard.pack(trump(pkTrick), Rank.JACK))
-                        || subsetOfColor(pkHand, trump(pkTrick)) == 0)
+                if (subsetOfColor(pkHand, trump) == PackedCardSet
+                        .singleton(PackedCard.pack(trump, Rank.JACK))
+                        || subsetOfColor(pkHand, trump) == 0)
                     return pkHand;
-                return subsetOfColor(pkHand, trump(pkTrick));
+                return subsetOfColor(pkHand, trump);
             }
 
             // Check if base Color is not trump
-            if (subsetOfColor(pkHand, baseColor(pkTrick)) == 0) {
+            if (subsetOfColor(pkHand, baseColor) == 0) {
                 // Check if the second Card's Color is trump
-                if (PackedCard.color(card(pkTrick, 1)).equals(trump(pkTrick))) {
+                if (PackedCard.color(card(pkTrick, 1)).equals(trump)) {
                     // Check if hand only has trump cards
-                    if (subsetOfColor(pkHand, trump(pkTrick)) == pkHand)
+                    if (subsetOfColor(pkHand, trump) == pkHand)
                         // Check if hand only has trump cards lower than the
                         // second Card
-                        if ((subsetOfColor(pkHand, trump(pkTrick))
+                        if ((subsetOfColor(pkHand, trump)
                                 & PackedCardSet
                                         .trumpAbove(card(pkTrick, 1))) == 0)
                             return pkHand;
-                    pkHand -= subsetOfColor(temp, trump(pkTrick));
+                    pkHand -= subsetOfColor(temp, trump);
                     return PackedCardSet.union(pkHand,
-                            (subsetOfColor(temp, trump(pkTrick)) & PackedCardSet
+                            (subsetOfColor(temp, trump) & PackedCardSet
                                     .trumpAbove(card(pkTrick, 1))));
                 }
                 return pkHand;
             }
-            if (PackedCard.color(card(pkTrick, 1)).equals(trump(pkTrick))) {
-                pkHand -= subsetOfColor(temp, trump(pkTrick));
+            if (PackedCard.color(card(pkTrick, 1)).equals(trump)) {
+                pkHand -= subsetOfColor(temp, trump);
                 pkHand = PackedCardSet.union(pkHand,
-                        (subsetOfColor(temp, trump(pkTrick))
+                        (subsetOfColor(temp, trump)
                                 & PackedCardSet.trumpAbove(card(pkTrick, 1))));
             }
-            return PackedCardSet.union(subsetOfColor(pkHand, trump(pkTrick)),
-                    subsetOfColor(pkHand, baseColor(pkTrick)));
+            return PackedCardSet.union(subsetOfColor(pkHand, trump),
+                    subsetOfColor(pkHand, baseColor));
         }
 
         /// The cases where 3 cards have been played
         // Check if base Color is trump
-        if (baseColor(pkTrick).equals(trump(pkTrick))) {
+        if (baseColor.equals(trump)) {
             // Check if hand only has jack as trump or does not have any trump
             // Card
-            if (subsetOfColor(pkHand, trump(pkTrick)) == PackedCardSet
-                    .singleton(PackedCard.pack(trump(pkTrick), Rank.JACK))
-                    || subsetOfColor(pkHand, trump(pkTrick)) == 0)
+            if (subsetOfColor(pkHand, trump) == PackedCardSet
+                    .singleton(PackedCard.pack(trump, Rank.JACK))
+                    || subsetOfColor(pkHand, trump) == 0)
                 return pkHand;
-            return subsetOfColor(pkHand, trump(pkTrick));
+            return subsetOfColor(pkHand, trump);
         }
 
         // Check if base Color is not trump
-        if (subsetOfColor(pkHand, baseColor(pkTrick)) == 0) {
+        if (subsetOfColor(pkHand, baseColor) == 0) {
             // Check if both second and third cards' Color is trump
-            if (PackedCard.color(card(pkTrick, 1)).equals(trump(pkTrick))
+            if (PackedCard.color(card(pkTrick, 1)).equals(trump)
                     && PackedCard.color(card(pkTrick, 2))
-                            .equals(trump(pkTrick))) {
+                            .equals(trump)) {
                 int cardIndex = 0;
                 // Check which Card between second and third Card is better
-                if (PackedCard.isBetter(trump(pkTrick), card(pkTrick, 1),
+                if (PackedCard.isBetter(trump, card(pkTrick, 1),
                         card(pkTrick, 2))) {
                     cardIndex = 1;
                 } else {
                     cardIndex = 2;
                 }
                 // Check if hand only has trump cards
-                if (subsetOfColor(pkHand, trump(pkTrick)) == pkHand) {
+                if (subsetOfColor(pkHand, trump) == pkHand) {
                     // Check if hand only has trump cards lower than the played
                     // trump Card
-                    if ((subsetOfColor(pkHand, trump(pkTrick)) & PackedCardSet
+                    if ((subsetOfColor(pkHand, trump) & PackedCardSet
                             .trumpAbove(card(pkTrick, cardIndex))) == 0) {
                         return pkHand;
                     }
                 }
-                pkHand -= subsetOfColor(pkHand, trump(pkTrick));
+                pkHand -= subsetOfColor(pkHand, trump);
                 return PackedCardSet.union(pkHand,
-                        (subsetOfColor(temp, trump(pkTrick)) & PackedCardSet
+                        (subsetOfColor(temp, trump) & PackedCardSet
                                 .trumpAbove(card(pkTrick, cardIndex))));
             }
             // Check if only second Card's Color is trump
-            if (PackedCard.color(card(pkTrick, 1)).equals(trump(pkTrick))) {
-                if (subsetOfColor(pkHand, trump(pkTrick)) != pkHand) {
-                    pkHand -= subsetOfColor(pkHand, trump(pkTrick));
+            if (PackedCard.color(card(pkTrick, 1)).equals(trump)) {
+                if (subsetOfColor(pkHand, trump) != pkHand) {
+                    pkHand -= subsetOfColor(pkHand, trump);
                     return PackedCardSet.union(pkHand,
-                            (subsetOfColor(temp, trump(pkTrick)) & PackedCardSet
+                            (subsetOfColor(temp, trump) & PackedCardSet
                                     .trumpAbove(card(pkTrick, 1))));
                 }
 
             }
             // Check if only third Card's Color is trump
-            if (PackedCard.color(card(pkTrick, 2)).equals(trump(pkTrick))) {
-                if (subsetOfColor(pkHand, trump(pkTrick)) != pkHand) {
-                    pkHand -= subsetOfColor(pkHand, trump(pkTrick));
+            if (PackedCard.color(card(pkTrick, 2)).equals(trump)) {
+                if (subsetOfColor(pkHand, trump) != pkHand) {
+                    pkHand -= subsetOfColor(pkHand, trump);
                     return PackedCardSet.union(pkHand,
-                            (subsetOfColor(temp, trump(pkTrick)) & PackedCardSet
+                            (subsetOfColor(temp, trump) & PackedCardSet
                                     .trumpAbove(card(pkTrick, 2))));
                 }
             }
@@ -452,23 +456,23 @@ public final class PackedTrick {
 
         int cardIndex = 0;
         // Check which Card between second and third Card is better
-        if (PackedCard.isBetter(trump(pkTrick), card(pkTrick, 1),
+        if (PackedCard.isBetter(trump, card(pkTrick, 1),
                 card(pkTrick, 2)))
             cardIndex = 1;
         else
             cardIndex = 2;
         // Check if the better Card's Color is trump
-        if (PackedCard.color(card(pkTrick, cardIndex)).equals(trump(pkTrick))) {
-            pkHand -= subsetOfColor(temp, trump(pkTrick));
+        if (PackedCard.color(card(pkTrick, cardIndex)).equals(trump)) {
+            pkHand -= subsetOfColor(temp, trump);
             pkHand = PackedCardSet.union(pkHand,
-                    (subsetOfColor(temp, trump(pkTrick)) & PackedCardSet
+                    (subsetOfColor(temp, trump) & PackedCardSet
                             .trumpAbove(card(pkTrick, cardIndex))));
-            return PackedCardSet.union(subsetOfColor(pkHand, trump(pkTrick)),
-                    subsetOfColor(pkHand, baseColor(pkTrick)));
+            return PackedCardSet.union(subsetOfColor(pkHand, trump),
+                    subsetOfColor(pkHand, baseColor));
 
         }
-        return PackedCardSet.union(subsetOfColor(pkHand, trump(pkTrick)),
-                subsetOfColor(pkHand, baseColor(pkTrick)));
+        return PackedCardSet.union(subsetOfColor(pkHand, trump),
+                subsetOfColor(pkHand, baseColor));
     }
 
     /**
@@ -503,24 +507,19 @@ public final class PackedTrick {
         assert isValid(pkTrick);
         assert (!isEmpty(pkTrick));
 
-        List<Integer> cards = new ArrayList<>();
-
-        for (int i = 0; i < PlayerId.COUNT; ++i)
-            if (PackedCard.isValid(card(pkTrick, i)))
-                cards.add(card(pkTrick, i));
-
-        int winningCard = cards.get(0);
+        int winningCard = card(pkTrick, 0);
         int index = 0;
 
-        // Computes the winning card of the Trick and its index
-        for (int i = 1; i < cards.size(); ++i)
-            if (PackedCard.isBetter(trump(pkTrick), cards.get(i),
+        // Computes the winning card of the Trick and its index (without
+        // allocating anything, as this is done for every simulated Trick)
+        for (int i = 1; i < CARDS_PER_TRICK
+                && PackedCard.isValid(card(pkTrick, i)); ++i)
+            if (PackedCard.isBetter(trump(pkTrick), card(pkTrick, i),
                     winningCard)) {
                 index = i;
-                winningCard = cards.get(i);
+                winningCard = card(pkTrick, i);
             }
 
-        cards.clear();
         return PlayerId.ALL.get((index + player(pkTrick, 0).ordinal()) % 4);
 
     }
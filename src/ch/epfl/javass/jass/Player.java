@@ -30,6 +30,19 @@ public interface Player {
     default void updateHand(CardSet newHand) {
     }
 
+    /**
+     * Chooses the trump Color of a Turn starting with the player calling the
+     * method
+     * 
+     * @param (hand)
+     *            the player's hand at the beginning of the Turn
+     * @return the chosen trump Color, or null if the player leaves the choice
+     *         to the game (which then chooses it randomly)
+     */
+    default Color chooseTrump(CardSet hand) {
+        return null;
+    }
+
     /**
      * Sets the trump Color at the beginning of the Turn
      * 
@@ -0,0 +1,47 @@
+package ch.epfl.javass.jass;
+
+/**
+ * Simulates random Turns from the same state, one per seed, like
+ * PackedRollouts.turnPoints does for a single seed. A backend may simulate
+ * several Turns at once (in lanes advancing in lockstep), but the points of
+ * each simulation are the ones PackedRollouts gives for its seed. A backend
+ * may keep buffers between calls, so it is only used by one thread at a time
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public interface RolloutBackend {
+
+    /**
+     * Returns the number of Turns the backend simulates at once
+     *
+     * @return the number of lanes of the backend (1 if it simulates the Turns
+     *         one after the other)
+     */
+    default int lanes() {
+        return 1;
+    }
+
+    /**
+     * Simulates a random Turn from the given state for each seed, and gives
+     * the points the player's Team has in each of them
+     *
+     * @param (pkScore)
+     *            the packed version of the current Score
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards
+     * @param (pkTrick)
+     *            the packed version of the current (not full) Trick
+     * @param (pkHand)
+     *            the packed version of the player's hand
+     * @param (ownId)
+     *            the player whose hand is known
+     * @param (rngSeeds)
+     *            the seeds of the simulations
+     * @param (points)
+     *            the array receiving the points of the simulation of each
+     *            seed, at the same index (at least as long as rngSeeds)
+     */
+    void turnPoints(long pkScore, long pkUnplayedCards, int pkTrick,
+            long pkHand, PlayerId ownId, long[] rngSeeds, int[] points);
+}
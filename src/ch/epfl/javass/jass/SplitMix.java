@@ -0,0 +1,51 @@
+package ch.epfl.javass.jass;
+
+/**
+ * Contains the parts of the SplitMix64 generator (the one of
+ * SplittableRandom) used to derive independent seeds from a single one, for
+ * example the seeds of the games of a batch or of the deals of a game
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class SplitMix {
+
+    /**
+     * The increment of the state of the generator between two values (the
+     * golden gamma of SplittableRandom)
+     */
+    public static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private SplitMix() {
+    }
+
+    /**
+     * Mixes the bits of a long, every bit of the argument changing about half
+     * of the bits of the result (the finalizer of SplitMix64)
+     *
+     * @param (z)
+     *            the long to mix
+     * @return the mixed long
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the seed at the given index of the sequence of seeds derived
+     * from the given one, which is the value number index + 1 of a
+     * SplittableRandom created with this seed: the sequences of close seeds
+     * are not related
+     *
+     * @param (seed)
+     *            the seed of the sequence
+     * @param (index)
+     *            the index of the seed in the sequence
+     * @return the derived seed
+     */
+    public static long seed(long seed, long index) {
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+}
@@ -0,0 +1,25 @@
+package ch.epfl.javass.jass;
+
+/**
+ * Player which can make use of a given amount of time to choose the Card it
+ * plays, typically a Player searching for a better Card as long as it can
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public interface TimeBudgetedPlayer extends Player {
+
+    /**
+     * Returns the Card the player wants to play, using about the given time to
+     * choose it
+     *
+     * @param (state)
+     *            the current TurnState
+     * @param (hand)
+     *            the hand of the player
+     * @param (timeBudget)
+     *            the time (in milliseconds) the player may spend choosing
+     * @return the Card to play
+     */
+    Card cardToPlay(TurnState state, CardSet hand, long timeBudget);
+}
@@ -0,0 +1,145 @@
+package ch.epfl.javass.jass;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+
+/**
+ * Methods to choose the trump Color of a Turn given a hand in its packed
+ * version. The strength of every possible subset of a Color is computed once,
+ * so evaluating a hand only takes a few table lookups
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class TrumpEvaluator {
+
+    /**
+     * Number of bits reserved for each Color in a PackedCardSet
+     */
+    private static final int SUIT_SIZE = 16;
+
+    /**
+     * Number of possible subsets of the Cards of one Color
+     */
+    private static final int SUBSETS_PER_COLOR = 1 << Rank.COUNT;
+
+    /**
+     * Strength of each Rank when its Color is trump, indexed by Rank ordinal
+     * (6, 7, 8, 9, 10, J, Q, K, A)
+     */
+    private static final int[] TRUMP_RANK_STRENGTH = { 2, 2, 2, 10, 4, 12, 3,
+            3, 6 };
+
+    /**
+     * Bonus given for each trump Card held beyond the second one, as long
+     * trumps allow to take the lead back
+     */
+    private static final int TRUMP_LENGTH_BONUS = 3;
+
+    /**
+     * Strength of an ace in a Color which is not trump
+     */
+    private static final int SIDE_ACE_STRENGTH = 5;
+
+    /**
+     * Strength of a ten or a king in a Color which is not trump, when they are
+     * protected by the ace of the same Color
+     */
+    private static final int SIDE_GUARDED_STRENGTH = 2;
+
+    // Strength of each subset of a Color, depending on whether the Color is
+    // trump or not
+    private static final int[] TRUMP_STRENGTH_TABLE = fillTrumpStrengthTable();
+    private static final int[] SIDE_STRENGTH_TABLE = fillSideStrengthTable();
+
+    private TrumpEvaluator() {
+    }
+
+    /**
+     * Returns the strength of the given hand if the given Color was trump
+     *
+     * @param (pkHand)
+     *            the packed version of the hand
+     * @param (trump)
+     *            the trump Color to evaluate
+     * @return the strength of the hand (the higher the better)
+     */
+    public static int strength(long pkHand, Color trump) {
+        assert PackedCardSet.isValid(pkHand);
+
+        int strength = 0;
+        for (Color color : Color.ALL) {
+            int subset = colorSubset(pkHand, color);
+            strength += color == trump ? TRUMP_STRENGTH_TABLE[subset]
+                    : SIDE_STRENGTH_TABLE[subset];
+        }
+        return strength;
+    }
+
+    /**
+     * Returns the trump Color which gives the strongest hand (the first Color
+     * in case of equality)
+     *
+     * @param (pkHand)
+     *            the packed version of the hand
+     * @return the best trump Color for the given hand
+     */
+    public static Color bestTrump(long pkHand) {
+        assert PackedCardSet.isValid(pkHand);
+
+        // Every Color is counted as a side Color, and the difference made by
+        // making it trump is then compared
+        Color best = Color.SPADE;
+        int bestGain = Integer.MIN_VALUE;
+        for (Color color : Color.ALL) {
+            int subset = colorSubset(pkHand, color);
+            int gain = TRUMP_STRENGTH_TABLE[subset]
+                    - SIDE_STRENGTH_TABLE[subset];
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = color;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Returns the Cards of the given Color as a 9 bits integer whose bit i is
+     * set if the Card of Rank ordinal i is in the hand
+     */
+    private static int colorSubset(long pkHand, Color color) {
+        return (int) (PackedCardSet.subsetOfColor(pkHand, color) >>> (color
+                .ordinal() * SUIT_SIZE));
+    }
+
+    private static int[] fillTrumpStrengthTable() {
+        int[] table = new int[SUBSETS_PER_COLOR];
+        for (int subset = 0; subset < SUBSETS_PER_COLOR; ++subset) {
+            for (int r = 0; r < Rank.COUNT; ++r)
+                if ((subset & (1 << r)) != 0)
+                    table[subset] += TRUMP_RANK_STRENGTH[r];
+
+            table[subset] += TRUMP_LENGTH_BONUS
+                    * Math.max(0, Integer.bitCount(subset) - 2);
+        }
+        return table;
+    }
+
+    private static int[] fillSideStrengthTable() {
+        int ace = 1 << Rank.ACE.ordinal();
+        int king = 1 << Rank.KING.ordinal();
+        int ten = 1 << Rank.TEN.ordinal();
+
+        int[] table = new int[SUBSETS_PER_COLOR];
+        for (int subset = 0; subset < SUBSETS_PER_COLOR; ++subset) {
+            if ((subset & ace) != 0) {
+                table[subset] += SIDE_ACE_STRENGTH;
+                if ((subset & king) != 0)
+                    table[subset] += SIDE_GUARDED_STRENGTH;
+                if ((subset & ten) != 0)
+                    table[subset] += SIDE_GUARDED_STRENGTH;
+            }
+        }
+        return table;
+    }
+}
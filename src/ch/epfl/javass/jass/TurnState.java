@@ -198,4 +198,22 @@ public final class TurnState {
         return s;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TurnState) {
+            TurnState that = (TurnState) obj;
+            return that.pkScore == pkScore
+                    && that.pkUnplayedCards == pkUnplayedCards
+                    && that.pkTrick == pkTrick;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(pkScore)
+                + Long.hashCode(pkUnplayedCards)) + pkTrick;
+    }
+
 }
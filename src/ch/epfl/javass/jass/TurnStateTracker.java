@@ -0,0 +1,113 @@
+package ch.epfl.javass.jass;
+
+/**
+ * Rebuilds the current TurnState of a game from the notifications a Player
+ * receives (score, trick and hand), since the unplayed cards are never given
+ * directly to a Player outside of cardToPlay()
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class TurnStateTracker {
+
+    private long pkScore = PackedScore.INITIAL;
+    private long pkUnplayedCards = PackedCardSet.ALL_CARDS;
+    private int pkTrick = PackedTrick.INVALID;
+    private long pkHand = PackedCardSet.EMPTY;
+
+    /**
+     * Updates the tracked hand
+     *
+     * @param (pkHand)
+     *            the packed version of the new hand
+     */
+    public void updateHand(long pkHand) {
+        this.pkHand = pkHand;
+    }
+
+    /**
+     * Updates the tracked Score. If the tracked Trick is full, its points are
+     * already part of the new Score so it is forgotten until the next Trick is
+     * given
+     *
+     * @param (pkScore)
+     *            the packed version of the new Score
+     */
+    public void updateScore(long pkScore) {
+        this.pkScore = pkScore;
+        if (pkTrick != PackedTrick.INVALID && PackedTrick.isFull(pkTrick))
+            pkTrick = PackedTrick.INVALID;
+    }
+
+    /**
+     * Updates the tracked Trick and removes its cards from the unplayed cards
+     * (all cards are available again when the first Trick of a Turn starts).
+     * Some of the Tricks being played may be missing, as long as every full
+     * Trick is given
+     *
+     * @param (pkTrick)
+     *            the packed version of the new Trick
+     */
+    public void updateTrick(int pkTrick) {
+        // The first Trick of a Turn may be given with Cards already played,
+        // so it is recognized as a Trick of index 0 following another one
+        if (PackedTrick.index(pkTrick) == 0 && (PackedTrick.isEmpty(pkTrick)
+                || this.pkTrick == PackedTrick.INVALID
+                || PackedTrick.index(this.pkTrick) != 0))
+            pkUnplayedCards = PackedCardSet.ALL_CARDS;
+
+        for (int i = 0; i < PackedTrick.size(pkTrick); ++i)
+            pkUnplayedCards = PackedCardSet.remove(pkUnplayedCards,
+                    PackedTrick.card(pkTrick, i));
+
+        this.pkTrick = pkTrick;
+    }
+
+    /**
+     * Replaces the whole tracked state, typically by the one given to
+     * cardToPlay() when the tracked one turned out to be wrong
+     *
+     * @param (state)
+     *            the current TurnState
+     * @param (pkHand)
+     *            the packed version of the current hand
+     */
+    public void resync(TurnState state, long pkHand) {
+        this.pkScore = state.packedScore();
+        this.pkUnplayedCards = state.packedUnplayedCards();
+        this.pkTrick = state.packedTrick();
+        this.pkHand = pkHand;
+    }
+
+    /**
+     * Forgets the current Trick, typically at the end of the game
+     */
+    public void reset() {
+        pkTrick = PackedTrick.INVALID;
+    }
+
+    /**
+     * Getter for the packed version of the tracked hand
+     *
+     * @return the packed version of the tracked hand
+     */
+    public long packedHand() {
+        return pkHand;
+    }
+
+    /**
+     * Returns the tracked TurnState. A full Trick is returned already collected
+     * so that the state is the one in which the next Card will be played
+     *
+     * @return the tracked TurnState, or null if no Trick is being played
+     */
+    public TurnState turnState() {
+        if (pkTrick == PackedTrick.INVALID)
+            return null;
+
+        TurnState state = TurnState.ofPackedComponents(pkScore,
+                pkUnplayedCards, pkTrick);
+        return PackedTrick.isFull(pkTrick) ? state.withTrickCollected()
+                : state;
+    }
+}
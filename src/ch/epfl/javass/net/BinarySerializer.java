@@ -0,0 +1,244 @@
+package ch.epfl.javass.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+
+import ch.epfl.javass.jass.PlayerId;
+
+/**
+ * Class containing the constants and useful methods of the binary protocol.
+ *
+ * The client starts with the handshake MAGIC followed by the highest version
+ * it supports, and the server answers with the version they will use (0 if
+ * the client has to keep to the text protocol). Each command is then a frame
+ * made of its tag followed by its arguments, in little-endian order:
+ *
+ * PLRS ownId (1 byte), then for each player the length of its name (2 bytes)
+ * and the name in UTF-8 (see ByteBufferCodec, which writes and reads all the
+ * values of the frames)
+ *
+ * TRMP color (1 byte), HAND hand (8 bytes), TRCK trick (4 bytes), SCOR score
+ * (8 bytes), WINR team (1 byte)
+ *
+ * CARD score (8 bytes), unplayed cards (8 bytes), trick (4 bytes), hand (8
+ * bytes), to which the server answers with the packed card (1 byte)
+ *
+ * SESS the length of the session id (2 bytes) and the id in UTF-8
+ *
+ * Version 2 adds MCRD, the number of the decision (4 bytes) and the checksum
+ * of the state (8 bytes), which asks for a Card using the state the server
+ * mirrors from the previous commands (see StateMirror). The server answers
+ * with the packed card, or with RESYNC if its state is not the one of the
+ * client, which then sends the same request as a CARD. A client only sends
+ * MCRD if the server agreed on version 2
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class BinarySerializer {
+
+    /**
+     * The first bytes sent by a client using the binary protocol (the first
+     * one can't start a line of the text protocol)
+     */
+    public static final byte[] MAGIC = { 0, 'J', 'B' };
+
+    /**
+     * The version of the binary protocol described above
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The first version of the binary protocol supporting MCRD
+     */
+    public static final int MIRRORED_VERSION = 2;
+
+    /**
+     * The answer to a MCRD command asking the client to send its state (which
+     * is not a packed card)
+     */
+    public static final int RESYNC = 0xFF;
+
+    // Private constructor
+    private BinarySerializer() {
+    }
+
+    /**
+     * Returns the tag of the given command
+     * 
+     * @param command
+     *            the command
+     * @return the byte starting the frames of the command
+     */
+    public static byte tag(JassCommand command) {
+        return (byte) (command.ordinal() + 1);
+    }
+
+    /**
+     * Returns the command of the given tag
+     * 
+     * @param tag
+     *            the byte starting a frame
+     * @throws IOException
+     *             if the tag is not the one of a command
+     * @return the command of the tag
+     */
+    public static JassCommand command(int tag) throws IOException {
+        if (tag < 1 || tag > JassCommand.values().length)
+            throw new IOException("Unknown command tag " + tag);
+        return JassCommand.values()[tag - 1];
+    }
+
+    /**
+     * Returns a new little-endian buffer of the given size, starting with the
+     * tag of the given command
+     * 
+     * @param command
+     *            the command of the frame
+     * @param argumentsSize
+     *            the size (in bytes) of the arguments of the command
+     * @return the buffer, positioned after the tag
+     */
+    public static ByteBuffer frame(JassCommand command, int argumentsSize) {
+        return ByteBuffer.allocate(1 + argumentsSize)
+                .order(ByteOrder.LITTLE_ENDIAN).put(tag(command));
+    }
+
+    /**
+     * Returns the frame of the PLRS command
+     * 
+     * @param ownId
+     *            the Id of the player
+     * @param names
+     *            the names of all the players
+     * @return the buffer containing the frame, ready to be written
+     */
+    public static ByteBuffer playersFrame(PlayerId ownId,
+            Map<PlayerId, String> names) {
+        ByteBuffer b = frame(JassCommand.PLRS,
+                Byte.BYTES + ByteBufferCodec.namesSize(names))
+                        .put((byte) ownId.ordinal());
+        return ByteBufferCodec.putNames(b, names).flip();
+    }
+
+    /**
+     * Returns the frame of the SESS command
+     * 
+     * @param sessionId
+     *            the id of the session
+     * @return the buffer containing the frame, ready to be written
+     */
+    public static ByteBuffer sessionFrame(String sessionId) {
+        ByteBuffer b = frame(JassCommand.SESS,
+                ByteBufferCodec.stringSize(sessionId));
+        return ByteBufferCodec.putString(b, sessionId).flip();
+    }
+
+    /**
+     * Returns the size of the arguments of a command, if the given buffer
+     * holds enough of them to know it
+     * 
+     * @param command
+     *            the command
+     * @param b
+     *            the little-endian buffer, whose position is the start of the
+     *            arguments (which is not changed)
+     * @return the size (in bytes) of the arguments, or -1 if they are not all
+     *         in the buffer
+     */
+    public static int argumentsSize(JassCommand command, ByteBuffer b) {
+        int size = fixedSize(command);
+        if (isVariable(command)) {
+            for (int i = 0; i < stringsCount(command); ++i) {
+                if (b.remaining() < size + Short.BYTES)
+                    return -1;
+                size += Short.BYTES
+                        + (b.getShort(b.position() + size) & 0xFFFF);
+            }
+        }
+        return b.remaining() < size ? -1 : size;
+    }
+
+    /**
+     * Reads the arguments of a command
+     * 
+     * @param in
+     *            the stream to read from
+     * @param command
+     *            the command
+     * @throws IOException
+     *             if the stream ends before
+     * @return a little-endian buffer containing the arguments
+     */
+    public static ByteBuffer readArguments(DataInputStream in,
+            JassCommand command) throws IOException {
+        if (!isVariable(command))
+            return read(in, fixedSize(command));
+
+        ByteArrayOutputStream arguments = new ByteArrayOutputStream();
+        arguments.write(read(in, fixedSize(command)).array(), 0,
+                fixedSize(command));
+        for (int i = 0; i < stringsCount(command); ++i) {
+            ByteBuffer length = read(in, Short.BYTES);
+            byte[] bytes = new byte[length.getShort() & 0xFFFF];
+            in.readFully(bytes);
+            arguments.write(length.array(), 0, Short.BYTES);
+            arguments.write(bytes, 0, bytes.length);
+        }
+        return ByteBuffer.wrap(arguments.toByteArray())
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static boolean isVariable(JassCommand command) {
+        return command == JassCommand.PLRS || command == JassCommand.SESS;
+    }
+
+    // Size of the arguments of a command, without the Strings
+    private static int fixedSize(JassCommand command) {
+        switch (command) {
+        case SESS:
+            return 0;
+        case PLRS:
+        case TRMP:
+        case WINR:
+            return Byte.BYTES;
+        case TRCK:
+            return Integer.BYTES;
+        case HAND:
+        case SCOR:
+            return Long.BYTES;
+        case CARD:
+            return 3 * Long.BYTES + Integer.BYTES;
+        case MCRD:
+            return Integer.BYTES + Long.BYTES;
+        default:
+            throw new Error();
+        }
+    }
+
+    private static int stringsCount(JassCommand command) {
+        return command == JassCommand.PLRS ? PlayerId.COUNT : 1;
+    }
+
+    /**
+     * Reads the given number of bytes
+     * 
+     * @param in
+     *            the stream to read from
+     * @param size
+     *            the number of bytes to read
+     * @throws IOException
+     *             if the stream ends before
+     * @return a little-endian buffer containing the bytes read
+     */
+    public static ByteBuffer read(DataInputStream in, int size)
+            throws IOException {
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,95 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct little-endian buffers of the same size. A direct buffer is
+ * read from and written to a channel without being copied, but is costly to
+ * allocate, so the buffers are reused instead of being left to the garbage
+ * collector. Its methods can be called by any thread
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final AtomicInteger allocatedCount = new AtomicInteger();
+
+    /**
+     * Constructs an empty pool
+     *
+     * @param bufferSize
+     *            the capacity of the buffers
+     * @param maxPooled
+     *            the maximal number of buffers kept for reuse, the other
+     *            buffers given back being left to the garbage collector
+     * @throws IllegalArgumentException
+     *             if the size isn't strictly positive or the maximal number
+     *             is negative
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        checkArgument(bufferSize > 0 && maxPooled >= 0);
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Returns the capacity of the buffers of the pool
+     *
+     * @return the capacity of the buffers
+     */
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Takes a buffer of the pool, or allocates one if the pool is empty
+     *
+     * @return a cleared direct little-endian buffer
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer b = buffers.poll();
+        if (b == null) {
+            allocatedCount.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        pooledCount.decrementAndGet();
+        return b.clear().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Gives back a buffer, which mustn't be used anymore. The buffers which
+     * don't come from a pool of this size are ignored
+     *
+     * @param b
+     *            the buffer
+     */
+    public void release(ByteBuffer b) {
+        if (!b.isDirect() || b.capacity() != bufferSize)
+            return;
+        if (pooledCount.incrementAndGet() > maxPooled) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        buffers.add(b);
+    }
+
+    /**
+     * Returns the number of buffers allocated by the pool until now
+     *
+     * @return the number of buffers allocated
+     */
+    public int allocatedCount() {
+        return allocatedCount.get();
+    }
+}
@@ -0,0 +1,343 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.EnumMap;
+import java.util.Map;
+
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Class containing the methods writing the values of a game to a ByteBuffer
+ * and reading them back, in the byte order of the buffer (little-endian for
+ * the binary protocol, see BinarySerializer). The values are written directly
+ * in their packed form, and the Strings are encoded and decoded in place, so
+ * nothing is allocated apart from the values read.
+ *
+ * The methods reading a value throw an IllegalArgumentException if the bytes
+ * are not the ones of a valid value, and a BufferUnderflowException if the
+ * buffer ends before the value. Nothing is read in both cases
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class ByteBufferCodec {
+
+    /**
+     * The size (in bytes) of a TurnState
+     */
+    public static final int TURN_STATE_SIZE = 2 * Long.BYTES + Integer.BYTES;
+
+    /**
+     * The maximal size (in bytes) of the UTF-8 encoding of a String
+     */
+    public static final int MAX_STRING_SIZE = 0xFFFF;
+
+    // The coders are not thread-safe, each thread having its own
+    private static final ThreadLocal<CharsetEncoder> ENCODER = ThreadLocal
+            .withInitial(() -> UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    private static final ThreadLocal<CharsetDecoder> DECODER = ThreadLocal
+            .withInitial(() -> UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT));
+
+    // Private constructor
+    private ByteBufferCodec() {
+    }
+
+    /**
+     * Writes the tag of a command
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param command
+     *            the command
+     * @return the buffer
+     */
+    public static ByteBuffer putCommand(ByteBuffer b, JassCommand command) {
+        return b.put(BinarySerializer.tag(command));
+    }
+
+    /**
+     * Reads the tag of a command
+     * 
+     * @param b
+     *            the buffer to read from
+     * @throws IOException
+     *             if the tag is not the one of a command
+     * @return the command
+     */
+    public static JassCommand getCommand(ByteBuffer b) throws IOException {
+        checkRemaining(b, Byte.BYTES);
+        JassCommand command = BinarySerializer
+                .command(b.get(b.position()) & 0xFF);
+        b.get();
+        return command;
+    }
+
+    /**
+     * Writes a CardSet (8 bytes)
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param set
+     *            the CardSet
+     * @return the buffer
+     */
+    public static ByteBuffer putCardSet(ByteBuffer b, CardSet set) {
+        return b.putLong(set.packed());
+    }
+
+    /**
+     * Reads a CardSet
+     * 
+     * @param b
+     *            the buffer to read from
+     * @return the CardSet
+     */
+    public static CardSet getCardSet(ByteBuffer b) {
+        checkRemaining(b, Long.BYTES);
+        CardSet set = CardSet.ofPacked(b.getLong(b.position()));
+        b.position(b.position() + Long.BYTES);
+        return set;
+    }
+
+    /**
+     * Writes a Trick (4 bytes)
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param trick
+     *            the Trick
+     * @return the buffer
+     */
+    public static ByteBuffer putTrick(ByteBuffer b, Trick trick) {
+        return b.putInt(trick.packed());
+    }
+
+    /**
+     * Reads a Trick
+     * 
+     * @param b
+     *            the buffer to read from
+     * @return the Trick
+     */
+    public static Trick getTrick(ByteBuffer b) {
+        checkRemaining(b, Integer.BYTES);
+        Trick trick = Trick.ofPacked(b.getInt(b.position()));
+        b.position(b.position() + Integer.BYTES);
+        return trick;
+    }
+
+    /**
+     * Writes a Score (8 bytes)
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param score
+     *            the Score
+     * @return the buffer
+     */
+    public static ByteBuffer putScore(ByteBuffer b, Score score) {
+        return b.putLong(score.packed());
+    }
+
+    /**
+     * Reads a Score
+     * 
+     * @param b
+     *            the buffer to read from
+     * @return the Score
+     */
+    public static Score getScore(ByteBuffer b) {
+        checkRemaining(b, Long.BYTES);
+        Score score = Score.ofPacked(b.getLong(b.position()));
+        b.position(b.position() + Long.BYTES);
+        return score;
+    }
+
+    /**
+     * Writes a TurnState as its Score, unplayed cards and Trick (see
+     * TURN_STATE_SIZE)
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param state
+     *            the TurnState
+     * @return the buffer
+     */
+    public static ByteBuffer putTurnState(ByteBuffer b, TurnState state) {
+        return b.putLong(state.packedScore())
+                .putLong(state.packedUnplayedCards())
+                .putInt(state.packedTrick());
+    }
+
+    /**
+     * Reads a TurnState
+     * 
+     * @param b
+     *            the buffer to read from
+     * @return the TurnState
+     */
+    public static TurnState getTurnState(ByteBuffer b) {
+        checkRemaining(b, TURN_STATE_SIZE);
+        int p = b.position();
+        TurnState state = TurnState.ofPackedComponents(b.getLong(p),
+                b.getLong(p + Long.BYTES), b.getInt(p + 2 * Long.BYTES));
+        b.position(p + TURN_STATE_SIZE);
+        return state;
+    }
+
+    /**
+     * Writes a String as the size of its UTF-8 encoding (2 bytes) followed by
+     * the encoding, the characters which can't be encoded being replaced
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param s
+     *            the String
+     * @throws IllegalArgumentException
+     *             if the encoding is larger than MAX_STRING_SIZE
+     * @throws BufferOverflowException
+     *             if the buffer is too small (nothing is written then)
+     * @return the buffer
+     */
+    public static ByteBuffer putString(ByteBuffer b, String s) {
+        int size = stringSize(s) - Short.BYTES;
+        checkArgument(size <= MAX_STRING_SIZE);
+        if (b.remaining() < Short.BYTES + size)
+            throw new BufferOverflowException();
+        b.putShort((short) size);
+        CharsetEncoder encoder = ENCODER.get().reset();
+        encoder.encode(CharBuffer.wrap(s), b, true);
+        encoder.flush(b);
+        return b;
+    }
+
+    /**
+     * Returns the number of bytes putString writes for a String
+     * 
+     * @param s
+     *            the String
+     * @return the size of the length and the UTF-8 encoding of the String
+     */
+    public static int stringSize(String s) {
+        int size = Short.BYTES;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c < 0x80)
+                size += 1;
+            else if (c < 0x800)
+                size += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                size += 4;
+                ++i;
+            } else if (Character.isSurrogate(c))
+                // Replaced by '?'
+                size += 1;
+            else
+                size += 3;
+        }
+        return size;
+    }
+
+    /**
+     * Reads a String written by putString
+     * 
+     * @param b
+     *            the buffer to read from
+     * @throws IllegalArgumentException
+     *             if the bytes are not valid UTF-8
+     * @return the String
+     */
+    public static String getString(ByteBuffer b) {
+        checkRemaining(b, Short.BYTES);
+        int start = b.position();
+        int size = b.getShort(start) & 0xFFFF;
+        checkRemaining(b, Short.BYTES + size);
+        ByteBuffer bytes = b.duplicate().position(start + Short.BYTES)
+                .limit(start + Short.BYTES + size);
+        String s;
+        try {
+            s = DECODER.get().reset().decode(bytes).toString();
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException(e);
+        }
+        b.position(start + Short.BYTES + size);
+        return s;
+    }
+
+    /**
+     * Writes the names of the players, in the order of their Ids
+     * 
+     * @param b
+     *            the buffer to write to
+     * @param names
+     *            the names of all the players
+     * @return the buffer
+     */
+    public static ByteBuffer putNames(ByteBuffer b,
+            Map<PlayerId, String> names) {
+        for (PlayerId pId : PlayerId.ALL)
+            putString(b, names.get(pId));
+        return b;
+    }
+
+    /**
+     * Returns the number of bytes putNames writes for the given names
+     * 
+     * @param names
+     *            the names of all the players
+     * @return the size of the names
+     */
+    public static int namesSize(Map<PlayerId, String> names) {
+        int size = 0;
+        for (PlayerId pId : PlayerId.ALL)
+            size += stringSize(names.get(pId));
+        return size;
+    }
+
+    /**
+     * Reads the names of the players
+     * 
+     * @param b
+     *            the buffer to read from
+     * @throws IllegalArgumentException
+     *             if a name is not valid UTF-8
+     * @return the names of the players
+     */
+    public static Map<PlayerId, String> getNames(ByteBuffer b) {
+        int start = b.position();
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        try {
+            for (PlayerId pId : PlayerId.ALL)
+                names.put(pId, getString(b));
+        } catch (RuntimeException e) {
+            b.position(start);
+            throw e;
+        }
+        return names;
+    }
+
+    private static void checkRemaining(ByteBuffer b, int size) {
+        if (b.remaining() < size)
+            throw new BufferUnderflowException();
+    }
+}
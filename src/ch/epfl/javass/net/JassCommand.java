@@ -14,7 +14,9 @@ public enum JassCommand {
     TRCK("TRCK"),
     CARD("CARD"),
     SCOR("SCOR"),
-    WINR("WINR");
+    WINR("WINR"),
+    SESS("SESS"),
+    MCRD("MCRD");
 
     // Empty constructor
     JassCommand(String command) {
@@ -0,0 +1,87 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static ch.epfl.javass.Preconditions.checkState;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Latencies of the moves of a remote player, i.e. the times between the
+ * moments its Cards were asked for and the moments they were received (or the
+ * deadline expired). Its methods can be called by any thread
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class MoveLatencies {
+    private long[] latencies = new long[64];
+    private int count = 0;
+    private int timeoutsCount = 0;
+
+    /**
+     * Records the latency of a move
+     *
+     * @param nanos
+     *            the latency, in nanoseconds
+     * @param timedOut
+     *            whether the deadline of the move expired
+     */
+    synchronized void record(long nanos, boolean timedOut) {
+        if (count == latencies.length)
+            latencies = Arrays.copyOf(latencies, 2 * count);
+        latencies[count++] = nanos;
+        if (timedOut)
+            ++timeoutsCount;
+    }
+
+    /**
+     * Returns the number of moves recorded
+     *
+     * @return the number of moves
+     */
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of moves whose deadline expired
+     *
+     * @return the number of timeouts
+     */
+    public synchronized int timeoutsCount() {
+        return timeoutsCount;
+    }
+
+    /**
+     * Returns a percentile of the latencies, i.e. the smallest latency which
+     * is greater than or equal to the given percentage of the latencies
+     *
+     * @param percentage
+     *            the percentage, between 0 and 100
+     * @throws IllegalArgumentException
+     *             if the percentage isn't between 0 and 100
+     * @throws IllegalStateException
+     *             if no move was recorded
+     * @return the percentile, in milliseconds
+     */
+    public synchronized double percentile(double percentage) {
+        checkArgument(0 <= percentage && percentage <= 100);
+        checkState(count > 0);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentage / 100 * count);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (count == 0)
+            return "no moves";
+        return String.format(Locale.ROOT,
+                "%d moves, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, "
+                        + "max %.1f ms, %d timeouts",
+                count, percentile(50), percentile(90), percentile(99),
+                percentile(100), timeoutsCount);
+    }
+}
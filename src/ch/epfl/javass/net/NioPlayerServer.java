@@ -0,0 +1,589 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static ch.epfl.javass.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import ch.epfl.javass.jass.Player;
+
+/**
+ * Server hosting the players of many Clients on a single port. Unlike the
+ * RemotePlayerServer, it doesn't use a thread per Client: one thread waits
+ * for all the connections (with a Selector) and splits what they send into
+ * commands, which are then applied to the players by a fixed pool of workers.
+ * The commands of a connection are still applied one after the other, in the
+ * order they were sent. A worker is busy for as long as the player takes to
+ * apply a command, so a player which thinks for a long time in cardToPlay (or
+ * waits for a human) keeps its worker, and the commands of the other
+ * connections wait once all the workers are busy.
+ *
+ * A Client chooses its player by starting with a SESS command (see
+ * RemotePlayerClient): the Clients of the same session share the same player,
+ * so a Client can connect again and go on with its game. A session is
+ * forgotten once its connection has been closed for longer than the session
+ * timeout, and a new connection of a session whose connection is still open
+ * replaces it, the old connection being closed. The player of a connection
+ * which doesn't start with SESS is only used by this connection. Both the
+ * text and the binary protocols are supported.
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class NioPlayerServer implements AutoCloseable {
+
+    /**
+     * The maximal size (in bytes) of a command, beyond which the connection is
+     * closed
+     */
+    public static final int MAX_COMMAND_SIZE = 1 << 20;
+
+    /**
+     * The time (in milliseconds) during which a session is kept after its
+     * connection was closed, for the servers constructed without one
+     */
+    public static final long DEFAULT_SESSION_TIMEOUT = 60_000;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    // Number of free input buffers kept for the connections, the buffer of a
+    // connection being given back as soon as it holds no incomplete command
+    private static final int POOLED_BUFFERS = 1024;
+
+    // Number of connections waiting to be accepted, large enough for many
+    // Clients connecting at the same time
+    private static final int BACKLOG = 1024;
+
+    // Time between two searches for the sessions to forget
+    private static final long SWEEP_INTERVAL_MS = 100;
+
+    private final Function<String, Player> newPlayer;
+    private final long sessionTimeout;
+    // Only used with its own lock
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final AtomicLong anonymousCount = new AtomicLong();
+    private long lastSweep = System.nanoTime();
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Thread selectorThread;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final BufferPool buffers = new BufferPool(BUFFER_SIZE,
+            POOLED_BUFFERS);
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a server listening on the given address, which is started by
+     * start, keeping the sessions for the default timeout
+     *
+     * @param address
+     *            the address to listen on (with port 0 for any free port)
+     * @param newPlayer
+     *            creates the player of a new session, given the id of the
+     *            session
+     * @param workers
+     *            the number of threads applying the commands to the players,
+     *            which should be at least the number of players that may be
+     *            choosing a Card at the same time
+     * @throws IllegalArgumentException
+     *             if there isn't at least one worker
+     * @throws IOException
+     *             if the server can't listen on the address
+     */
+    public NioPlayerServer(InetSocketAddress address,
+            Function<String, Player> newPlayer, int workers)
+            throws IOException {
+        this(address, newPlayer, workers, DEFAULT_SESSION_TIMEOUT);
+    }
+
+    /**
+     * Constructs a server listening on the given address, which is started by
+     * start
+     *
+     * @param address
+     *            the address to listen on (with port 0 for any free port)
+     * @param newPlayer
+     *            creates the player of a new session, given the id of the
+     *            session
+     * @param workers
+     *            the number of threads applying the commands to the players,
+     *            which should be at least the number of players that may be
+     *            choosing a Card at the same time
+     * @param sessionTimeout
+     *            the time (in milliseconds) during which a session is kept
+     *            after its connection was closed
+     * @throws IllegalArgumentException
+     *             if there isn't at least one worker or if the timeout is
+     *             negative
+     * @throws IOException
+     *             if the server can't listen on the address
+     */
+    public NioPlayerServer(InetSocketAddress address,
+            Function<String, Player> newPlayer, int workers,
+            long sessionTimeout) throws IOException {
+        checkArgument(workers >= 1 && sessionTimeout >= 0);
+        this.newPlayer = newPlayer;
+        this.sessionTimeout = sessionTimeout;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address, BACKLOG);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "nio-player-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.selectorThread = new Thread(this::loop, "nio-player-server");
+    }
+
+    /**
+     * Starts accepting the connections of the Clients
+     *
+     * @throws IllegalStateException
+     *             if the server was already started
+     */
+    public void start() {
+        checkState(!selectorThread.isAlive() && !closed);
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the port the server listens on
+     *
+     * @return the local port of the server
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of sessions of the Clients, including the ones whose
+     * connection was closed less than the session timeout ago
+     *
+     * @return the number of sessions (connections without SESS excluded)
+     */
+    public int sessionsCount() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * Stops the server and closes all the connections, once the commands
+     * already received were applied to the players. If the thread is
+     * interrupted, the server is still stopped but the commands aren't waited
+     * for, and the interrupt status of the thread is set again
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (selectorThread.isAlive()) {
+                selector.wakeup();
+                selectorThread.join();
+            } else if (selector.isOpen())
+                closeAll();
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // The selector thread closes the connections by itself
+            workers.shutdown();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        try {
+            while (!closed) {
+                selector.select(SWEEP_INTERVAL_MS);
+                forgetSessions();
+                Connection c;
+                while ((c = pendingWrites.poll()) != null)
+                    write(c);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey k = keys.next();
+                    keys.remove();
+                    if (!k.isValid())
+                        continue;
+                    if (k.isAcceptable())
+                        accept();
+                    else {
+                        c = (Connection) k.attachment();
+                        if (k.isWritable())
+                            write(c);
+                        if (k.isValid() && k.isReadable())
+                            read(c);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /*
+     * Forgets the sessions whose connection was closed for longer than the
+     * timeout, at most once per sweep interval
+     */
+    private void forgetSessions() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_INTERVAL_MS * 1_000_000)
+            return;
+        lastSweep = now;
+        long timeout = sessionTimeout * 1_000_000;
+        synchronized (sessions) {
+            sessions.values().removeIf(
+                    s -> s.closedAt != -1 && now - s.closedAt >= timeout);
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey k : selector.keys()) {
+            try {
+                k.channel().close();
+            } catch (IOException e) {
+                // The other channels must be closed anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        // The answers are single cards which the Client is waiting for
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection c = new Connection(channel);
+        c.key = channel.register(selector, SelectionKey.OP_READ, c);
+    }
+
+    private void read(Connection c) {
+        try {
+            if (c.input == null)
+                c.input = buffers.acquire();
+            else if (!c.input.hasRemaining()) {
+                if (c.input.capacity() >= MAX_COMMAND_SIZE)
+                    throw new IOException("Command too long");
+                ByteBuffer larger = ByteBuffer
+                        .allocateDirect(2 * c.input.capacity())
+                        .order(ByteOrder.LITTLE_ENDIAN).put(c.input.flip());
+                buffers.release(c.input);
+                c.input = larger;
+            }
+            if (c.channel.read(c.input) == -1) {
+                c.close();
+                releaseInput(c);
+                return;
+            }
+            c.input.flip();
+            parse(c);
+            c.input.compact();
+            if (c.input.position() == 0)
+                releaseInput(c);
+        } catch (IOException | RuntimeException e) {
+            // A malformed command (such as a SESS with an invalid id) only
+            // closes its own connection, never the selector thread
+            c.close();
+            releaseInput(c);
+        }
+    }
+
+    // Only called by the selector thread, the only one using the input buffers
+    private void releaseInput(Connection c) {
+        if (c.input != null) {
+            buffers.release(c.input);
+            c.input = null;
+        }
+    }
+
+    /*
+     * Splits the beginning of the input of the connection into commands,
+     * leaving the incomplete ones in the buffer
+     */
+    private void parse(Connection c) throws IOException {
+        ByteBuffer in = c.input;
+        while (in.hasRemaining() && c.isOpen()) {
+            switch (c.protocol) {
+            case UNKNOWN:
+                // A binary Client starts with a byte which can't start a
+                // command of the text protocol
+                if (in.get(in.position()) != BinarySerializer.MAGIC[0]) {
+                    c.protocol = Protocol.TEXT;
+                    break;
+                }
+                if (in.remaining() < BinarySerializer.MAGIC.length + 1)
+                    return;
+                byte[] magic = new byte[BinarySerializer.MAGIC.length];
+                in.get(magic);
+                if (!Arrays.equals(magic, BinarySerializer.MAGIC))
+                    throw new IOException("Invalid handshake");
+                int version = Math.min(in.get() & 0xFF,
+                        BinarySerializer.VERSION);
+                c.send(ByteBuffer.wrap(new byte[] { (byte) version }));
+                c.protocol = version != 0 ? Protocol.BINARY : Protocol.TEXT;
+                break;
+            case TEXT:
+                int end = in.position();
+                while (end < in.limit() && in.get(end) != '\n')
+                    ++end;
+                if (end == in.limit())
+                    return;
+                byte[] bytes = new byte[end - in.position()];
+                in.get(bytes).get();
+                String line = new String(bytes, UTF_8);
+                if (line.endsWith("\r"))
+                    line = line.substring(0, line.length() - 1);
+                dispatchText(c, line);
+                break;
+            case BINARY:
+                int start = in.position();
+                JassCommand command = BinarySerializer.command(in.get());
+                int size = BinarySerializer.argumentsSize(command, in);
+                if (size == -1) {
+                    in.position(start);
+                    return;
+                }
+                ByteBuffer args = ByteBuffer.allocate(size)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                args.put(in.slice().limit(size)).flip();
+                in.position(in.position() + size);
+                dispatchBinary(c, command, args);
+                break;
+            default:
+                throw new Error();
+            }
+        }
+    }
+
+    private void dispatchText(Connection c, String line) {
+        if (line.equals(JassCommand.SESS.name())
+                || line.startsWith(JassCommand.SESS.name() + " "))
+            attach(c, RemotePlayerServer.sessionId(line));
+        else
+            c.execute(() -> {
+                String answer = RemotePlayerServer.handleText(player(c), line);
+                if (answer != null)
+                    c.send(ByteBuffer.wrap((answer + "\n").getBytes(UTF_8)));
+            });
+    }
+
+    private void dispatchBinary(Connection c, JassCommand command,
+            ByteBuffer args) {
+        if (command == JassCommand.SESS) {
+            String id = ByteBufferCodec.getString(args);
+            checkArgument(!id.isEmpty());
+            attach(c, id);
+        }
+        else
+            c.execute(() -> {
+                int answer = RemotePlayerServer.handleBinary(player(c),
+                        c.mirror, command, args);
+                if (answer != -1)
+                    c.send(ByteBuffer.wrap(new byte[] { (byte) answer }));
+            });
+    }
+
+    /*
+     * Gives the player of a session to a connection. If the previous
+     * connection of the session is still open, it is closed and the commands
+     * it sent which weren't applied yet are dropped. The commands of the new
+     * connection wait for the one of the previous connection being applied,
+     * so that the player is never used by both at the same time
+     */
+    private void attach(Connection c, String id) {
+        Connection previous;
+        synchronized (sessions) {
+            Session s = sessions.computeIfAbsent(id, Session::new);
+            previous = s.connection;
+            s.connection = c;
+            s.closedAt = -1;
+            c.session = s;
+        }
+        if (previous != null && previous != c) {
+            if (previous.isOpen()) {
+                previous.replaced = true;
+                previous.close();
+            }
+            c.after(previous);
+        }
+    }
+
+    // Only called by the tasks of the connection, which run one at a time
+    private Player player(Connection c) {
+        if (c.session != null)
+            return c.session.player();
+        if (c.player == null)
+            c.player = newPlayer
+                    .apply("anonymous-" + anonymousCount.incrementAndGet());
+        return c.player;
+    }
+
+    private void write(Connection c) {
+        if (!c.key.isValid())
+            return;
+        try {
+            synchronized (c.output) {
+                while (!c.output.isEmpty()) {
+                    ByteBuffer b = c.output.peek();
+                    c.channel.write(b);
+                    if (b.hasRemaining())
+                        break;
+                    c.output.poll();
+                }
+                c.key.interestOps(c.output.isEmpty() ? SelectionKey.OP_READ
+                        : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            c.close();
+        }
+    }
+
+    private enum Protocol {
+        UNKNOWN, TEXT, BINARY;
+    }
+
+    // A command applied to the player of a connection
+    @FunctionalInterface
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private final class Session {
+        private final String id;
+        private Player player = null;
+
+        // The last connection of the session and the time it was closed at
+        // (-1 while it is open), only used with the lock of the sessions
+        Connection connection = null;
+        long closedAt = -1;
+
+        Session(String id) {
+            this.id = id;
+        }
+
+        // Only called by the tasks of the connections of the session, which
+        // run one at a time
+        synchronized Player player() {
+            if (player == null)
+                player = newPlayer.apply(id);
+            return player;
+        }
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final Queue<ByteBuffer> output = new ArrayDeque<>();
+        SelectionKey key;
+        // The incomplete commands received, null if there are none (see
+        // read)
+        ByteBuffer input = null;
+        Protocol protocol = Protocol.UNKNOWN;
+
+        // Set by the selector thread before the following tasks are run
+        volatile Session session = null;
+        // True once another connection of the session replaced this one
+        volatile boolean replaced = false;
+
+        // Only used by the tasks
+        Player player;
+        final StateMirror mirror = new StateMirror();
+        private CompletableFuture<Void> tasks = CompletableFuture
+                .completedFuture(null);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        /*
+         * Runs the task on a worker once the previous tasks of the connection
+         * are done (the tasks following a failed one are not run, and no task
+         * is run once the connection was replaced)
+         */
+        void execute(Task task) {
+            tasks = tasks.thenRunAsync(() -> {
+                if (replaced)
+                    return;
+                try {
+                    task.run();
+                } catch (IOException | RuntimeException e) {
+                    close();
+                    throw new IllegalStateException(e);
+                }
+            }, workers);
+        }
+
+        /*
+         * Makes the next tasks wait for the ones of another connection, even
+         * if they failed
+         */
+        void after(Connection previous) {
+            tasks = tasks.thenCombine(previous.tasks.handle((v, e) -> null),
+                    (v, w) -> null);
+        }
+
+        void send(ByteBuffer b) {
+            if (!isOpen())
+                return;
+            synchronized (output) {
+                output.add(b);
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The connection is lost anyway
+            }
+            Session s = session;
+            if (s != null) {
+                synchronized (sessions) {
+                    if (s.connection == this && s.closedAt == -1)
+                        s.closedAt = System.nanoTime();
+                }
+            }
+        }
+    }
+}
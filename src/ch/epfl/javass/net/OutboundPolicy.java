@@ -0,0 +1,33 @@
+package ch.epfl.javass.net;
+
+/**
+ * Public Enum representing what a RemotePlayerClient does when the queue of
+ * the messages it hasn't sent yet is full, the server reading them more slowly
+ * than the game produces them
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public enum OutboundPolicy {
+    /**
+     * The game waits until there is room in the queue, like when the messages
+     * were written by the game itself
+     */
+    BLOCK,
+
+    /**
+     * The TRCK and SCOR messages of the queue which are followed by a newer
+     * one of the same command are dropped, except the TRCK of the full Tricks:
+     * the server misses some Scores and the Tricks being played, but still
+     * learns every Card played, which a server mirroring the state of the
+     * game needs (see StateMirror). The game only waits if there is still no
+     * room
+     */
+    COALESCE,
+
+    /**
+     * The connection is closed, the game failing instead of waiting for the
+     * server
+     */
+    DISCONNECT;
+}
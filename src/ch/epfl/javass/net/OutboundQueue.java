@@ -0,0 +1,283 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of the messages sent by a RemotePlayerClient, written to the
+ * socket by a thread of its own so that the game doesn't wait for a slow
+ * server. The writer flushes the socket at the points the Client asks it to,
+ * so the messages are still sent in the same groups as when they were written
+ * by the game.
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+final class OutboundQueue {
+
+    // Time given to the writer to send the last messages when the queue is
+    // closed, before the connection is closed anyway
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+
+    private static final Message FLUSH = new Message(null, new byte[0], true);
+
+    private final OutputStream out;
+    private final Closeable connection;
+    private final int capacity;
+    private final OutboundPolicy policy;
+    private final Thread writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Deque<Message> messages = new ArrayDeque<>();
+    // Number of messages of the queue, the flushes not being counted
+    private int size = 0;
+    private long coalescedCount = 0;
+    private boolean closed = false;
+    private IOException failure = null;
+
+    /**
+     * Constructs a queue writing to the given stream and starts its writer
+     *
+     * @param out
+     *            the stream of the connection
+     * @param connection
+     *            the connection, closed when the writer fails or when the
+     *            queue overflows with the policy DISCONNECT
+     * @param capacity
+     *            the maximal number of messages waiting to be written
+     * @param policy
+     *            what is done when the queue is full
+     * @throws IllegalArgumentException
+     *             if the capacity isn't strictly positive
+     */
+    OutboundQueue(OutputStream out, Closeable connection, int capacity,
+            OutboundPolicy policy) {
+        checkArgument(capacity > 0);
+        this.out = out;
+        this.connection = connection;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.writer = new Thread(this::write, "remote-player-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Adds a message at the end of the queue, applying the policy if it is
+     * full
+     *
+     * @param command
+     *            the command of the message
+     * @param bytes
+     *            the bytes of the message, which mustn't be modified anymore
+     * @throws UncheckedIOException
+     *             if the connection failed or was closed because the queue
+     *             overflowed
+     * @throws IllegalStateException
+     *             if the thread is interrupted while it waits for room
+     */
+    void add(JassCommand command, byte[] bytes) {
+        add(new Message(command, bytes, false));
+    }
+
+    /**
+     * Adds a message at the end of the queue like add, the policy COALESCE
+     * never dropping it even if a newer one of the same command follows it
+     * (the TRCK of a full Trick, for example)
+     *
+     * @param command
+     *            the command of the message
+     * @param bytes
+     *            the bytes of the message, which mustn't be modified anymore
+     * @throws UncheckedIOException
+     *             if the connection failed or was closed because the queue
+     *             overflowed
+     * @throws IllegalStateException
+     *             if the thread is interrupted while it waits for room
+     */
+    void addKept(JassCommand command, byte[] bytes) {
+        add(new Message(command, bytes, true));
+    }
+
+    /**
+     * Asks the writer to flush the connection once the messages added until
+     * now are written. Never waits for room in the queue
+     *
+     * @throws UncheckedIOException
+     *             if the connection failed
+     */
+    void flush() {
+        add(FLUSH);
+    }
+
+    /**
+     * Returns the number of messages dropped until now by the policy COALESCE
+     *
+     * @return the number of coalesced messages
+     */
+    long coalescedCount() {
+        lock.lock();
+        try {
+            return coalescedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the queue, giving its writer a short time to send the messages
+     * which are still in it
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void add(Message m) {
+        lock.lock();
+        try {
+            checkFailure();
+            if (m != FLUSH) {
+                if (size == capacity && policy == OutboundPolicy.COALESCE)
+                    coalesce(m.command);
+                if (size == capacity && policy == OutboundPolicy.DISCONNECT) {
+                    fail(new IOException("Outbound queue full"));
+                    checkFailure();
+                }
+                while (size == capacity) {
+                    notFull.await();
+                    checkFailure();
+                }
+                ++size;
+            }
+            messages.addLast(m);
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Drops the TRCK and SCOR messages which are followed by a newer one of
+     * the same command and weren't added with addKept, the given command being
+     * the one of the message about to be added
+     */
+    private void coalesce(JassCommand next) {
+        boolean trickSeen = next == JassCommand.TRCK;
+        boolean scoreSeen = next == JassCommand.SCOR;
+        Iterator<Message> i = messages.descendingIterator();
+        while (i.hasNext()) {
+            Message m = i.next();
+            JassCommand command = m.command;
+            if (!m.kept && (command == JassCommand.TRCK && trickSeen
+                    || command == JassCommand.SCOR && scoreSeen)) {
+                i.remove();
+                --size;
+                ++coalescedCount;
+            }
+            trickSeen |= command == JassCommand.TRCK;
+            scoreSeen |= command == JassCommand.SCOR;
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+        if (closed)
+            throw new UncheckedIOException(
+                    new IOException("Outbound queue closed"));
+    }
+
+    // Must be called with the lock held
+    private void fail(IOException e) {
+        if (failure == null)
+            failure = e;
+        messages.clear();
+        size = 0;
+        notFull.signalAll();
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+            // The connection is given up anyway
+        }
+    }
+
+    private void write() {
+        List<Message> batch = new ArrayList<>();
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (messages.isEmpty() && !closed && failure == null)
+                        notEmpty.await();
+                    if (messages.isEmpty())
+                        break;
+                    batch.addAll(messages);
+                    messages.clear();
+                    size = 0;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                for (Message m : batch) {
+                    if (m == FLUSH)
+                        out.flush();
+                    else
+                        out.write(m.bytes);
+                }
+                batch.clear();
+            }
+            out.flush();
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                fail(e);
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            // Only the writer itself could interrupt it
+            throw new Error(e);
+        }
+    }
+
+    private static final class Message {
+        final JassCommand command;
+        final byte[] bytes;
+        final boolean kept;
+
+        Message(JassCommand command, byte[] bytes, boolean kept) {
+            this.command = command;
+            this.bytes = bytes;
+            this.kept = kept;
+        }
+    }
+}
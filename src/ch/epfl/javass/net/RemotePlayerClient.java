@@ -1,28 +1,37 @@
 package ch.epfl.javass.net;
 
+import static ch.epfl.javass.Preconditions.checkArgument;
 import static ch.epfl.javass.net.StringSerializer.combine;
 import static ch.epfl.javass.net.StringSerializer.deserializeInt;
 import static ch.epfl.javass.net.StringSerializer.serializeInt;
 import static ch.epfl.javass.net.StringSerializer.serializeLong;
 import static ch.epfl.javass.net.StringSerializer.serializeString;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.logging.Logger;
 
 import ch.epfl.javass.jass.Card;
 import ch.epfl.javass.jass.CardSet;
-import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.EventBatchPlayer;
+import ch.epfl.javass.jass.GameEvent;
 import ch.epfl.javass.jass.PlayerId;
 import ch.epfl.javass.jass.Score;
 import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TimeBudgetedPlayer;
 import ch.epfl.javass.jass.Trick;
 import ch.epfl.javass.jass.TurnState;
 
@@ -33,13 +42,43 @@ import ch.epfl.javass.jass.TurnState;
  * @author Joseph Abboud (296753)
  * @author Zad Abi Fadel (295734)
  */
-public final class RemotePlayerClient implements Player, AutoCloseable {
-    private BufferedWriter w;
+public final class RemotePlayerClient
+        implements EventBatchPlayer, AutoCloseable {
+    /**
+     * The capacity of the outbound queue of the Clients constructed without
+     * one
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final Logger LOGGER = Logger
+            .getLogger(RemotePlayerClient.class.getName());
+
     private BufferedReader r;
+    private DataInputStream in;
     private Socket s;
+    private final WireProtocol protocol;
+    // True if the server mirrors the state of the game, so that the Cards are
+    // asked for with MCRD commands (see StateMirror)
+    private final boolean mirrored;
+    private int mirroredRequests = 0;
+    private int resyncsCount = 0;
+    private final OutboundQueue queue;
+    private final MoveLatencies latencies = new MoveLatencies();
+    private PlayerId ownId = null;
+
+    // The deadline of the moves (0 for none), and the number of answers which
+    // came too late and still have to be skipped
+    private long moveDeadline = 0;
+    private TimeBudgetedPlayer fallback = null;
+    private long fallbackBudget = 0;
+    private int lateAnswers = 0;
+    // True while the events of a batch are sent, the flushes they require
+    // being done once at the end of the batch
+    private boolean inBatch = false;
+    private boolean flushNeeded = false;
 
     /**
-     * Constructs an instance of a PlayerClient
+     * Constructs an instance of a PlayerClient using the text protocol
      * 
      * @param host
      *            the address of the game's host
@@ -51,27 +90,274 @@ public final class RemotePlayerClient implements Player, AutoCloseable {
      *             (connection interruption for example)
      */
     public RemotePlayerClient(String host, int port) throws IOException {
+        this(host, port, WireProtocol.TEXT);
+    }
+
+    /**
+     * Constructs an instance of a PlayerClient using the given protocol. The
+     * binary protocol is first negotiated with the server, the client keeping
+     * to the text protocol if the server doesn't support it
+     * 
+     * @param host
+     *            the address of the game's host
+     * @param port
+     *            the port to which all parties are connected during the game to
+     *            exchange the information
+     * @param protocol
+     *            the protocol the client would like to use
+     * @throws IOException
+     *             if an event between the client and the server occurs
+     *             (connection interruption for example)
+     */
+    public RemotePlayerClient(String host, int port, WireProtocol protocol)
+            throws IOException {
+        this(host, port, protocol, null);
+    }
+
+    /**
+     * Constructs an instance of a PlayerClient using the given protocol, which
+     * starts by telling the server the session it plays in. A server hosting
+     * several players (see NioPlayerServer) uses it to choose the player of
+     * the client, the other servers ignore it
+     * 
+     * @param host
+     *            the address of the game's host
+     * @param port
+     *            the port to which all parties are connected during the game to
+     *            exchange the information
+     * @param protocol
+     *            the protocol the client would like to use
+     * @param sessionId
+     *            the id of the session of the client (or null to send none)
+     * @throws IOException
+     *             if an event between the client and the server occurs
+     *             (connection interruption for example)
+     */
+    public RemotePlayerClient(String host, int port, WireProtocol protocol,
+            String sessionId) throws IOException {
+        this(host, port, protocol, sessionId, DEFAULT_QUEUE_CAPACITY,
+                OutboundPolicy.BLOCK);
+    }
+
+    /**
+     * Constructs an instance of a PlayerClient like the previous constructor,
+     * with an outbound queue of the given capacity. The messages sent to the
+     * server are put in this queue and written by a thread of the Client, so
+     * the game only waits for the server when it needs its answer (CARD) or
+     * when the queue is full, in which case the given policy is applied
+     * 
+     * @param host
+     *            the address of the game's host
+     * @param port
+     *            the port to which all parties are connected during the game to
+     *            exchange the information
+     * @param protocol
+     *            the protocol the client would like to use
+     * @param sessionId
+     *            the id of the session of the client (or null to send none)
+     * @param queueCapacity
+     *            the maximal number of messages waiting to be sent
+     * @param policy
+     *            what is done when the queue is full
+     * @throws IOException
+     *             if an event between the client and the server occurs
+     *             (connection interruption for example)
+     * @throws IllegalArgumentException
+     *             if the capacity isn't strictly positive
+     */
+    public RemotePlayerClient(String host, int port, WireProtocol protocol,
+            String sessionId, int queueCapacity, OutboundPolicy policy)
+            throws IOException {
+        checkArgument(queueCapacity > 0);
         Socket s = new Socket(host, port);
-        BufferedReader r = new BufferedReader(
-                new InputStreamReader(s.getInputStream(), UTF_8));
-        BufferedWriter w = new BufferedWriter(
-                new OutputStreamWriter(s.getOutputStream(), UTF_8));
+        // The messages are already grouped before being written (see send),
+        // so they must not wait for the acknowledgment of the previous ones
+        s.setTcpNoDelay(true);
+        BufferedOutputStream out = new BufferedOutputStream(
+                s.getOutputStream());
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(s.getInputStream()));
+
+        int version = 0;
+        if (protocol == WireProtocol.BINARY) {
+            out.write(BinarySerializer.MAGIC);
+            out.write(BinarySerializer.VERSION);
+            out.flush();
+            version = in.readUnsignedByte();
+            if (version == 0)
+                protocol = WireProtocol.TEXT;
+        }
+
         this.s = s;
-        this.w = w;
-        this.r = r;
+        this.in = in;
+        this.queue = new OutboundQueue(out, s, queueCapacity, policy);
+        this.r = new BufferedReader(new InputStreamReader(in, UTF_8));
+        this.protocol = protocol;
+        this.mirrored = version >= BinarySerializer.MIRRORED_VERSION;
+
+        if (sessionId != null) {
+            if (protocol == WireProtocol.BINARY)
+                send(JassCommand.SESS,
+                        BinarySerializer.sessionFrame(sessionId));
+            else
+                send(JassCommand.SESS, JassCommand.SESS.name() + " "
+                        + serializeString(sessionId));
+        }
     }
 
-    private void send(String message) {
-        try {
-            w.write(message + "\n");
-            w.flush();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    /**
+     * Returns the protocol used with the server
+     * 
+     * @return the protocol agreed on with the server
+     */
+    public WireProtocol protocol() {
+        return protocol;
+    }
+
+    /**
+     * Returns the number of times the server asked for the whole state of the
+     * game, because the state it mirrors from the notifications was wrong
+     * (see BinarySerializer)
+     * 
+     * @return the number of resyncs
+     */
+    public int resyncsCount() {
+        return resyncsCount;
+    }
+
+    /**
+     * Returns the number of TRCK and SCOR messages which weren't sent because
+     * newer ones replaced them (see OutboundPolicy.COALESCE)
+     * 
+     * @return the number of coalesced messages
+     */
+    public long coalescedMessagesCount() {
+        return queue.coalescedCount();
+    }
+
+    /**
+     * Gives a deadline to the moves of the remote player: if its Card isn't
+     * received within the given time, the Card chosen by the fallback player
+     * is played instead and the timeout is logged. The answer of the remote
+     * player, if it comes later, is ignored
+     * 
+     * @param deadline
+     *            the time (in milliseconds) given to the remote player
+     * @param fallback
+     *            the player choosing the Card when the deadline expires (a
+     *            MctsPlayer for example)
+     * @param fallbackBudget
+     *            the time (in milliseconds) given to the fallback player
+     * @throws IllegalArgumentException
+     *             if the deadline isn't strictly positive or doesn't fit in
+     *             an int, or if the budget is negative
+     * @throws NullPointerException
+     *             if the fallback player is null
+     */
+    public void setMoveDeadline(long deadline, TimeBudgetedPlayer fallback,
+            long fallbackBudget) {
+        checkArgument(0 < deadline && deadline <= Integer.MAX_VALUE
+                && fallbackBudget >= 0);
+        requireNonNull(fallback);
+        this.moveDeadline = deadline;
+        this.fallback = fallback;
+        this.fallbackBudget = fallbackBudget;
+    }
+
+    /**
+     * Returns the latencies of the moves of the remote player, updated by
+     * each call to cardToPlay
+     * 
+     * @return the latencies of the moves
+     */
+    public MoveLatencies moveLatencies() {
+        return latencies;
+    }
+
+    // The messages are only queued: they are flushed together when the
+    // server has to answer (CARD), at the end of a Trick and at the end of
+    // the game, instead of being written one by one to the socket
+    private void send(JassCommand command, String message) {
+        queue.add(command, (message + "\n").getBytes(UTF_8));
+    }
+
+    // The frames fill their whole array (see BinarySerializer.frame), which
+    // is queued without being copied
+    private void send(JassCommand command, ByteBuffer frame) {
+        assert frame.position() == 0 && frame.limit() == frame.capacity();
+        queue.add(command, frame.array());
+    }
+
+    // The full Tricks are never coalesced, since their last Card is in no
+    // other message
+    private void sendTrick(Trick newTrick) {
+        byte[] bytes;
+        if (protocol == WireProtocol.BINARY)
+            bytes = ByteBufferCodec.putTrick(
+                    BinarySerializer.frame(JassCommand.TRCK, Integer.BYTES),
+                    newTrick).flip().array();
+        else
+            bytes = (JassCommand.TRCK.name() + " "
+                    + serializeInt(newTrick.packed()) + "\n").getBytes(UTF_8);
+        if (newTrick.isFull())
+            queue.addKept(JassCommand.TRCK, bytes);
+        else
+            queue.add(JassCommand.TRCK, bytes);
+    }
+
+    private void flush() {
+        if (inBatch) {
+            flushNeeded = true;
+            return;
         }
+        queue.flush();
     }
 
     @Override
     public Card cardToPlay(TurnState state, CardSet hand) {
+        long start = System.nanoTime();
+        if (mirrored) {
+            send(JassCommand.MCRD,
+                    BinarySerializer
+                            .frame(JassCommand.MCRD,
+                                    Integer.BYTES + Long.BYTES)
+                            .putInt(mirroredRequests++)
+                            .putLong(StateMirror.checksum(state,
+                                    hand.packed()))
+                            .flip());
+        } else
+            sendCard(state, hand);
+        flush();
+
+        int answer = readAnswer(start);
+        if (answer == BinarySerializer.RESYNC) {
+            ++resyncsCount;
+            sendCard(state, hand);
+            flush();
+            answer = readAnswer(start);
+        }
+        latencies.record(System.nanoTime() - start, answer == -1);
+        if (answer == -1) {
+            Card c = fallback.cardToPlay(state, hand, fallbackBudget);
+            LOGGER.warning(String.format(
+                    "%s didn't answer within %d ms, %s played instead",
+                    ownId == null ? "Remote player" : ownId, moveDeadline, c));
+            return c;
+        }
+        return Card.ofPacked(answer);
+    }
+
+    // Sends the whole state with a CARD command
+    private void sendCard(TurnState state, CardSet hand) {
+        if (protocol == WireProtocol.BINARY) {
+            ByteBuffer frame = BinarySerializer.frame(JassCommand.CARD,
+                    ByteBufferCodec.TURN_STATE_SIZE + Long.BYTES);
+            ByteBufferCodec.putTurnState(frame, state);
+            send(JassCommand.CARD,
+                    ByteBufferCodec.putCardSet(frame, hand).flip());
+            return;
+        }
+
         StringJoiner s = new StringJoiner(" ");
         s.add(JassCommand.CARD.name());
         String[] turnState = { serializeLong(state.packedScore()),
@@ -80,18 +366,51 @@ public final class RemotePlayerClient implements Player, AutoCloseable {
 
         s.add(combine(',', turnState));
         s.add(serializeLong(hand.packed()));
-        send(s.toString());
-        Card c = null;
+        send(JassCommand.CARD, s.toString());
+    }
+
+    /*
+     * Reads the answer to the last request, skipping the late answers to the
+     * previous ones, or returns -1 if the deadline expires first. The answers
+     * being short and written at once, a deadline can't expire in the middle
+     * of one
+     */
+    private int readAnswer(long start) {
         try {
-            c = Card.ofPacked(deserializeInt(r.readLine()));
+            while (true) {
+                if (moveDeadline != 0) {
+                    long remaining = moveDeadline
+                            - (System.nanoTime() - start) / 1_000_000;
+                    if (remaining <= 0) {
+                        ++lateAnswers;
+                        return -1;
+                    }
+                    s.setSoTimeout((int) remaining);
+                }
+                int packed = protocol == WireProtocol.BINARY
+                        ? in.readUnsignedByte()
+                        : deserializeInt(r.readLine());
+                if (lateAnswers == 0)
+                    return packed;
+                --lateAnswers;
+            }
+        } catch (SocketTimeoutException e) {
+            ++lateAnswers;
+            return -1;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        return c;
     }
 
     @Override
     public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        this.ownId = ownId;
+        if (protocol == WireProtocol.BINARY) {
+            send(JassCommand.PLRS,
+                    BinarySerializer.playersFrame(ownId, playerNames));
+            return;
+        }
+
         StringJoiner s = new StringJoiner(" ");
         s.add(JassCommand.PLRS.name());
         s.add(Integer.toString(ownId.ordinal()));
@@ -99,37 +418,81 @@ public final class RemotePlayerClient implements Player, AutoCloseable {
         for (int i = 0; i < PlayerId.COUNT; ++i)
             string[i] = serializeString(playerNames.get(PlayerId.ALL.get(i)));
         s.add(combine(',', string));
-        send(s.toString());
+        send(JassCommand.PLRS, s.toString());
     }
 
     @Override
     public void updateHand(CardSet newHand) {
-        send(JassCommand.HAND.name() + " " + serializeLong(newHand.packed()));
+        if (protocol == WireProtocol.BINARY)
+            send(JassCommand.HAND, ByteBufferCodec.putCardSet(
+                    BinarySerializer.frame(JassCommand.HAND, Long.BYTES),
+                    newHand).flip());
+        else
+            send(JassCommand.HAND,
+                    JassCommand.HAND.name() + " "
+                            + serializeLong(newHand.packed()));
     }
 
     @Override
     public void setTrump(Card.Color trump) {
-        send(JassCommand.TRMP.name() + " " + serializeInt(trump.ordinal()));
+        if (protocol == WireProtocol.BINARY)
+            send(JassCommand.TRMP,
+                    BinarySerializer.frame(JassCommand.TRMP, Byte.BYTES)
+                            .put((byte) trump.ordinal()).flip());
+        else
+            send(JassCommand.TRMP,
+                    JassCommand.TRMP.name() + " "
+                            + serializeInt(trump.ordinal()));
     }
 
     @Override
     public void updateTrick(Trick newTrick) {
-        send(JassCommand.TRCK.name() + " " + serializeInt(newTrick.packed()));
+        sendTrick(newTrick);
+        if (newTrick.isFull())
+            flush();
     }
 
     @Override
     public void updateScore(Score score) {
-        send(JassCommand.SCOR.name() + " " + serializeLong(score.packed()));
+        if (protocol == WireProtocol.BINARY)
+            send(JassCommand.SCOR, ByteBufferCodec.putScore(
+                    BinarySerializer.frame(JassCommand.SCOR, Long.BYTES),
+                    score).flip());
+        else
+            send(JassCommand.SCOR,
+                    JassCommand.SCOR.name() + " "
+                            + serializeLong(score.packed()));
     }
 
     @Override
     public void setWinningTeam(TeamId winningTeam) {
-        send(JassCommand.WINR.name() + " " + serializeInt(winningTeam.ordinal()));
+        if (protocol == WireProtocol.BINARY)
+            send(JassCommand.WINR,
+                    BinarySerializer.frame(JassCommand.WINR, Byte.BYTES)
+                            .put((byte) winningTeam.ordinal()).flip());
+        else
+            send(JassCommand.WINR, JassCommand.WINR.name() + " "
+                    + serializeInt(winningTeam.ordinal()));
+        flush();
+    }
+
+    @Override
+    public void handleEvents(List<GameEvent> events) {
+        inBatch = true;
+        flushNeeded = false;
+        try {
+            for (GameEvent e : events)
+                e.deliverTo(this);
+        } finally {
+            inBatch = false;
+        }
+        if (flushNeeded)
+            flush();
     }
 
     @Override
     public void close() throws Exception {
-        w.close();
+        queue.close();
         r.close();
         s.close();
     }
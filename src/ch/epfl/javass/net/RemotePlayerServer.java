@@ -1,5 +1,6 @@
 package ch.epfl.javass.net;
 
+import static ch.epfl.javass.Preconditions.checkArgument;
 import static ch.epfl.javass.net.StringSerializer.deserializeInt;
 import static ch.epfl.javass.net.StringSerializer.deserializeLong;
 import static ch.epfl.javass.net.StringSerializer.deserializeString;
@@ -7,13 +8,20 @@ import static ch.epfl.javass.net.StringSerializer.serializeInt;
 import static ch.epfl.javass.net.StringSerializer.split;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 
@@ -61,60 +69,194 @@ public final class RemotePlayerServer {
      *             (connection interruption for example)
      */
     public void run() throws IOException {
+        try (ServerSocket s0 = new ServerSocket(PORT);
+                Socket s = s0.accept()) {
+            serve(s.getInputStream(), s.getOutputStream());
+        }
+    }
 
-        try (ServerSocket s0 = new ServerSocket(5108);
-                Socket s = s0.accept();
-                BufferedReader r = new BufferedReader(
-                        new InputStreamReader(s.getInputStream(), UTF_8));
-                BufferedWriter w = new BufferedWriter(
-                        new OutputStreamWriter(s.getOutputStream(), UTF_8))) {
-            while (true) {
-                String command = r.readLine();
-                String[] a = split(' ', command);
+    /**
+     * Serves a Client connected through the given streams until it closes the
+     * connection, using the protocol the Client asks for
+     * 
+     * @param input
+     *            the stream from which the commands are read
+     * @param output
+     *            the stream to which the answers are written
+     * @throws IOException
+     *             if an event between the client and the server occurs
+     *             (connection interruption or invalid command for example)
+     */
+    public void serve(InputStream input, OutputStream output)
+            throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input);
+        BufferedOutputStream out = new BufferedOutputStream(output);
+
+        // A binary Client starts with a byte which can't start a command of
+        // the text protocol
+        in.mark(1);
+        int first = in.read();
+        if (first == -1)
+            return;
+        in.reset();
+        if (first == BinarySerializer.MAGIC[0]) {
+            DataInputStream data = new DataInputStream(in);
+            byte[] magic = new byte[BinarySerializer.MAGIC.length];
+            data.readFully(magic);
+            if (!Arrays.equals(magic, BinarySerializer.MAGIC))
+                throw new IOException("Invalid handshake");
+            int version = Math.min(data.readUnsignedByte(),
+                    BinarySerializer.VERSION);
+            out.write(version);
+            out.flush();
+            if (version != 0) {
+                serveBinary(data, out);
+                return;
+            }
+        }
+        serveText(new BufferedReader(new InputStreamReader(in, UTF_8)),
+                new BufferedWriter(new OutputStreamWriter(out, UTF_8)));
+    }
+
+    private void serveText(BufferedReader r, BufferedWriter w)
+            throws IOException {
+        String command;
+        while ((command = r.readLine()) != null) {
+            String answer = handleText(player, command);
+            if (answer != null) {
+                w.write(answer + "\n");
+                w.flush();
+            }
+        }
+    }
 
-                switch (JassCommand.valueOf(a[0])) {
-                case PLRS:
-                    String[] names = split(',', a[2]);
-                    Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
-                    for (int i = 0; i < names.length; ++i)
-                        playerNames.put(PlayerId.ALL.get(i),
-                                deserializeString(names[i]));
-                    player.setPlayers(PlayerId.ALL.get(deserializeInt(a[1])),
-                            playerNames);
-                    break;
-                case TRMP:
-                    player.setTrump(Card.Color.ALL.get(deserializeInt(a[1])));
-                    break;
-                case HAND:
-                    player.updateHand(CardSet.ofPacked(deserializeLong(a[1])));
-                    break;
-                case TRCK:
-                    player.updateTrick(Trick.ofPacked(deserializeInt(a[1])));
-                    break;
-                case CARD:
-                    String[] state = split(',', a[1]);
-                    Card c = player.cardToPlay(
-                            TurnState.ofPackedComponents(
-                                    deserializeLong(state[0]),
-                                    deserializeLong(state[1]),
-                                    deserializeInt(state[2])),
-                            CardSet.ofPacked(deserializeLong(a[2])));
-                    w.write(serializeInt(c.packed()) + "\n");
-                    w.flush();
-                    break;
-                case SCOR:
-                    player.updateScore(Score.ofPacked(deserializeLong(a[1])));
-                    break;
-                case WINR:
-                    player.setWinningTeam(TeamId.ALL.get(deserializeInt(a[1])));
-                    break;
-                default:
-                    throw new IOException();
-                }
+    private void serveBinary(DataInputStream in, BufferedOutputStream out)
+            throws IOException {
+        StateMirror mirror = new StateMirror();
+        int tag;
+        while ((tag = in.read()) != -1) {
+            JassCommand command = BinarySerializer.command(tag);
+            int answer = handleBinary(player, mirror, command,
+                    BinarySerializer.readArguments(in, command));
+            if (answer != -1) {
+                out.write(answer);
+                out.flush();
             }
-        } catch (IOException e) {
-            throw new IOException(e);
         }
     }
 
+    /*
+     * Applies a line of the text protocol to the given player, and returns
+     * the answer to send back (or null if there is none)
+     */
+    static String handleText(Player player, String command)
+            throws IOException {
+        String[] a = split(' ', command);
+
+        switch (JassCommand.valueOf(a[0])) {
+        case PLRS:
+            String[] names = split(',', a[2]);
+            Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
+            for (int i = 0; i < names.length; ++i)
+                playerNames.put(PlayerId.ALL.get(i),
+                        deserializeString(names[i]));
+            player.setPlayers(PlayerId.ALL.get(deserializeInt(a[1])),
+                    playerNames);
+            return null;
+        case TRMP:
+            player.setTrump(Card.Color.ALL.get(deserializeInt(a[1])));
+            return null;
+        case HAND:
+            player.updateHand(CardSet.ofPacked(deserializeLong(a[1])));
+            return null;
+        case TRCK:
+            player.updateTrick(Trick.ofPacked(deserializeInt(a[1])));
+            return null;
+        case CARD:
+            String[] state = split(',', a[1]);
+            Card c = player.cardToPlay(
+                    TurnState.ofPackedComponents(deserializeLong(state[0]),
+                            deserializeLong(state[1]),
+                            deserializeInt(state[2])),
+                    CardSet.ofPacked(deserializeLong(a[2])));
+            return serializeInt(c.packed());
+        case SCOR:
+            player.updateScore(Score.ofPacked(deserializeLong(a[1])));
+            return null;
+        case WINR:
+            player.setWinningTeam(TeamId.ALL.get(deserializeInt(a[1])));
+            return null;
+        case SESS:
+            // The session only matters to servers hosting several players
+            return null;
+        default:
+            throw new IOException();
+        }
+    }
+
+    /*
+     * Applies a frame of the binary protocol (whose arguments are given) to
+     * the given player and to the state mirrored for its connection, and
+     * returns the byte to send back (or -1 if there is none)
+     */
+    static int handleBinary(Player player, StateMirror mirror,
+            JassCommand command, ByteBuffer args) throws IOException {
+        switch (command) {
+        case PLRS:
+            PlayerId ownId = PlayerId.ALL.get(args.get() & 0xFF);
+            player.setPlayers(ownId, ByteBufferCodec.getNames(args));
+            return -1;
+        case TRMP:
+            player.setTrump(Card.Color.ALL.get(args.get() & 0xFF));
+            return -1;
+        case HAND:
+            CardSet hand = ByteBufferCodec.getCardSet(args);
+            mirror.updateHand(hand.packed());
+            player.updateHand(hand);
+            return -1;
+        case TRCK:
+            Trick trick = ByteBufferCodec.getTrick(args);
+            mirror.updateTrick(trick.packed());
+            player.updateTrick(trick);
+            return -1;
+        case CARD:
+            TurnState state = ByteBufferCodec.getTurnState(args);
+            CardSet cardHand = ByteBufferCodec.getCardSet(args);
+            mirror.resync(state, cardHand.packed());
+            return player.cardToPlay(state, cardHand).packed();
+        case MCRD:
+            TurnState mirrored = mirror.turnState(args.getInt(),
+                    args.getLong());
+            if (mirrored == null)
+                return BinarySerializer.RESYNC;
+            return player.cardToPlay(mirrored,
+                    CardSet.ofPacked(mirror.packedHand())).packed();
+        case SCOR:
+            Score score = ByteBufferCodec.getScore(args);
+            mirror.updateScore(score.packed());
+            player.updateScore(score);
+            return -1;
+        case WINR:
+            mirror.reset();
+            player.setWinningTeam(TeamId.ALL.get(args.get() & 0xFF));
+            return -1;
+        case SESS:
+            return -1;
+        default:
+            throw new IOException();
+        }
+    }
+
+    /*
+     * Returns the id of the session in the arguments of a SESS command of the
+     * text protocol, throwing an IllegalArgumentException if it is missing,
+     * empty or not valid Base64
+     */
+    static String sessionId(String command) {
+        String[] args = split(' ', command);
+        checkArgument(args.length == 2);
+        String id = deserializeString(args[1]);
+        checkArgument(!id.isEmpty());
+        return id;
+    }
 }
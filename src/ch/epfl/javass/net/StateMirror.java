@@ -0,0 +1,117 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.jass.SplitMix.mix;
+
+import ch.epfl.javass.jass.TurnState;
+import ch.epfl.javass.jass.TurnStateTracker;
+
+/**
+ * State of the game mirrored by a server from the notifications it receives
+ * (HAND, TRCK and SCOR), which lets the Client ask for a Card with a MCRD
+ * command: instead of the whole state, it only sends the number of the
+ * decision and a checksum of the state, and the server uses its own state if
+ * both agree with it. Otherwise the server asks the Client to send the whole
+ * state again with a CARD command, which also resyncs the mirror.
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+final class StateMirror {
+    private final TurnStateTracker tracker = new TurnStateTracker();
+    // Number of MCRD commands received until now, whatever their answer
+    private int decisions = 0;
+
+    /**
+     * Returns the checksum of a state, as sent in a MCRD command
+     *
+     * @param state
+     *            the current TurnState
+     * @param pkHand
+     *            the packed version of the hand
+     * @return the checksum of the state and the hand
+     */
+    static long checksum(TurnState state, long pkHand) {
+        long h = mix(state.packedScore());
+        h = mix(h ^ state.packedUnplayedCards());
+        h = mix(h ^ state.packedTrick());
+        return mix(h ^ pkHand);
+    }
+
+    /**
+     * Updates the mirrored hand
+     *
+     * @param pkHand
+     *            the packed version of the new hand
+     */
+    void updateHand(long pkHand) {
+        tracker.updateHand(pkHand);
+    }
+
+    /**
+     * Updates the mirrored Trick
+     *
+     * @param pkTrick
+     *            the packed version of the new Trick
+     */
+    void updateTrick(int pkTrick) {
+        tracker.updateTrick(pkTrick);
+    }
+
+    /**
+     * Updates the mirrored Score
+     *
+     * @param pkScore
+     *            the packed version of the new Score
+     */
+    void updateScore(long pkScore) {
+        tracker.updateScore(pkScore);
+    }
+
+    /**
+     * Forgets the mirrored Trick at the end of the game
+     */
+    void reset() {
+        tracker.reset();
+    }
+
+    /**
+     * Returns the mirrored state for a MCRD command, if it agrees with the one
+     * of the Client
+     *
+     * @param decision
+     *            the number of the MCRD command, i.e. of MCRD commands sent
+     *            before it by the Client
+     * @param checksum
+     *            the checksum of the state and hand of the Client
+     * @return the mirrored state, or null if the Client must send its state
+     */
+    TurnState turnState(int decision, long checksum) {
+        boolean inOrder = decision == decisions++;
+        TurnState state = tracker.turnState();
+        if (!inOrder || state == null
+                || checksum(state, tracker.packedHand()) != checksum)
+            return null;
+        return state;
+    }
+
+    /**
+     * Getter for the packed version of the mirrored hand
+     *
+     * @return the packed version of the mirrored hand
+     */
+    long packedHand() {
+        return tracker.packedHand();
+    }
+
+    /**
+     * Replaces the mirrored state by the one sent in a CARD command
+     *
+     * @param state
+     *            the current TurnState
+     * @param pkHand
+     *            the packed version of the hand
+     */
+    void resync(TurnState state, long pkHand) {
+        tracker.resync(state, pkHand);
+    }
+}
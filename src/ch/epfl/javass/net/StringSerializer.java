@@ -73,7 +73,7 @@ public final class StringSerializer {
      * @return The UTF-8 String associated with this String
      */
     public static String serializeString(String s) {
-        return new String(Base64.getEncoder().encode(s.getBytes(UTF_8)));
+        return new String(Base64.getEncoder().encode(s.getBytes(UTF_8)), UTF_8);
     }
 
     /**
@@ -85,7 +85,7 @@ public final class StringSerializer {
      * @return The base64 String associated with this String
      */
     public static String deserializeString(String s) {
-        return new String(Base64.getDecoder().decode(s.getBytes(UTF_8)));
+        return new String(Base64.getDecoder().decode(s.getBytes(UTF_8)), UTF_8);
     }
 
     /**
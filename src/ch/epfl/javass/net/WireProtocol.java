@@ -0,0 +1,23 @@
+package ch.epfl.javass.net;
+
+/**
+ * Public Enum representing the protocols a client and the server can use to
+ * exchange the commands
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public enum WireProtocol {
+    /**
+     * Lines of text, the values being written in hexadecimal (see
+     * StringSerializer)
+     */
+    TEXT,
+
+    /**
+     * Binary frames made of a one-byte command tag followed by fixed-width
+     * little-endian values (see BinarySerializer), used once the client and
+     * the server agreed on a version
+     */
+    BINARY;
+}
@@ -0,0 +1,357 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+import static ch.epfl.javass.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.MctsPlayer;
+import ch.epfl.javass.jass.PackedCard;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedDealer;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.SplitMix;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * Plays whole games of Jass on packed values, with a Policy per player instead
+ * of a Player, so that millions of games can be simulated to evaluate players.
+ * Games are spread over several threads and their results are aggregated in
+ * BatchStatistics.
+ *
+ * Given the same seed, a game is the same as the one a JassGame plays (same
+ * deals, same trump Colors and same first players), unless the simulator uses
+ * the faster PackedDealer
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class BatchSimulator {
+
+    /**
+     * Number of games a thread simulates before adding them to the statistics
+     */
+    public static final int CHUNK_SIZE = 256;
+
+    private static final int SEVEN_OF_DIAMOND = PackedCard.pack(Color.DIAMOND,
+            Rank.SEVEN);
+    private static final int DECK_SIZE = PackedCardSet
+            .size(PackedCardSet.ALL_CARDS);
+
+    private final Map<PlayerId, Policy.Factory> factories;
+    private final int threadsCount;
+    private final boolean packedDealer;
+
+    /**
+     * Constructs a simulator
+     *
+     * @param (factories)
+     *            the factories of the Policies of each player
+     * @param (threadsCount)
+     *            the number of threads simulating games
+     * @throws IllegalArgumentException
+     *             if there is not a factory per player or if threadsCount is
+     *             not strictly positive
+     */
+    public BatchSimulator(Map<PlayerId, Policy.Factory> factories,
+            int threadsCount) {
+        checkArgument(factories.keySet().containsAll(PlayerId.ALL));
+        checkArgument(threadsCount > 0);
+        this.factories = new EnumMap<>(factories);
+        this.threadsCount = threadsCount;
+        this.packedDealer = false;
+    }
+
+    private BatchSimulator(BatchSimulator that, boolean packedDealer) {
+        this.factories = that.factories;
+        this.threadsCount = that.threadsCount;
+        this.packedDealer = packedDealer;
+    }
+
+    /**
+     * Constructs a simulator using all available processors
+     *
+     * @param (factories)
+     *            the factories of the Policies of each player
+     * @throws IllegalArgumentException
+     *             if there is not a factory per player
+     */
+    public BatchSimulator(Map<PlayerId, Policy.Factory> factories) {
+        this(factories, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a copy of this simulator which deals the Cards with the
+     * PackedDealer and draws the trump Colors with a SplittableRandom, instead
+     * of shuffling a List of Cards with the random generators of JassGame.
+     * The games are then faster but not the same as the ones of JassGame
+     *
+     * @param (packed)
+     *            true to use the PackedDealer, false to play the same games as
+     *            JassGame
+     * @return a copy of this simulator using the given dealer
+     */
+    public BatchSimulator withPackedDealer(boolean packed) {
+        return new BatchSimulator(this, packed);
+    }
+
+    /**
+     * Returns the seed of a game of a batch, so that any game of a batch can
+     * be played again on its own
+     *
+     * @param (firstSeed)
+     *            the seed of the batch
+     * @param (gameIndex)
+     *            the index of the game in the batch
+     * @return the seed of the game
+     */
+    public static long gameSeed(long firstSeed, long gameIndex) {
+        // The games of batches with close seeds are not related
+        return SplitMix.seed(firstSeed, gameIndex);
+    }
+
+    /**
+     * Plays the given number of games, whose seeds are given by gameSeed(), and
+     * returns their statistics
+     *
+     * @param (firstSeed)
+     *            the seed of the batch
+     * @param (gamesCount)
+     *            the number of games to play
+     * @param (progress)
+     *            called with a copy of the statistics of the games played so
+     *            far every time a thread has played CHUNK_SIZE games (the
+     *            calls are never concurrent)
+     * @throws IllegalArgumentException
+     *             if gamesCount is negative
+     * @return the statistics of all the games
+     */
+    public BatchStatistics run(long firstSeed, long gamesCount,
+            Consumer<BatchStatistics> progress) {
+        checkArgument(gamesCount >= 0);
+
+        BatchStatistics total = new BatchStatistics();
+        AtomicLong nextChunk = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount,
+                r -> {
+                    Thread t = new Thread(r);
+                    t.setDaemon(true);
+                    return t;
+                });
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threadsCount; ++i)
+                workers.add(executor.submit(() -> {
+                    long first;
+                    while ((first = nextChunk.getAndAdd(CHUNK_SIZE))
+                            < gamesCount) {
+                        BatchStatistics chunk = new BatchStatistics();
+                        long last = Math.min(first + CHUNK_SIZE, gamesCount);
+                        for (long g = first; g < last; ++g)
+                            chunk.add(finalScore(gameSeed(firstSeed, g)));
+
+                        synchronized (total) {
+                            total.addAll(chunk);
+                            progress.accept(total.copy());
+                        }
+                    }
+                }));
+
+            for (Future<?> w : workers)
+                w.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return total;
+    }
+
+    /**
+     * Plays the given number of games, whose seeds are given by gameSeed(), and
+     * returns their statistics
+     *
+     * @param (firstSeed)
+     *            the seed of the batch
+     * @param (gamesCount)
+     *            the number of games to play
+     * @throws IllegalArgumentException
+     *             if gamesCount is negative
+     * @return the statistics of all the games
+     */
+    public BatchStatistics run(long firstSeed, long gamesCount) {
+        return run(firstSeed, gamesCount, s -> {
+        });
+    }
+
+    /**
+     * Plays a whole game and returns its final Score
+     *
+     * @param (gameSeed)
+     *            the seed of the game, as given to a JassGame (the index of a
+     *            Turn in the game is the index of its deal for the
+     *            PackedDealer)
+     * @throws IllegalStateException
+     *             if a Policy plays a Card which is not playable
+     * @return the packed version of the Score at the end of the game, once
+     *         the points of the last Turn were added to the game points
+     */
+    public long finalScore(long gameSeed) {
+        Policy[] policies = new Policy[PlayerId.COUNT];
+        for (PlayerId p : PlayerId.ALL)
+            policies[p.ordinal()] = factories.get(p).newPolicy(p, gameSeed);
+
+        // Without the PackedDealer, the random events are the same as the
+        // ones of JassGame
+        Random rng = new Random(gameSeed);
+        Random shuffleRng = packedDealer ? null : new Random(rng.nextLong());
+        Random trumpRng = packedDealer ? null : new Random(rng.nextLong());
+        SplittableRandom packedTrumpRng = packedDealer
+                ? new SplittableRandom(gameSeed)
+                : null;
+
+        int[] deck = new int[DECK_SIZE];
+        long[] hands = new long[PlayerId.COUNT];
+        long pkScore = PackedScore.INITIAL;
+        int firstPlayer = -1;
+
+        for (int turn = 0;; ++turn) {
+            Color trump;
+            if (packedDealer) {
+                PackedDealer.deal(gameSeed, turn, hands);
+                trump = Color.ALL.get(packedTrumpRng.nextInt(Color.COUNT));
+            } else {
+                shuffle(deck, shuffleRng);
+                for (int p = 0; p < PlayerId.COUNT; ++p) {
+                    hands[p] = PackedCardSet.EMPTY;
+                    for (int i = p * Jass.HAND_SIZE; i < (p + 1)
+                            * Jass.HAND_SIZE; ++i)
+                        hands[p] = PackedCardSet.add(hands[p], deck[i]);
+                }
+                trump = Color.ALL.get(trumpRng.nextInt(Color.COUNT));
+            }
+
+            if (firstPlayer == -1) {
+                for (int p = 0; p < PlayerId.COUNT; ++p)
+                    if (PackedCardSet.contains(hands[p], SEVEN_OF_DIAMOND))
+                        firstPlayer = p;
+            } else
+                firstPlayer = (firstPlayer + 1) % PlayerId.COUNT;
+
+            Color chosenTrump = policies[firstPlayer]
+                    .chooseTrump(hands[firstPlayer]);
+            if (chosenTrump != null)
+                trump = chosenTrump;
+
+            long pkUnplayedCards = PackedCardSet.ALL_CARDS;
+            int pkTrick = PackedTrick.firstEmpty(trump,
+                    PlayerId.ALL.get(firstPlayer));
+            while (pkTrick != PackedTrick.INVALID) {
+                for (int i = 0; i < PlayerId.COUNT; ++i) {
+                    int p = PackedTrick.player(pkTrick, i).ordinal();
+                    int card = policies[p].cardToPlay(pkScore, pkUnplayedCards,
+                            pkTrick, hands[p]);
+                    checkState(PackedCardSet.contains(
+                            PackedTrick.playableCards(pkTrick, hands[p]),
+                            card));
+
+                    hands[p] = PackedCardSet.remove(hands[p], card);
+                    pkUnplayedCards = PackedCardSet.remove(pkUnplayedCards,
+                            card);
+                    pkTrick = PackedTrick.withAddedCard(pkTrick, card);
+                }
+
+                pkScore = PackedScore.withAdditionalTrick(pkScore,
+                        PackedTrick.winningPlayer(pkTrick).team(),
+                        PackedTrick.points(pkTrick));
+                if (isGameOver(pkScore))
+                    return PackedScore.nextTurn(pkScore);
+                pkTrick = PackedTrick.nextEmpty(pkTrick);
+            }
+            pkScore = PackedScore.nextTurn(pkScore);
+        }
+    }
+
+    /*
+     * Fills the deck with all the Cards in order, and shuffles it like
+     * Collections.shuffle() does
+     */
+    private static void shuffle(int[] deck, Random rng) {
+        for (int i = 0; i < deck.length; ++i)
+            deck[i] = PackedCardSet.get(PackedCardSet.ALL_CARDS, i);
+
+        for (int i = deck.length; i > 1; --i) {
+            int j = rng.nextInt(i);
+            int card = deck[i - 1];
+            deck[i - 1] = deck[j];
+            deck[j] = card;
+        }
+    }
+
+    private static boolean isGameOver(long pkScore) {
+        return PackedScore.totalPoints(pkScore,
+                TeamId.TEAM_1) >= Jass.WINNING_POINTS
+                || PackedScore.totalPoints(pkScore,
+                        TeamId.TEAM_2) >= Jass.WINNING_POINTS;
+    }
+
+    /**
+     * Plays a batch of games (dealt by the PackedDealer) and prints its
+     * statistics. The first Team plays with MctsPlayers doing the given number
+     * of iterations (or randomly if it is 0) and the second Team plays
+     * randomly
+     *
+     * @param (args)
+     *            the number of games, the number of iterations of the first
+     *            Team and optionally the seed of the batch
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: BatchSimulator <games> <iterations> [seed]");
+            System.exit(1);
+        }
+
+        long gamesCount = Long.parseLong(args[0]);
+        int iterations = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        Map<PlayerId, Policy.Factory> factories = new EnumMap<>(
+                PlayerId.class);
+        for (PlayerId p : PlayerId.ALL)
+            if (p.team() == TeamId.TEAM_1 && iterations > 0)
+                factories.put(p, (id, s) -> Policy
+                        .of(new MctsPlayer(id, s, iterations)));
+            else
+                factories.put(p, (id, s) -> Policy.random(s + id.ordinal()));
+
+        long start = System.nanoTime();
+        BatchStatistics stats = new BatchSimulator(factories)
+                .withPackedDealer(true)
+                .run(seed, gamesCount, s -> System.err.println(s));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(stats);
+        System.out.printf("%.0f games/s%n", gamesCount / seconds);
+    }
+}
@@ -0,0 +1,155 @@
+package ch.epfl.javass.sim;
+
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * Aggregate results of games simulated by the BatchSimulator: the number of
+ * games won by each Team and the distribution of their final points
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class BatchStatistics {
+
+    /**
+     * Width of the buckets of the points histograms
+     */
+    public static final int BUCKET_SIZE = 50;
+
+    /**
+     * Number of buckets of the points histograms (the last one also counts
+     * all the points above it)
+     */
+    public static final int BUCKETS_COUNT = 27;
+
+    private long gamesCount = 0;
+    private final long[] wins = new long[TeamId.COUNT];
+    private final long[] points = new long[TeamId.COUNT];
+    private final long[][] histograms = new long[TeamId.COUNT][BUCKETS_COUNT];
+
+    /**
+     * Constructs statistics of no game
+     */
+    public BatchStatistics() {
+    }
+
+    private BatchStatistics(BatchStatistics that) {
+        addAll(that);
+    }
+
+    /**
+     * Adds a game to the statistics
+     *
+     * @param (pkFinalScore)
+     *            the packed version of the Score at the end of the game (once
+     *            the points of the last Turn were added to the game points)
+     */
+    public void add(long pkFinalScore) {
+        ++gamesCount;
+        TeamId winner = PackedScore.gamePoints(pkFinalScore,
+                TeamId.TEAM_1) >= Jass.WINNING_POINTS ? TeamId.TEAM_1
+                        : TeamId.TEAM_2;
+        ++wins[winner.ordinal()];
+
+        for (TeamId t : TeamId.ALL) {
+            int p = PackedScore.gamePoints(pkFinalScore, t);
+            points[t.ordinal()] += p;
+            ++histograms[t.ordinal()][Math.min(p / BUCKET_SIZE,
+                    BUCKETS_COUNT - 1)];
+        }
+    }
+
+    /**
+     * Adds all the games of the given statistics to these ones
+     *
+     * @param (that)
+     *            the statistics to add
+     */
+    public void addAll(BatchStatistics that) {
+        gamesCount += that.gamesCount;
+        for (int t = 0; t < TeamId.COUNT; ++t) {
+            wins[t] += that.wins[t];
+            points[t] += that.points[t];
+            for (int b = 0; b < BUCKETS_COUNT; ++b)
+                histograms[t][b] += that.histograms[t][b];
+        }
+    }
+
+    /**
+     * Returns a copy of these statistics
+     *
+     * @return a copy which is not modified when games are added to these
+     *         statistics
+     */
+    public BatchStatistics copy() {
+        return new BatchStatistics(this);
+    }
+
+    /**
+     * Getter for the number of games
+     *
+     * @return the number of games
+     */
+    public long gamesCount() {
+        return gamesCount;
+    }
+
+    /**
+     * Returns the number of games won by the given Team
+     *
+     * @param (t)
+     *            the Team
+     * @return the number of games won by the Team
+     */
+    public long winsCount(TeamId t) {
+        return wins[t.ordinal()];
+    }
+
+    /**
+     * Returns the share of the games won by the given Team
+     *
+     * @param (t)
+     *            the Team
+     * @return the win rate of the Team, or NaN if there is no game
+     */
+    public double winRate(TeamId t) {
+        return wins[t.ordinal()] / (double) gamesCount;
+    }
+
+    /**
+     * Returns the average points the given Team has at the end of a game
+     *
+     * @param (t)
+     *            the Team
+     * @return the average final points of the Team, or NaN if there is no
+     *         game
+     */
+    public double averagePoints(TeamId t) {
+        return points[t.ordinal()] / (double) gamesCount;
+    }
+
+    /**
+     * Returns the number of games in which the given Team ended with points in
+     * each bucket (the bucket i counts the points between i * BUCKET_SIZE
+     * included and (i + 1) * BUCKET_SIZE excluded)
+     *
+     * @param (t)
+     *            the Team
+     * @return a copy of the histogram of the final points of the Team
+     */
+    public long[] pointsHistogram(TeamId t) {
+        return histograms[t.ordinal()].clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder().append(gamesCount)
+                .append(" games");
+        for (TeamId t : TeamId.ALL)
+            b.append(String.format(", %s: %.2f%% won, %.1f points", t,
+                    100 * winRate(t), averagePoints(t)));
+        return b.toString();
+    }
+}
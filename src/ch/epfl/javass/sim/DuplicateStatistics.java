@@ -0,0 +1,103 @@
+package ch.epfl.javass.sim;
+
+import java.util.Locale;
+
+/**
+ * Statistics of the duplicate deals played by a configuration against
+ * another: each deal is played twice, the configurations swapping seats, and
+ * the point margins of both games are averaged so that most of the luck of
+ * the deal cancels out
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class DuplicateStatistics {
+
+    // Quantile of the normal distribution for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    private long dealsCount = 0;
+    private double gamesSum = 0, gamesSquaresSum = 0;
+    private double pairsSum = 0, pairsSquaresSum = 0;
+
+    /**
+     * Adds the two games of a deal to the statistics
+     *
+     * @param (firstMargin)
+     *            the points of the configuration minus the points of its
+     *            opponent in the first game of the deal
+     * @param (secondMargin)
+     *            the same margin in the game where the seats were swapped
+     */
+    public void add(int firstMargin, int secondMargin) {
+        ++dealsCount;
+        gamesSum += firstMargin + secondMargin;
+        gamesSquaresSum += (double) firstMargin * firstMargin
+                + (double) secondMargin * secondMargin;
+        double pair = (firstMargin + secondMargin) / 2d;
+        pairsSum += pair;
+        pairsSquaresSum += pair * pair;
+    }
+
+    /**
+     * Getter for the number of deals
+     *
+     * @return the number of deals (each of them played twice)
+     */
+    public long dealsCount() {
+        return dealsCount;
+    }
+
+    /**
+     * Returns the average point margin of the configuration per game
+     *
+     * @return the average margin, or NaN if there is no deal
+     */
+    public double averageMargin() {
+        return pairsSum / dealsCount;
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the average
+     * margin, computed from the deals (and not from the games, which are not
+     * independent)
+     *
+     * @return the error of the average margin, or NaN if there are less than
+     *         two deals
+     */
+    public double marginError() {
+        return Z_95 * Math.sqrt(variance(pairsSum, pairsSquaresSum, dealsCount)
+                / dealsCount);
+    }
+
+    /**
+     * Returns the variance reduction achieved by the duplicate deals: the
+     * variance the average of two independent games would have divided by the
+     * variance of the average of the two games of a deal. It is the number of
+     * times fewer games needed to reach the same precision as independent
+     * games
+     *
+     * @return the variance reduction (infinite if the games of each deal
+     *         compensated exactly), or NaN if there are less than two deals
+     */
+    public double varianceReduction() {
+        double games = variance(gamesSum, gamesSquaresSum, 2 * dealsCount);
+        double pairs = variance(pairsSum, pairsSquaresSum, dealsCount);
+        return games / 2 / pairs;
+    }
+
+    private static double variance(double sum, double squaresSum, long n) {
+        if (n < 2)
+            return Double.NaN;
+        double mean = sum / n;
+        return Math.max(0, (squaresSum - n * mean * mean) / (n - 1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d deals, margin %.1f +/- %.1f, variance reduction %.2f",
+                dealsCount, averageMargin(), marginError(),
+                varianceReduction());
+    }
+}
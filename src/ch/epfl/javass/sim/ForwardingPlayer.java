@@ -0,0 +1,75 @@
+package ch.epfl.javass.sim;
+
+import java.util.Map;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Player forwarding every call to an underlying Player, to be extended by the
+ * Players which only change some of its behaviors
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+abstract class ForwardingPlayer implements Player {
+
+    private final Player underlyingPlayer;
+
+    /**
+     * Constructs a Player forwarding its calls to the given one
+     *
+     * @param (underlyingPlayer)
+     *            the Player to which the calls are forwarded
+     */
+    ForwardingPlayer(Player underlyingPlayer) {
+        this.underlyingPlayer = underlyingPlayer;
+    }
+
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        return underlyingPlayer.cardToPlay(state, hand);
+    }
+
+    @Override
+    public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        underlyingPlayer.setPlayers(ownId, playerNames);
+    }
+
+    @Override
+    public void updateHand(CardSet newHand) {
+        underlyingPlayer.updateHand(newHand);
+    }
+
+    @Override
+    public Color chooseTrump(CardSet hand) {
+        return underlyingPlayer.chooseTrump(hand);
+    }
+
+    @Override
+    public void setTrump(Color trump) {
+        underlyingPlayer.setTrump(trump);
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        underlyingPlayer.updateTrick(newTrick);
+    }
+
+    @Override
+    public void updateScore(Score score) {
+        underlyingPlayer.updateScore(score);
+    }
+
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        underlyingPlayer.setWinningTeam(winningTeam);
+    }
+}
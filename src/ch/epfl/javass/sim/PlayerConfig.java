@@ -0,0 +1,185 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.MctsPlayer;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TimeBudgetedPlayer;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Configuration of a player taking part in a Tournament. A configuration is
+ * written as
+ *
+ * name:random
+ *
+ * name:mcts:iterations[:timeBudget]
+ *
+ * where the time budget is the number of milliseconds an MctsPlayer may spend
+ * on each Card after its iterations (0 by default)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class PlayerConfig {
+
+    /**
+     * Kinds of players
+     */
+    public enum Kind {
+        RANDOM, MCTS;
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final int iterations;
+    private final long timeBudget;
+
+    private PlayerConfig(String name, Kind kind, int iterations,
+            long timeBudget) {
+        this.name = name;
+        this.kind = kind;
+        this.iterations = iterations;
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Returns the configuration of a random player
+     *
+     * @param (name)
+     *            the name of the configuration
+     * @return the configuration of a player choosing random playable Cards
+     */
+    public static PlayerConfig random(String name) {
+        return new PlayerConfig(name, Kind.RANDOM, 0, 0);
+    }
+
+    /**
+     * Returns the configuration of an MctsPlayer
+     *
+     * @param (name)
+     *            the name of the configuration
+     * @param (iterations)
+     *            the number of iterations of the player
+     * @param (timeBudget)
+     *            the time (in milliseconds) the player may spend on each Card
+     *            after its iterations
+     * @throws IllegalArgumentException
+     *             if there are less iterations than Tricks in a Turn or if
+     *             the time budget is negative
+     * @return the configuration of an MctsPlayer
+     */
+    public static PlayerConfig mcts(String name, int iterations,
+            long timeBudget) {
+        checkArgument(iterations >= Jass.TRICKS_PER_TURN && timeBudget >= 0);
+        return new PlayerConfig(name, Kind.MCTS, iterations, timeBudget);
+    }
+
+    /**
+     * Parses a configuration written as described above
+     *
+     * @param (s)
+     *            the String representation of the configuration
+     * @throws IllegalArgumentException
+     *             if the configuration is not valid
+     * @return the configuration
+     */
+    public static PlayerConfig ofString(String s) {
+        String[] a = s.trim().split(":");
+        checkArgument(a.length >= 2 && !a[0].isEmpty());
+        try {
+            switch (a[1]) {
+            case "random":
+                checkArgument(a.length == 2);
+                return random(a[0]);
+            case "mcts":
+                checkArgument(a.length == 3 || a.length == 4);
+                return mcts(a[0], Integer.parseInt(a[2]),
+                        a.length == 4 ? Long.parseLong(a[3]) : 0);
+            default:
+                throw new IllegalArgumentException(s);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(s, e);
+        }
+    }
+
+    /**
+     * Getter for the name of the configuration
+     *
+     * @return the name of the configuration
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Getter for the kind of the players of the configuration
+     *
+     * @return the kind of the players
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * Creates a player following this configuration
+     *
+     * @param (ownId)
+     *            the Id of the player
+     * @param (rngSeed)
+     *            the seed of the random events of the player
+     * @return a new Player
+     */
+    public Player newPlayer(PlayerId ownId, long rngSeed) {
+        switch (kind) {
+        case RANDOM:
+            SplittableRandom rng = new SplittableRandom(rngSeed);
+            return (state, hand) -> {
+                CardSet playable = state.trick().playableCards(hand);
+                return playable.get(rng.nextInt(playable.size()));
+            };
+        case MCTS:
+            MctsPlayer p = new MctsPlayer(ownId, rngSeed, iterations);
+            return timeBudget == 0 ? p : new BudgetedPlayer(p, timeBudget);
+        default:
+            throw new Error();
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+        case RANDOM:
+            return name + ":random";
+        default:
+            return name + ":mcts:" + iterations + ":" + timeBudget;
+        }
+    }
+
+    /*
+     * Gives a fixed time budget to a TimeBudgetedPlayer for each Card (without
+     * waiting like a PacedPlayer does)
+     */
+    private static final class BudgetedPlayer extends ForwardingPlayer {
+        private final TimeBudgetedPlayer underlyingPlayer;
+        private final long timeBudget;
+
+        BudgetedPlayer(TimeBudgetedPlayer underlyingPlayer, long timeBudget) {
+            super(underlyingPlayer);
+            this.underlyingPlayer = underlyingPlayer;
+            this.timeBudget = timeBudget;
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            return underlyingPlayer.cardToPlay(state, hand, timeBudget);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ch.epfl.javass.sim;
+
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Chooses the Cards played by one player of a game simulated by the
+ * BatchSimulator, given the packed components of the state of the game. Unlike
+ * a Player, a Policy is not notified of the progress of the game
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+@FunctionalInterface
+public interface Policy {
+
+    /**
+     * Returns the Card the player plays
+     *
+     * @param (pkScore)
+     *            the packed version of the current Score
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards
+     * @param (pkTrick)
+     *            the packed version of the current Trick (not full)
+     * @param (pkHand)
+     *            the packed version of the hand of the player
+     * @return the packed version of the Card to play, which must be playable
+     */
+    int cardToPlay(long pkScore, long pkUnplayedCards, int pkTrick,
+            long pkHand);
+
+    /**
+     * Chooses the trump Color of a Turn the player starts
+     *
+     * @param (pkHand)
+     *            the packed version of the hand of the player
+     * @return the chosen trump Color, or null to let the game choose it
+     *         randomly (the default)
+     */
+    default Color chooseTrump(long pkHand) {
+        return null;
+    }
+
+    /**
+     * Creates the Policy of one player for one game. As games are simulated
+     * in parallel, a new Policy is created for each game, so a Policy does not
+     * have to be thread-safe
+     */
+    @FunctionalInterface
+    interface Factory {
+
+        /**
+         * Creates the Policy of a player for a game
+         *
+         * @param (ownId)
+         *            the player using the Policy
+         * @param (gameSeed)
+         *            the seed of the game, from which the Policy may derive
+         *            its own random events
+         * @return the Policy of the player
+         */
+        Policy newPolicy(PlayerId ownId, long gameSeed);
+    }
+
+    /**
+     * Returns a Policy playing a random playable Card
+     *
+     * @param (rngSeed)
+     *            the seed of the random choices
+     * @return a random Policy
+     */
+    static Policy random(long rngSeed) {
+        SplittableRandom rng = new SplittableRandom(rngSeed);
+        return (pkScore, pkUnplayedCards, pkTrick, pkHand) -> {
+            long playable = PackedTrick.playableCards(pkTrick, pkHand);
+            return PackedCardSet.get(playable,
+                    rng.nextInt(PackedCardSet.size(playable)));
+        };
+    }
+
+    /**
+     * Returns a Policy asking the given Player which Card to play and which
+     * trump to choose (the Player is not notified of anything else)
+     *
+     * @param (player)
+     *            the Player
+     * @return a Policy using the given Player
+     */
+    static Policy of(Player player) {
+        return new Policy() {
+            @Override
+            public int cardToPlay(long pkScore, long pkUnplayedCards,
+                    int pkTrick, long pkHand) {
+                return player.cardToPlay(
+                        TurnState.ofPackedComponents(pkScore, pkUnplayedCards,
+                                pkTrick),
+                        CardSet.ofPacked(pkHand)).packed();
+            }
+
+            @Override
+            public Color chooseTrump(long pkHand) {
+                return player.chooseTrump(CardSet.ofPacked(pkHand));
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Suite of positions in which the Cards a player may play to be correct are
+ * known. A suite is written as text, with a position per line:
+ *
+ * name score unplayedCards trick hand acceptableCards [# comment]
+ *
+ * where the five last fields are the packed values written in hexadecimal
+ * (the player to play being the next player of the Trick). Empty lines and
+ * lines starting with # are ignored
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class PositionSuite {
+
+    /**
+     * Position of a suite
+     */
+    public static final class Position {
+        private final String name;
+        private final TurnState state;
+        private final CardSet hand;
+        private final CardSet acceptableCards;
+        private final String comment;
+
+        /**
+         * Constructs a position
+         *
+         * @param (name)
+         *            the name of the position (without whitespace)
+         * @param (state)
+         *            the state of the Turn, which must not be terminal
+         * @param (hand)
+         *            the hand of the next player
+         * @param (acceptableCards)
+         *            the Cards the player may play to be correct, which must
+         *            be playable
+         * @param (comment)
+         *            the explanation of the position (possibly empty)
+         * @throws IllegalArgumentException
+         *             if one of these conditions does not hold, or if the
+         *             hand has Cards which were played
+         */
+        public Position(String name, TurnState state, CardSet hand,
+                CardSet acceptableCards, String comment) {
+            checkArgument(!name.isEmpty() && !name.matches(".*\\s.*")
+                    && !name.startsWith("#"));
+            checkArgument(!state.isTerminal()
+                    && !PackedTrick.isFull(state.packedTrick()));
+            checkArgument(hand.difference(state.unplayedCards()).isEmpty());
+            checkArgument(!acceptableCards.isEmpty() && acceptableCards
+                    .difference(state.trick().playableCards(hand))
+                    .isEmpty());
+            checkArgument(comment.indexOf('\n') == -1);
+
+            this.name = name;
+            this.state = state;
+            this.hand = hand;
+            this.acceptableCards = acceptableCards;
+            this.comment = comment.trim();
+        }
+
+        /**
+         * Getter for the name of the position
+         *
+         * @return the name of the position
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Getter for the state of the Turn
+         *
+         * @return the state of the Turn
+         */
+        public TurnState state() {
+            return state;
+        }
+
+        /**
+         * Getter for the hand of the player to play
+         *
+         * @return the hand of the player
+         */
+        public CardSet hand() {
+            return hand;
+        }
+
+        /**
+         * Getter for the Cards the player may play to be correct
+         *
+         * @return the acceptable Cards
+         */
+        public CardSet acceptableCards() {
+            return acceptableCards;
+        }
+
+        /**
+         * Getter for the explanation of the position
+         *
+         * @return the comment of the position (possibly empty)
+         */
+        public String comment() {
+            return comment;
+        }
+
+        /**
+         * Returns the player to play
+         *
+         * @return the next player of the Turn
+         */
+        public PlayerId player() {
+            return state.nextPlayer();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder b = new StringBuilder(name).append(' ')
+                    .append(Long.toHexString(state.packedScore())).append(' ')
+                    .append(Long.toHexString(state.packedUnplayedCards()))
+                    .append(' ')
+                    .append(Integer.toHexString(state.packedTrick()))
+                    .append(' ').append(Long.toHexString(hand.packed()))
+                    .append(' ')
+                    .append(Long.toHexString(acceptableCards.packed()));
+            if (!comment.isEmpty())
+                b.append(" # ").append(comment);
+            return b.toString();
+        }
+    }
+
+    private final List<Position> positions;
+
+    /**
+     * Constructs a suite
+     *
+     * @param (positions)
+     *            the positions of the suite
+     */
+    public PositionSuite(List<Position> positions) {
+        this.positions = Collections
+                .unmodifiableList(new ArrayList<>(positions));
+    }
+
+    /**
+     * Getter for the positions of the suite
+     *
+     * @return the (unmodifiable) list of the positions
+     */
+    public List<Position> positions() {
+        return positions;
+    }
+
+    /**
+     * Reads a suite written as described above
+     *
+     * @param (r)
+     *            the Reader to read from
+     * @throws IllegalArgumentException
+     *             if a line is not a valid position (its number being given
+     *             in the message of the exception)
+     * @throws UncheckedIOException
+     *             in case of input/output error
+     * @return the suite
+     */
+    public static PositionSuite read(Reader r) {
+        List<Position> positions = new ArrayList<>();
+        try {
+            BufferedReader reader = new BufferedReader(r);
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ++lineNumber;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                    continue;
+                try {
+                    positions.add(parse(trimmed));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid position at line " + lineNumber + ": "
+                                    + line,
+                            e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new PositionSuite(positions);
+    }
+
+    private static Position parse(String line) {
+        int commentStart = line.indexOf('#');
+        String comment = commentStart == -1 ? ""
+                : line.substring(commentStart + 1);
+        String[] fields = (commentStart == -1 ? line
+                : line.substring(0, commentStart)).trim().split("\\s+");
+        checkArgument(fields.length == 6);
+
+        long pkScore = Long.parseUnsignedLong(fields[1], 16);
+        long pkUnplayed = Long.parseUnsignedLong(fields[2], 16);
+        int pkTrick = Integer.parseUnsignedInt(fields[3], 16);
+        long pkHand = Long.parseUnsignedLong(fields[4], 16);
+        long pkAcceptable = Long.parseUnsignedLong(fields[5], 16);
+        checkArgument(PackedScore.isValid(pkScore)
+                && PackedCardSet.isValid(pkUnplayed)
+                && PackedTrick.isValid(pkTrick)
+                && PackedCardSet.isValid(pkHand)
+                && PackedCardSet.isValid(pkAcceptable));
+
+        return new Position(fields[0],
+                TurnState.ofPackedComponents(pkScore, pkUnplayed, pkTrick),
+                CardSet.ofPacked(pkHand), CardSet.ofPacked(pkAcceptable),
+                comment);
+    }
+
+    /**
+     * Writes the suite as described above, a position per line
+     *
+     * @param (w)
+     *            the Writer to write to
+     * @throws UncheckedIOException
+     *             in case of input/output error
+     */
+    public void write(Writer w) {
+        try {
+            for (Position p : positions)
+                w.write(p + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ch.epfl.javass.sim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.PackedTrick;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+import ch.epfl.javass.jass.TurnStateTracker;
+
+/**
+ * Player recording every state in which the Player it wraps has to play, along
+ * with the points its Team has at the end of the Turn. Each record is written
+ * as one line once the Turn is over:
+ *
+ * score unplayedCards trick hand player turnPoints
+ *
+ * where the packed components are written in hexadecimal and the player is
+ * its ordinal. Records of a Turn interrupted by the end of the game are
+ * dropped
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class SelfPlayRecorder implements Player {
+
+    private static final int BASE = 16;
+
+    private final Player underlyingPlayer;
+    private final Writer writer;
+    private final TurnStateTracker tracker = new TurnStateTracker();
+    private final List<String> pendingRecords = new ArrayList<>();
+    private PlayerId ownId;
+
+    /**
+     * Constructs a recorder
+     *
+     * @param (underlyingPlayer)
+     *            the Player which actually plays
+     * @param (writer)
+     *            the Writer in which the records are written (it is not closed
+     *            by the recorder)
+     */
+    public SelfPlayRecorder(Player underlyingPlayer, Writer writer) {
+        this.underlyingPlayer = underlyingPlayer;
+        this.writer = writer;
+    }
+
+    @Override
+    public Card cardToPlay(TurnState state, CardSet hand) {
+        pendingRecords.add(Long.toUnsignedString(state.packedScore(), BASE)
+                + " "
+                + Long.toUnsignedString(state.packedUnplayedCards(), BASE)
+                + " " + Integer.toUnsignedString(state.packedTrick(), BASE)
+                + " " + Long.toUnsignedString(hand.packed(), BASE) + " "
+                + ownId.ordinal());
+        return underlyingPlayer.cardToPlay(state, hand);
+    }
+
+    @Override
+    public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        this.ownId = ownId;
+        underlyingPlayer.setPlayers(ownId, playerNames);
+    }
+
+    @Override
+    public void updateHand(CardSet newHand) {
+        underlyingPlayer.updateHand(newHand);
+    }
+
+    @Override
+    public Color chooseTrump(CardSet hand) {
+        return underlyingPlayer.chooseTrump(hand);
+    }
+
+    @Override
+    public void setTrump(Color trump) {
+        underlyingPlayer.setTrump(trump);
+    }
+
+    @Override
+    public void updateTrick(Trick newTrick) {
+        tracker.updateTrick(newTrick.packed());
+        if (newTrick.isFull() && newTrick.isLast()) {
+            TurnState end = tracker.turnState();
+            assert end.packedTrick() == PackedTrick.INVALID;
+            flush(PackedScore.turnPoints(end.packedScore(), ownId.team()));
+        }
+        underlyingPlayer.updateTrick(newTrick);
+    }
+
+    @Override
+    public void updateScore(Score score) {
+        tracker.updateScore(score.packed());
+        underlyingPlayer.updateScore(score);
+    }
+
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        pendingRecords.clear();
+        underlyingPlayer.setWinningTeam(winningTeam);
+    }
+
+    private void flush(int turnPoints) {
+        try {
+            for (String record : pendingRecords)
+                writer.write(record + " " + turnPoints + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingRecords.clear();
+    }
+}
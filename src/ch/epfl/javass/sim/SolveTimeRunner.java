@@ -0,0 +1,250 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.MctsPlayer;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.sim.PositionSuite.Position;
+
+/**
+ * Measures how fast a player solves the positions of a suite. The player
+ * decides each position with a doubling number of iterations, from a minimum
+ * to a maximum, and the position is solved once every decision from some
+ * number of iterations on is acceptable: the iterations and the wall time of
+ * that first decision are its time to solution
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class SolveTimeRunner {
+
+    /**
+     * Creates the players whose decisions are measured
+     */
+    @FunctionalInterface
+    public interface Engine {
+        /**
+         * Creates a player
+         *
+         * @param (ownId)
+         *            the Id of the player
+         * @param (iterations)
+         *            the number of iterations the player may use
+         * @return a new player
+         */
+        Player newPlayer(PlayerId ownId, int iterations);
+    }
+
+    /**
+     * Time to solution of a position
+     */
+    public static final class Result {
+        private final String name;
+        private final boolean solved;
+        private final int iterations;
+        private final long nanos;
+        private final Card lastCard;
+
+        private Result(String name, boolean solved, int iterations,
+                long nanos, Card lastCard) {
+            this.name = name;
+            this.solved = solved;
+            this.iterations = iterations;
+            this.nanos = nanos;
+            this.lastCard = lastCard;
+        }
+
+        /**
+         * Getter for the name of the position
+         *
+         * @return the name of the position
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns true if the position was solved
+         *
+         * @return true if the decision with the maximal number of iterations
+         *         was acceptable
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * Getter for the iterations needed to solve the position
+         *
+         * @return the iterations of the first decision from which the player
+         *         settled on acceptable Cards (0 if it was not solved)
+         */
+        public int iterations() {
+            return iterations;
+        }
+
+        /**
+         * Getter for the wall time needed to solve the position
+         *
+         * @return the time (in nanoseconds) of that decision (0 if it was not
+         *         solved)
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * Getter for the Card played with the maximal number of iterations
+         *
+         * @return the last Card played
+         */
+        public Card lastCard() {
+            return lastCard;
+        }
+    }
+
+    private final Engine engine;
+    private final int minIterations, maxIterations;
+
+    /**
+     * Constructs a runner
+     *
+     * @param (engine)
+     *            the creator of the players
+     * @param (minIterations)
+     *            the iterations of the first decision
+     * @param (maxIterations)
+     *            the iterations of the last decision
+     * @throws IllegalArgumentException
+     *             if there are no minimal iterations or if the maximal
+     *             iterations are smaller than them
+     */
+    public SolveTimeRunner(Engine engine, int minIterations,
+            int maxIterations) {
+        checkArgument(0 < minIterations && minIterations <= maxIterations);
+        this.engine = engine;
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Measures the time to solution of a position
+     *
+     * @param (p)
+     *            the position
+     * @return the time to solution of the position
+     */
+    public Result solve(Position p) {
+        int settledIterations = 0;
+        long settledNanos = 0;
+        Card card = null;
+        for (int it = minIterations;; it = (int) Math.min(2L * it,
+                maxIterations)) {
+            long start = System.nanoTime();
+            card = engine.newPlayer(p.player(), it).cardToPlay(p.state(),
+                    p.hand());
+            long nanos = System.nanoTime() - start;
+
+            if (!p.acceptableCards().contains(card))
+                settledIterations = 0;
+            else if (settledIterations == 0) {
+                settledIterations = it;
+                settledNanos = nanos;
+            }
+            if (it == maxIterations)
+                break;
+        }
+        return settledIterations == 0 ? new Result(p.name(), false, 0, 0, card)
+                : new Result(p.name(), true, settledIterations, settledNanos,
+                        card);
+    }
+
+    /**
+     * Measures the time to solution of all the positions of a suite
+     *
+     * @param (suite)
+     *            the suite
+     * @return the times to solution of the positions, in order
+     */
+    public List<Result> run(PositionSuite suite) {
+        List<Result> results = new ArrayList<>();
+        for (Position p : suite.positions())
+            results.add(solve(p));
+        return results;
+    }
+
+    /**
+     * Returns the share of the positions solved within a given time
+     *
+     * @param (results)
+     *            the times to solution of the positions
+     * @param (nanos)
+     *            the time (in nanoseconds)
+     * @return the solve rate at that time, or NaN if there is no position
+     */
+    public static double solveRate(List<Result> results, long nanos) {
+        long solved = results.stream()
+                .filter(r -> r.isSolved() && r.nanos() <= nanos).count();
+        return solved / (double) results.size();
+    }
+
+    /**
+     * Runs a suite with MctsPlayers and writes the time to solution of each
+     * position and the solve rate versus time curve as CSV
+     *
+     * @param (args)
+     *            suiteFile [maxIterations] [seed]
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(
+                    "Usage: SolveTimeRunner <suite> [maxIterations] [seed]");
+            System.exit(1);
+        }
+
+        PositionSuite suite;
+        try {
+            suite = PositionSuite.read(Files.newBufferedReader(
+                    Paths.get(args[0]), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int maxIterations = args.length > 1 ? Integer.parseInt(args[1])
+                : 100_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        SolveTimeRunner runner = new SolveTimeRunner(
+                (id, it) -> new MctsPlayer(id, seed, it),
+                Jass.TRICKS_PER_TURN, maxIterations);
+        List<Result> results = runner.run(suite);
+
+        System.out.println("name,solved,iterations,millis,lastCard");
+        TreeSet<Long> times = new TreeSet<>();
+        for (Result r : results) {
+            System.out.println(String.format(Locale.ROOT, "%s,%b,%d,%.3f,%s",
+                    r.name(), r.isSolved(), r.iterations(), r.nanos() / 1e6,
+                    r.lastCard()));
+            if (r.isSolved())
+                times.add(r.nanos());
+        }
+
+        System.out.println();
+        System.out.println("millis,solveRate");
+        for (long t : times)
+            System.out.println(String.format(Locale.ROOT, "%.3f,%.4f",
+                    t / 1e6, solveRate(results, t)));
+    }
+}
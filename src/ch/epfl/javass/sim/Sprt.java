@@ -0,0 +1,176 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.Locale;
+
+/**
+ * Sequential probability ratio test between two hypotheses on the Elo
+ * difference of a candidate configuration against a baseline: H0 (the
+ * difference is elo0) and H1 (the difference is elo1). The games are added in
+ * pairs where the configurations swapped seats, each pair being scored by the
+ * share of its games won by the candidate (0, 1/2 or 1), and the
+ * log-likelihood ratio of the hypotheses is approximated from the mean and the
+ * variance of these scores (so that it also holds for duplicate deals, whose
+ * games are not independent)
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class Sprt {
+
+    /**
+     * Outcomes of the test
+     */
+    public enum Outcome {
+        ACCEPT_H0, ACCEPT_H1, CONTINUE;
+    }
+
+    // Virtual pairs of each score, so that the variance is never zero (when
+    // all the first pairs have the same score)
+    private static final double PRIOR_PAIRS = 0.5;
+
+    private final double elo0, elo1;
+    private final double lowerBound, upperBound;
+    private final long[] pairs = new long[3];
+
+    /**
+     * Constructs a test without any game
+     *
+     * @param (elo0)
+     *            the Elo difference of the null hypothesis
+     * @param (elo1)
+     *            the Elo difference of the alternative hypothesis
+     * @param (alpha)
+     *            the probability of accepting H1 when H0 is true
+     * @param (beta)
+     *            the probability of accepting H0 when H1 is true
+     * @throws IllegalArgumentException
+     *             if elo0 is not smaller than elo1 or if alpha or beta is not
+     *             strictly between 0 and 1/2
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        checkArgument(elo0 < elo1 && 0 < alpha && alpha < 0.5 && 0 < beta
+                && beta < 0.5);
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    private Sprt(Sprt that) {
+        this.elo0 = that.elo0;
+        this.elo1 = that.elo1;
+        this.lowerBound = that.lowerBound;
+        this.upperBound = that.upperBound;
+        System.arraycopy(that.pairs, 0, pairs, 0, pairs.length);
+    }
+
+    /**
+     * Adds a pair of games to the test
+     *
+     * @param (candidateWins)
+     *            the number of games of the pair won by the candidate
+     * @throws IllegalArgumentException
+     *             if the number of wins is not 0, 1 or 2
+     */
+    public void add(int candidateWins) {
+        checkArgument(0 <= candidateWins && candidateWins <= 2);
+        ++pairs[candidateWins];
+    }
+
+    /**
+     * Returns a copy of this test
+     *
+     * @return a copy which is not modified when games are added to this test
+     */
+    public Sprt copy() {
+        return new Sprt(this);
+    }
+
+    /**
+     * Returns the number of pairs of games added to the test
+     *
+     * @return the number of pairs
+     */
+    public long pairsCount() {
+        return pairs[0] + pairs[1] + pairs[2];
+    }
+
+    /**
+     * Returns the share of the games won by the candidate
+     *
+     * @return the score of the candidate, or NaN if there is no game
+     */
+    public double score() {
+        return (pairs[1] / 2d + pairs[2]) / pairsCount();
+    }
+
+    /**
+     * Returns the log-likelihood ratio of H1 against H0
+     *
+     * @return the log-likelihood ratio (0 if there is no game)
+     */
+    public double llr() {
+        long n = pairsCount();
+        if (n == 0)
+            return 0;
+
+        double total = n + 3 * PRIOR_PAIRS;
+        double half = pairs[1] + PRIOR_PAIRS, full = pairs[2] + PRIOR_PAIRS;
+        double mean = (half / 2 + full) / total;
+        double variance = (half / 4 + full) / total - mean * mean;
+
+        double s0 = expectedScore(elo0), s1 = expectedScore(elo1);
+        return n * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * Getter for the bound under which H0 is accepted
+     *
+     * @return the lower bound of the log-likelihood ratio
+     */
+    public double lowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Getter for the bound above which H1 is accepted
+     *
+     * @return the upper bound of the log-likelihood ratio
+     */
+    public double upperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns the outcome of the test with the games added so far
+     *
+     * @return the accepted hypothesis, or CONTINUE if more games are needed
+     */
+    public Outcome outcome() {
+        double llr = llr();
+        return llr >= upperBound ? Outcome.ACCEPT_H1
+                : llr <= lowerBound ? Outcome.ACCEPT_H0 : Outcome.CONTINUE;
+    }
+
+    /**
+     * Returns the expected score of a configuration which has the given Elo
+     * difference with its opponent
+     *
+     * @param (elo)
+     *            the Elo difference
+     * @return the expected share of the games won by the configuration
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d pairs [%d %d %d], score %.3f, LLR %.2f (%.2f, %.2f) %s",
+                pairsCount(), pairs[0], pairs[1], pairs[2], score(), llr(),
+                lowerBound, upperBound, outcome());
+    }
+}
@@ -0,0 +1,205 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * Match between a candidate configuration and a baseline which stops as soon
+ * as a sequential probability ratio test accepts one of its hypotheses. The
+ * games are played in pairs where the configurations swap seats, in parallel,
+ * but their results are added to the test in order so that the match stops
+ * after the same pair whatever the number of threads
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class SprtMatch {
+
+    private final PlayerConfig candidate, baseline;
+    private final int threadsCount;
+    private boolean duplicateDeals = false;
+
+    /**
+     * Constructs a match
+     *
+     * @param (candidate)
+     *            the configuration tested
+     * @param (baseline)
+     *            the configuration it is compared to
+     * @param (threadsCount)
+     *            the number of threads playing the games
+     * @throws IllegalArgumentException
+     *             if there is no thread
+     */
+    public SprtMatch(PlayerConfig candidate, PlayerConfig baseline,
+            int threadsCount) {
+        checkArgument(threadsCount > 0);
+        this.candidate = candidate;
+        this.baseline = baseline;
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * Constructs a match using all the available processors
+     *
+     * @param (candidate)
+     *            the configuration tested
+     * @param (baseline)
+     *            the configuration it is compared to
+     */
+    public SprtMatch(PlayerConfig candidate, PlayerConfig baseline) {
+        this(candidate, baseline, Runtime.getRuntime().availableProcessors());
+    }
+
+    private SprtMatch(SprtMatch that) {
+        this.candidate = that.candidate;
+        this.baseline = that.baseline;
+        this.threadsCount = that.threadsCount;
+        this.duplicateDeals = that.duplicateDeals;
+    }
+
+    /**
+     * Returns a copy of this match which plays (or not) duplicate deals
+     *
+     * @param (duplicate)
+     *            true if both games of a pair have to be played with the same
+     *            deals
+     * @return a copy of this match with the given mode
+     */
+    public SprtMatch withDuplicateDeals(boolean duplicate) {
+        SprtMatch that = new SprtMatch(this);
+        that.duplicateDeals = duplicate;
+        return that;
+    }
+
+    /**
+     * Plays pairs of games until the test accepts a hypothesis or until the
+     * maximal number of pairs is reached
+     *
+     * @param (sprt)
+     *            the test, to which the pairs are added
+     * @param (seed)
+     *            the seed of the match
+     * @param (maxPairs)
+     *            the maximal number of pairs of games
+     * @param (progress)
+     *            called with a copy of the test after each pair
+     * @throws IllegalArgumentException
+     *             if the maximal number of pairs is negative
+     * @return the test
+     */
+    public Sprt run(Sprt sprt, long seed, long maxPairs,
+            Consumer<Sprt> progress) {
+        checkArgument(maxPairs >= 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount,
+                r -> {
+                    Thread t = new Thread(r);
+                    t.setDaemon(true);
+                    return t;
+                });
+        try {
+            // Keeps a few pairs ahead of the test for each thread, the ones
+            // beyond the end of the test being wasted
+            Deque<Future<Integer>> pending = new ArrayDeque<>();
+            long submitted = 0;
+            for (long k = 0; k < maxPairs
+                    && sprt.outcome() == Sprt.Outcome.CONTINUE; ++k) {
+                while (submitted < maxPairs
+                        && pending.size() < 2 * threadsCount) {
+                    long index = submitted++;
+                    pending.add(executor.submit(() -> playPair(seed, index)));
+                }
+                sprt.add(pending.remove().get());
+                progress.accept(sprt.copy());
+            }
+            return sprt;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays pairs of games until the test accepts a hypothesis or until the
+     * maximal number of pairs is reached
+     *
+     * @param (sprt)
+     *            the test, to which the pairs are added
+     * @param (seed)
+     *            the seed of the match
+     * @param (maxPairs)
+     *            the maximal number of pairs of games
+     * @throws IllegalArgumentException
+     *             if the maximal number of pairs is negative
+     * @return the test
+     */
+    public Sprt run(Sprt sprt, long seed, long maxPairs) {
+        return run(sprt, seed, maxPairs, s -> {
+        });
+    }
+
+    /*
+     * Plays the pair of games of the given index and returns the number of
+     * games the candidate won
+     */
+    private int playPair(long seed, long index) {
+        long firstSeed = BatchSimulator.gameSeed(seed, 2 * index);
+        long secondSeed = duplicateDeals ? firstSeed
+                : BatchSimulator.gameSeed(seed, 2 * index + 1);
+        int wins = 0;
+        if (Tournament.winner(Tournament.playGame(candidate, baseline,
+                firstSeed)) == TeamId.TEAM_1)
+            ++wins;
+        if (Tournament.winner(Tournament.playGame(baseline, candidate,
+                secondSeed)) == TeamId.TEAM_2)
+            ++wins;
+        return wins;
+    }
+
+    /**
+     * Plays a match (with alpha = beta = 0.05) and writes the progress of the
+     * test to the error output and its result to the standard output
+     *
+     * @param (args)
+     *            [--duplicate] elo0 elo1 maxPairs seed candidate baseline
+     */
+    public static void main(String[] args) {
+        int first = args.length > 0 && args[0].equals("--duplicate") ? 1 : 0;
+        if (args.length - first != 6) {
+            System.err.println(
+                    "Usage: SprtMatch [--duplicate] <elo0> <elo1> <maxPairs> <seed> <candidate> <baseline>");
+            System.err.println(
+                    "  where a configuration is name:random or name:mcts:iterations[:timeBudget]");
+            System.exit(1);
+        }
+
+        Sprt sprt = new Sprt(Double.parseDouble(args[first]),
+                Double.parseDouble(args[first + 1]), 0.05, 0.05);
+        long maxPairs = Long.parseLong(args[first + 2]);
+        long seed = Long.parseLong(args[first + 3]);
+        SprtMatch match = new SprtMatch(
+                PlayerConfig.ofString(args[first + 4]),
+                PlayerConfig.ofString(args[first + 5]))
+                        .withDuplicateDeals(first == 1);
+
+        match.run(sprt, seed, maxPairs, s -> {
+            if (s.pairsCount() % 10 == 0)
+                System.err.println(s);
+        });
+        System.out.println(sprt);
+    }
+}
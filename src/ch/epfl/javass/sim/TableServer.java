@@ -0,0 +1,402 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TurnState;
+
+/**
+ * Headless server playing many JassGames at the same time, each one on its own
+ * table. A table plays its games one after the other, pausing after each Trick
+ * like LocalMain does, on its own thread: a virtual thread when the Java
+ * runtime has them (Java 21 and later), so that thousands of tables waiting
+ * between Tricks cost almost nothing, and a platform thread otherwise.
+ *
+ * The search of the MctsPlayers is not done by the threads of the tables but
+ * by a bounded pool of platform threads, so that the virtual threads are never
+ * pinned by a long computation and the tables share the processors fairly.
+ *
+ * The game g of the table t has the seed gameSeed(seed, t * gamesPerTable + g)
+ * and is the same as the one played by Tournament.playGame with this seed
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class TableServer {
+
+    // The factory of virtual threads, or null if there are none
+    private static final ThreadFactory VIRTUAL_THREADS = virtualThreads();
+
+    // The stack size of the platform threads of the tables, which only need
+    // a small one
+    private static final long TABLE_STACK_SIZE = 256 * 1024;
+
+    private final PlayerConfig team1, team2;
+    private final int tablesCount;
+    private int gamesPerTable = 1;
+    private long trickPause = 0;
+    private int botThreadsCount = Runtime.getRuntime().availableProcessors();
+    private boolean virtualThreads = VIRTUAL_THREADS != null;
+    // Applied to each player of a game (only changed by the tests)
+    private UnaryOperator<Player> playerWrapper = UnaryOperator.identity();
+
+    /**
+     * Constructs a server whose tables play one game without pause
+     *
+     * @param (team1)
+     *            the configuration of the players of the first Team
+     * @param (team2)
+     *            the configuration of the players of the second Team
+     * @param (tablesCount)
+     *            the number of tables
+     * @throws IllegalArgumentException
+     *             if there is no table
+     */
+    public TableServer(PlayerConfig team1, PlayerConfig team2,
+            int tablesCount) {
+        checkArgument(tablesCount > 0);
+        this.team1 = team1;
+        this.team2 = team2;
+        this.tablesCount = tablesCount;
+    }
+
+    private TableServer(TableServer that) {
+        this.team1 = that.team1;
+        this.team2 = that.team2;
+        this.tablesCount = that.tablesCount;
+        this.gamesPerTable = that.gamesPerTable;
+        this.trickPause = that.trickPause;
+        this.botThreadsCount = that.botThreadsCount;
+        this.virtualThreads = that.virtualThreads;
+        this.playerWrapper = that.playerWrapper;
+    }
+
+    /**
+     * Returns true if the Java runtime has virtual threads
+     *
+     * @return true if the tables can be played on virtual threads
+     */
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    /**
+     * Returns a copy of this server whose tables play the given number of
+     * games
+     *
+     * @param (gamesPerTable)
+     *            the number of games played by each table
+     * @throws IllegalArgumentException
+     *             if there is no game per table
+     * @return a copy of this server with the given number of games
+     */
+    public TableServer withGamesPerTable(int gamesPerTable) {
+        checkArgument(gamesPerTable > 0);
+        TableServer that = new TableServer(this);
+        that.gamesPerTable = gamesPerTable;
+        return that;
+    }
+
+    /**
+     * Returns a copy of this server whose tables pause after each Trick
+     *
+     * @param (trickPause)
+     *            the time (in milliseconds) a table waits after each Trick
+     * @throws IllegalArgumentException
+     *             if the pause is negative
+     * @return a copy of this server with the given pause
+     */
+    public TableServer withTrickPause(long trickPause) {
+        checkArgument(trickPause >= 0);
+        TableServer that = new TableServer(this);
+        that.trickPause = trickPause;
+        return that;
+    }
+
+    /**
+     * Returns a copy of this server whose MctsPlayers search with the given
+     * number of threads
+     *
+     * @param (botThreadsCount)
+     *            the number of platform threads shared by the MctsPlayers of
+     *            all the tables
+     * @throws IllegalArgumentException
+     *             if there is no thread
+     * @return a copy of this server with the given number of threads
+     */
+    public TableServer withBotThreads(int botThreadsCount) {
+        checkArgument(botThreadsCount > 0);
+        TableServer that = new TableServer(this);
+        that.botThreadsCount = botThreadsCount;
+        return that;
+    }
+
+    /**
+     * Returns a copy of this server which plays its tables on virtual threads
+     * or on platform threads
+     *
+     * @param (virtualThreads)
+     *            true if the tables have to be played on virtual threads
+     * @throws IllegalArgumentException
+     *             if virtual threads are asked for and the Java runtime has
+     *             none
+     * @return a copy of this server with the given threads
+     */
+    public TableServer withVirtualThreads(boolean virtualThreads) {
+        checkArgument(!virtualThreads || hasVirtualThreads());
+        TableServer that = new TableServer(this);
+        that.virtualThreads = virtualThreads;
+        return that;
+    }
+
+    /*
+     * Returns a copy of this server whose players are wrapped by the given
+     * function, so that the tests can make them fail
+     */
+    TableServer withPlayerWrapper(UnaryOperator<Player> playerWrapper) {
+        TableServer that = new TableServer(this);
+        that.playerWrapper = playerWrapper;
+        return that;
+    }
+
+    /**
+     * Plays all the games of all the tables. If the thread calling this
+     * method is interrupted, the tables are stopped (the games they were
+     * playing are not counted) and the statistics of the games already played
+     * are returned, the thread staying interrupted. If a game fails, the other
+     * tables are stopped and its exception is thrown
+     *
+     * @param (seed)
+     *            the seed of the games
+     * @param (progress)
+     *            called with a copy of the statistics after each game, by the
+     *            thread of the table (thus maybe by several tables at the same
+     *            time, the copies not always arriving in the order of their
+     *            games counts)
+     * @throws RuntimeException
+     *             the first exception thrown by a table (for example the
+     *             IllegalStateException of a failed MctsPlayer or an
+     *             exception of the progress), once all the tables are stopped
+     * @return the statistics of the games played
+     */
+    public BatchStatistics run(long seed, Consumer<BatchStatistics> progress) {
+        BatchStatistics statistics = new BatchStatistics();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ExecutorService bots = Executors.newFixedThreadPool(botThreadsCount,
+                r -> {
+                    Thread t = new Thread(r, "table-bot");
+                    t.setDaemon(true);
+                    return t;
+                });
+        ThreadFactory tableThreads = virtualThreads ? VIRTUAL_THREADS : r -> {
+            Thread t = new Thread(null, r, "table", TABLE_STACK_SIZE);
+            t.setDaemon(true);
+            return t;
+        };
+
+        // All the tables are created before the first one starts, so that a
+        // failing table can stop the others
+        List<Thread> tables = new ArrayList<>();
+        try {
+            for (int t = 0; t < tablesCount; ++t) {
+                long firstGame = (long) t * gamesPerTable;
+                Thread table = tableThreads.newThread(() -> {
+                    try {
+                        for (int g = 0; g < gamesPerTable; ++g) {
+                            long score = playGame(
+                                    BatchSimulator.gameSeed(seed,
+                                            firstGame + g),
+                                    bots);
+                            // The progress is told outside of the lock, so
+                            // that a slow one doesn't stop the other tables
+                            BatchStatistics copy;
+                            synchronized (statistics) {
+                                statistics.add(score);
+                                copy = statistics.copy();
+                            }
+                            progress.accept(copy);
+                        }
+                    } catch (InterruptedException | CancellationException e) {
+                        // The table was stopped
+                    } catch (RuntimeException e) {
+                        if (failure.compareAndSet(null, e))
+                            for (Thread other : tables)
+                                other.interrupt();
+                    }
+                });
+                tables.add(table);
+            }
+            for (Thread table : tables)
+                table.start();
+            for (Thread table : tables)
+                table.join();
+        } catch (InterruptedException e) {
+            for (Thread table : tables)
+                table.interrupt();
+            joinUninterruptibly(tables);
+            Thread.currentThread().interrupt();
+        } finally {
+            bots.shutdownNow();
+        }
+
+        if (failure.get() != null)
+            throw failure.get();
+        synchronized (statistics) {
+            return statistics.copy();
+        }
+    }
+
+    /**
+     * Plays all the games of all the tables
+     *
+     * @param (seed)
+     *            the seed of the games
+     * @return the statistics of the games played
+     */
+    public BatchStatistics run(long seed) {
+        return run(seed, s -> {
+        });
+    }
+
+    private static void joinUninterruptibly(List<Thread> tables) {
+        for (Thread table : tables) {
+            while (table.isAlive()) {
+                try {
+                    table.join();
+                } catch (InterruptedException e) {
+                    // The tables were already stopped
+                }
+            }
+        }
+    }
+
+    /*
+     * Plays a game on the thread of a table, the MctsPlayers searching on the
+     * given pool
+     */
+    private long playGame(long gameSeed, ExecutorService bots)
+            throws InterruptedException {
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId p : PlayerId.ALL) {
+            PlayerConfig c = p.team() == TeamId.TEAM_1 ? team1 : team2;
+            Player player = c.newPlayer(p,
+                    BatchSimulator.gameSeed(gameSeed, p.ordinal()));
+            players.put(p, playerWrapper.apply(
+                    c.kind() == PlayerConfig.Kind.MCTS
+                            ? new OffloadedPlayer(player, bots)
+                            : player));
+            names.put(p, c.name());
+        }
+        Tournament.ScoreRecorder recorder = new Tournament.ScoreRecorder(
+                players.get(PlayerId.PLAYER_1));
+        players.put(PlayerId.PLAYER_1, recorder);
+
+        JassGame game = new JassGame(gameSeed, players, names);
+        while (!game.isGameOver()) {
+            game.advanceToEndOfNextTrick();
+            if (trickPause > 0)
+                Thread.sleep(trickPause);
+            else if (Thread.interrupted())
+                throw new InterruptedException();
+        }
+        return recorder.lastScore();
+    }
+
+    private static ThreadFactory virtualThreads() {
+        // Thread.ofVirtual().factory(), which doesn't exist before Java 21
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Chooses its Cards on a pool of threads, the thread of the table waiting
+     * for them without doing the search itself. When the table is stopped,
+     * the search is cancelled by interrupting its thread, which an MctsPlayer
+     * checks at each iteration
+     */
+    private static final class OffloadedPlayer extends ForwardingPlayer {
+        private final ExecutorService pool;
+
+        OffloadedPlayer(Player underlyingPlayer, ExecutorService pool) {
+            super(underlyingPlayer);
+            this.pool = pool;
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            Future<Card> card = pool
+                    .submit(() -> super.cardToPlay(state, hand));
+            try {
+                return card.get();
+            } catch (InterruptedException e) {
+                card.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Plays the games of many tables and writes their statistics to the
+     * standard output
+     *
+     * @param (args)
+     *            [--pause ms] tablesCount gamesPerTable seed team1 team2
+     */
+    public static void main(String[] args) {
+        long pause = 0;
+        int first = 0;
+        if (args.length > 1 && args[0].equals("--pause")) {
+            pause = Long.parseLong(args[1]);
+            first = 2;
+        }
+        if (args.length - first != 5) {
+            System.err.println(
+                    "Usage: TableServer [--pause ms] <tables> <gamesPerTable> <seed> <team1> <team2>");
+            System.err.println(
+                    "  where team is name:random or name:mcts:iterations[:timeBudget]");
+            System.exit(1);
+        }
+
+        TableServer server = new TableServer(
+                PlayerConfig.ofString(args[first + 3]),
+                PlayerConfig.ofString(args[first + 4]),
+                Integer.parseInt(args[first]))
+                        .withGamesPerTable(Integer.parseInt(args[first + 1]))
+                        .withTrickPause(pause);
+        long start = System.nanoTime();
+        BatchStatistics s = server.run(Long.parseLong(args[first + 2]));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(s);
+        System.out.printf("%.1f s (%s threads), %.1f games/s%n", seconds,
+                hasVirtualThreads() ? "virtual" : "platform",
+                s.gamesCount() / seconds);
+    }
+}
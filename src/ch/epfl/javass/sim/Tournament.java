@@ -0,0 +1,316 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkArgument;
+
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ch.epfl.javass.jass.Jass;
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.PackedScore;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+
+/**
+ * Round-robin tournament between player configurations: each pair of
+ * configurations plays the same number of JassGames, the configurations
+ * taking turns at being the first Team. Every game has its own seed (derived
+ * from the seed of the tournament and the index of the game), so the games are
+ * independent and played in parallel.
+ *
+ * With duplicate deals, the games of a pair are played two by two with the
+ * same seed, so that both configurations get the same Cards (and trumps) in
+ * turn, and the results are also compared per deal
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class Tournament {
+
+    private final List<PlayerConfig> configs;
+    private final int gamesPerPair;
+    private final int threadsCount;
+    private boolean duplicateDeals = false;
+
+    /**
+     * Constructs a tournament
+     *
+     * @param (configs)
+     *            the configurations taking part in the tournament
+     * @param (gamesPerPair)
+     *            the number of games played by each pair of configurations
+     * @param (threadsCount)
+     *            the number of threads playing the games
+     * @throws IllegalArgumentException
+     *             if there are less than two configurations, if two of them
+     *             have the same name, if there is no game per pair or if there
+     *             is no thread
+     */
+    public Tournament(List<PlayerConfig> configs, int gamesPerPair,
+            int threadsCount) {
+        checkArgument(configs.size() >= 2 && gamesPerPair > 0
+                && threadsCount > 0);
+        HashSet<String> names = new HashSet<>();
+        for (PlayerConfig c : configs)
+            checkArgument(names.add(c.name()));
+
+        this.configs = Collections.unmodifiableList(new ArrayList<>(configs));
+        this.gamesPerPair = gamesPerPair;
+        this.threadsCount = threadsCount;
+    }
+
+    private Tournament(Tournament that) {
+        this.configs = that.configs;
+        this.gamesPerPair = that.gamesPerPair;
+        this.threadsCount = that.threadsCount;
+        this.duplicateDeals = that.duplicateDeals;
+    }
+
+    /**
+     * Constructs a tournament using all the available processors
+     *
+     * @param (configs)
+     *            the configurations taking part in the tournament
+     * @param (gamesPerPair)
+     *            the number of games played by each pair of configurations
+     * @throws IllegalArgumentException
+     *             if there are less than two configurations, if two of them
+     *             have the same name or if there is no game per pair
+     */
+    public Tournament(List<PlayerConfig> configs, int gamesPerPair) {
+        this(configs, gamesPerPair, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a copy of this tournament which plays (or not) duplicate deals
+     *
+     * @param (duplicate)
+     *            true if each deal has to be played twice, the configurations
+     *            swapping seats
+     * @throws IllegalArgumentException
+     *             if duplicate deals are asked for and the number of games per
+     *             pair is odd
+     * @return a copy of this tournament with the given mode
+     */
+    public Tournament withDuplicateDeals(boolean duplicate) {
+        checkArgument(!duplicate || gamesPerPair % 2 == 0);
+        Tournament that = new Tournament(this);
+        that.duplicateDeals = duplicate;
+        return that;
+    }
+
+    /**
+     * Plays all the games of the tournament
+     *
+     * @param (seed)
+     *            the seed of the tournament
+     * @return the results of the tournament
+     */
+    public TournamentResult run(long seed) {
+        int n = configs.size();
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < n; ++i)
+            for (int j = i + 1; j < n; ++j)
+                pairs.add(new int[] { i, j });
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount,
+                r -> {
+                    Thread t = new Thread(r);
+                    t.setDaemon(true);
+                    return t;
+                });
+        try {
+            List<Future<Long>> scores = new ArrayList<>();
+            for (int q = 0; q < pairs.size(); ++q) {
+                int[] pair = pairs.get(q);
+                for (int k = 0; k < gamesPerPair; ++k) {
+                    // The configurations swap seats every game
+                    PlayerConfig team1 = configs.get(pair[k % 2]);
+                    PlayerConfig team2 = configs.get(pair[1 - k % 2]);
+                    // Both games of a duplicate deal have the seed of the
+                    // first one
+                    int seedIndex = duplicateDeals ? k - k % 2 : k;
+                    long gameSeed = BatchSimulator.gameSeed(seed,
+                            (long) q * gamesPerPair + seedIndex);
+                    scores.add(executor
+                            .submit(() -> playGame(team1, team2, gameSeed)));
+                }
+            }
+
+            long[][] games = new long[n][n];
+            long[][] wins = new long[n][n];
+            DuplicateStatistics[][] duplicates = duplicateDeals
+                    ? new DuplicateStatistics[n][n]
+                    : null;
+            int g = 0;
+            for (int[] pair : pairs) {
+                int i = pair[0], j = pair[1];
+                if (duplicateDeals) {
+                    duplicates[i][j] = new DuplicateStatistics();
+                    duplicates[j][i] = new DuplicateStatistics();
+                }
+                int previousMargin = 0;
+                for (int k = 0; k < gamesPerPair; ++k) {
+                    long score = scores.get(g++).get();
+                    boolean iWon = winner(score) == (k % 2 == 0
+                            ? TeamId.TEAM_1
+                            : TeamId.TEAM_2);
+                    ++games[i][j];
+                    ++games[j][i];
+                    ++wins[iWon ? i : j][iWon ? j : i];
+
+                    int margin = margin(score,
+                            k % 2 == 0 ? TeamId.TEAM_1 : TeamId.TEAM_2);
+                    if (duplicateDeals && k % 2 == 1) {
+                        duplicates[i][j].add(previousMargin, margin);
+                        duplicates[j][i].add(-previousMargin, -margin);
+                    }
+                    previousMargin = margin;
+                }
+            }
+
+            List<String> names = new ArrayList<>();
+            for (PlayerConfig c : configs)
+                names.add(c.name());
+            return new TournamentResult(names, games, wins, duplicates);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays a JassGame between two configurations
+     *
+     * @param (team1)
+     *            the configuration of the players of the first Team
+     * @param (team2)
+     *            the configuration of the players of the second Team
+     * @param (gameSeed)
+     *            the seed of the game (from which the seeds of the players are
+     *            also derived)
+     * @return the packed version of the Score at the end of the game
+     */
+    public static long playGame(PlayerConfig team1, PlayerConfig team2,
+            long gameSeed) {
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId p : PlayerId.ALL) {
+            PlayerConfig c = p.team() == TeamId.TEAM_1 ? team1 : team2;
+            players.put(p, c.newPlayer(p,
+                    BatchSimulator.gameSeed(gameSeed, p.ordinal())));
+            names.put(p, c.name());
+        }
+        ScoreRecorder recorder = new ScoreRecorder(
+                players.get(PlayerId.PLAYER_1));
+        players.put(PlayerId.PLAYER_1, recorder);
+
+        JassGame game = new JassGame(gameSeed, players, names);
+        while (!game.isGameOver())
+            game.advanceToEndOfNextTrick();
+        return recorder.lastScore();
+    }
+
+    /**
+     * Returns the Team which won a game
+     *
+     * @param (pkFinalScore)
+     *            the packed version of the Score at the end of the game
+     * @return the winning Team
+     */
+    public static TeamId winner(long pkFinalScore) {
+        return PackedScore.gamePoints(pkFinalScore,
+                TeamId.TEAM_1) >= Jass.WINNING_POINTS ? TeamId.TEAM_1
+                        : TeamId.TEAM_2;
+    }
+
+    private static int margin(long pkFinalScore, TeamId t) {
+        return PackedScore.gamePoints(pkFinalScore, t)
+                - PackedScore.gamePoints(pkFinalScore, t.other());
+    }
+
+    /*
+     * Keeps the last Score the underlying player was given
+     */
+    static final class ScoreRecorder extends ForwardingPlayer {
+        private long lastScore = PackedScore.INITIAL;
+
+        ScoreRecorder(Player underlyingPlayer) {
+            super(underlyingPlayer);
+        }
+
+        long lastScore() {
+            return lastScore;
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            lastScore = score.packed();
+            super.updateScore(score);
+        }
+    }
+
+    /**
+     * Plays a tournament and writes its results (as CSV, or as JSON with the
+     * --json option) to the standard output. With the --duplicate option, the
+     * deals are played twice and their statistics are also written to the
+     * error output
+     *
+     * @param (args)
+     *            [--json] [--duplicate] gamesPerPair seed config...
+     */
+    public static void main(String[] args) {
+        boolean json = false, duplicate = false;
+        int first = 0;
+        for (; first < args.length && args[first].startsWith("--"); ++first) {
+            json |= args[first].equals("--json");
+            duplicate |= args[first].equals("--duplicate");
+        }
+        if (args.length - first < 4) {
+            System.err.println(
+                    "Usage: Tournament [--json] [--duplicate] <gamesPerPair> <seed> <config> <config>...");
+            System.err.println(
+                    "  where config is name:random or name:mcts:iterations[:timeBudget]");
+            System.exit(1);
+        }
+
+        int gamesPerPair = Integer.parseInt(args[first]);
+        long seed = Long.parseLong(args[first + 1]);
+        List<PlayerConfig> configs = new ArrayList<>();
+        for (int i = first + 2; i < args.length; ++i)
+            configs.add(PlayerConfig.ofString(args[i]));
+
+        TournamentResult result = new Tournament(configs, gamesPerPair)
+                .withDuplicateDeals(duplicate).run(seed);
+        if (duplicate)
+            for (int i = 0; i < configs.size(); ++i)
+                for (int j = i + 1; j < configs.size(); ++j)
+                    System.err.println(result.name(i) + " vs " + result.name(j)
+                            + ": " + result.duplicateStatistics(i, j));
+
+        PrintWriter w = new PrintWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        if (json)
+            result.writeJson(w);
+        else
+            result.writeCsv(w);
+        w.flush();
+    }
+}
@@ -0,0 +1,324 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of a Tournament: the games played and won by each configuration
+ * against each other one, and the Elo ratings computed from them with the
+ * Bradley-Terry model
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class TournamentResult {
+
+    // Virtual wins given to both configurations of each pair which played
+    // (so that a configuration which won or lost all its games still has a
+    // finite rating)
+    private static final double PRIOR_WINS = 0.5;
+
+    private static final int MAX_ITERATIONS = 10_000;
+    private static final double TOLERANCE = 1e-12;
+
+    // Number of Elo points per unit of the logarithm of the strength
+    private static final double ELO_PER_LOG_STRENGTH = 400 / Math.log(10);
+
+    // Quantile of the normal distribution for a 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    private final List<String> names;
+    private final long[][] games;
+    private final long[][] wins;
+    private final DuplicateStatistics[][] duplicates;
+    private final double[] elos;
+    private final double[] errors;
+
+    /**
+     * Constructs the results of a tournament
+     *
+     * @param (names)
+     *            the names of the configurations
+     * @param (games)
+     *            the number of games played by each configuration against
+     *            each other one
+     * @param (wins)
+     *            the number of games won by each configuration against each
+     *            other one
+     * @param (duplicates)
+     *            the statistics of the duplicate deals played by each
+     *            configuration against each other one, or null if the deals
+     *            were not played twice
+     */
+    TournamentResult(List<String> names, long[][] games, long[][] wins,
+            DuplicateStatistics[][] duplicates) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.games = games;
+        this.wins = wins;
+        this.duplicates = duplicates;
+
+        int n = names.size();
+        double[] strengths = strengths();
+        elos = new double[n];
+        errors = new double[n];
+        for (int i = 0; i < n; ++i) {
+            elos[i] = ELO_PER_LOG_STRENGTH * Math.log(strengths[i]);
+
+            // Only the diagonal of the Fisher information is used, which
+            // ignores the uncertainty of the ratings of the opponents
+            double information = 0;
+            for (int j = 0; j < n; ++j)
+                if (games[i][j] > 0)
+                    information += (games[i][j] + 2 * PRIOR_WINS)
+                            * strengths[i] * strengths[j]
+                            / Math.pow(strengths[i] + strengths[j], 2);
+            errors[i] = Z_95 * ELO_PER_LOG_STRENGTH / Math.sqrt(information);
+        }
+    }
+
+    /*
+     * Computes the Bradley-Terry strengths of the configurations with the
+     * minorization-maximization algorithm, normalized so that their geometric
+     * mean is 1 (and so that the average Elo rating is 0)
+     */
+    private double[] strengths() {
+        int n = names.size();
+        double[] p = new double[n];
+        Arrays.fill(p, 1);
+        for (int it = 0; it < MAX_ITERATIONS; ++it) {
+            double[] next = new double[n];
+            double logSum = 0;
+            for (int i = 0; i < n; ++i) {
+                double w = 0, d = 0;
+                for (int j = 0; j < n; ++j) {
+                    if (games[i][j] == 0)
+                        continue;
+                    w += wins[i][j] + PRIOR_WINS;
+                    d += (games[i][j] + 2 * PRIOR_WINS) / (p[i] + p[j]);
+                }
+                next[i] = d == 0 ? 1 : w / d;
+                logSum += Math.log(next[i]);
+            }
+
+            double norm = Math.exp(logSum / n);
+            double change = 0;
+            for (int i = 0; i < n; ++i) {
+                next[i] /= norm;
+                change = Math.max(change, Math.abs(Math.log(next[i] / p[i])));
+            }
+            p = next;
+            if (change < TOLERANCE)
+                break;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the number of configurations
+     *
+     * @return the number of configurations
+     */
+    public int playersCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns the name of a configuration
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @return the name of the configuration
+     */
+    public String name(int i) {
+        return names.get(i);
+    }
+
+    /**
+     * Returns the number of games played by a configuration against another
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @param (j)
+     *            the index of its opponent
+     * @return the number of games played by i against j
+     */
+    public long gamesCount(int i, int j) {
+        return games[i][j];
+    }
+
+    /**
+     * Returns the number of games won by a configuration against another
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @param (j)
+     *            the index of its opponent
+     * @return the number of games won by i against j
+     */
+    public long winsCount(int i, int j) {
+        return wins[i][j];
+    }
+
+    /**
+     * Returns the statistics of the duplicate deals played by a configuration
+     * against another
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @param (j)
+     *            the index of its opponent
+     * @throws IllegalStateException
+     *             if the deals were not played twice
+     * @return the statistics of the deals from the point of view of i
+     */
+    public DuplicateStatistics duplicateStatistics(int i, int j) {
+        checkState(duplicates != null);
+        return duplicates[i][j];
+    }
+
+    /**
+     * Returns the number of games played by a configuration
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @return the number of games played by the configuration
+     */
+    public long gamesCount(int i) {
+        long count = 0;
+        for (long g : games[i])
+            count += g;
+        return count;
+    }
+
+    /**
+     * Returns the number of games won by a configuration
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @return the number of games won by the configuration
+     */
+    public long winsCount(int i) {
+        long count = 0;
+        for (long w : wins[i])
+            count += w;
+        return count;
+    }
+
+    /**
+     * Returns the Elo rating of a configuration (the ratings having an average
+     * of 0)
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @return the Elo rating of the configuration
+     */
+    public double elo(int i) {
+        return elos[i];
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the Elo rating
+     * of a configuration
+     *
+     * @param (i)
+     *            the index of the configuration
+     * @return the error of the Elo rating of the configuration (infinite if it
+     *         played no game)
+     */
+    public double eloError(int i) {
+        return errors[i];
+    }
+
+    /**
+     * Writes the ratings as CSV, with a line per configuration
+     *
+     * @param (w)
+     *            the Writer to write to
+     * @throws UncheckedIOException
+     *             in case of input/output error
+     */
+    public void writeCsv(Writer w) {
+        try {
+            w.write("name,elo,ci95,games,wins\n");
+            for (int i = 0; i < names.size(); ++i)
+                w.write(String.format(Locale.ROOT, "%s,%.1f,%.1f,%d,%d\n",
+                        names.get(i), elos[i], errors[i], gamesCount(i),
+                        winsCount(i)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the ratings and the results of each pair of configurations as
+     * JSON
+     *
+     * @param (w)
+     *            the Writer to write to
+     * @throws UncheckedIOException
+     *             in case of input/output error
+     */
+    public void writeJson(Writer w) {
+        int n = names.size();
+        StringBuilder b = new StringBuilder("{\"players\":[");
+        for (int i = 0; i < n; ++i)
+            b.append(i == 0 ? "" : ",")
+                    .append(String.format(Locale.ROOT,
+                            "{\"name\":%s,\"elo\":%.1f,\"ci95\":%.1f,\"games\":%d,\"wins\":%d}",
+                            jsonString(names.get(i)), elos[i], errors[i],
+                            gamesCount(i), winsCount(i)));
+        b.append("],\"pairs\":[");
+        String separator = "";
+        for (int i = 0; i < n; ++i)
+            for (int j = i + 1; j < n; ++j) {
+                b.append(separator).append(String.format(Locale.ROOT,
+                        "{\"player1\":%s,\"player2\":%s,\"games\":%d,\"wins1\":%d,\"wins2\":%d",
+                        jsonString(names.get(i)), jsonString(names.get(j)),
+                        games[i][j], wins[i][j], wins[j][i]));
+                if (duplicates != null) {
+                    DuplicateStatistics d = duplicates[i][j];
+                    b.append(String.format(Locale.ROOT,
+                            ",\"deals\":%d,\"margin1\":%.2f,\"marginCi95\":%.2f,\"varianceReduction\":%s",
+                            d.dealsCount(), d.averageMargin(),
+                            d.marginError(),
+                            jsonNumber(d.varianceReduction())));
+                }
+                b.append('}');
+                separator = ",";
+            }
+        b.append("]}\n");
+
+        try {
+            w.write(b.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // JSON has no infinite or NaN numbers
+    private static String jsonNumber(double d) {
+        return Double.isFinite(d) ? String.format(Locale.ROOT, "%.3f", d)
+                : "null";
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder b = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                b.append('\\').append(c);
+            else if (c < ' ')
+                b.append(String.format("\\u%04x", (int) c));
+            else
+                b.append(c);
+        }
+        return b.append('"').toString();
+    }
+}
@@ -0,0 +1,186 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.javass.jass.LinearValueFunction.FEATURES_COUNT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import ch.epfl.javass.jass.LinearValueFunction;
+import ch.epfl.javass.jass.PlayerId;
+
+/**
+ * Offline trainer of a LinearValueFunction from the records written by a
+ * SelfPlayRecorder. The weights are the (ridge regularized) least squares
+ * solution, computed from sums accumulated while reading the records so that
+ * logs of any size can be used
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class ValueFunctionTrainer {
+
+    /**
+     * Default regularization, small enough not to bias the weights but large
+     * enough for features that never vary in the records
+     */
+    public static final double DEFAULT_RIDGE = 1e-3;
+
+    private static final int BASE = 16;
+
+    private final double ridge;
+    private final double[][] xtx = new double[FEATURES_COUNT][FEATURES_COUNT];
+    private final double[] xty = new double[FEATURES_COUNT];
+    private final double[] features = new double[FEATURES_COUNT];
+    private long samplesCount = 0;
+
+    /**
+     * Constructs a trainer without any sample
+     *
+     * @param (ridge)
+     *            the regularization added to the diagonal of the system
+     */
+    public ValueFunctionTrainer(double ridge) {
+        this.ridge = ridge;
+    }
+
+    /**
+     * Adds one sample to the training set
+     *
+     * @param (pkScore)
+     *            the packed version of the Score of the sample
+     * @param (pkUnplayedCards)
+     *            the packed version of the unplayed cards of the sample
+     * @param (pkTrick)
+     *            the packed version of the Trick of the sample
+     * @param (pkHand)
+     *            the packed version of the hand of the player
+     * @param (ownId)
+     *            the player who was to play
+     * @param (turnPoints)
+     *            the points of the player's Team at the end of the Turn
+     */
+    public void addSample(long pkScore, long pkUnplayedCards, int pkTrick,
+            long pkHand, PlayerId ownId, int turnPoints) {
+        LinearValueFunction.features(pkScore, pkUnplayedCards, pkTrick, pkHand,
+                ownId, features);
+        for (int i = 0; i < FEATURES_COUNT; ++i) {
+            for (int j = 0; j < FEATURES_COUNT; ++j)
+                xtx[i][j] += features[i] * features[j];
+            xty[i] += features[i] * turnPoints;
+        }
+        ++samplesCount;
+    }
+
+    /**
+     * Adds all the records read from the given Reader
+     *
+     * @param (reader)
+     *            the Reader of the records
+     * @throws IOException
+     *             if the records cannot be read
+     * @throws IllegalArgumentException
+     *             if a record is not valid
+     */
+    public void addRecords(Reader reader) throws IOException {
+        BufferedReader r = new BufferedReader(reader);
+        String line;
+        while ((line = r.readLine()) != null) {
+            if (line.isEmpty())
+                continue;
+
+            String[] a = line.split(" ");
+            if (a.length != 6)
+                throw new IllegalArgumentException(line);
+            addSample(Long.parseUnsignedLong(a[0], BASE),
+                    Long.parseUnsignedLong(a[1], BASE),
+                    Integer.parseUnsignedInt(a[2], BASE),
+                    Long.parseUnsignedLong(a[3], BASE),
+                    PlayerId.ALL.get(Integer.parseInt(a[4])),
+                    Integer.parseInt(a[5]));
+        }
+    }
+
+    /**
+     * Returns the number of samples added so far
+     *
+     * @return the number of samples
+     */
+    public long samplesCount() {
+        return samplesCount;
+    }
+
+    /**
+     * Returns the value function fitting best the samples added so far
+     *
+     * @return the trained value function
+     */
+    public LinearValueFunction train() {
+        int n = FEATURES_COUNT;
+        double[][] a = new double[n][n + 1];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j)
+                a[i][j] = xtx[i][j];
+            a[i][i] += ridge;
+            a[i][n] = xty[i];
+        }
+
+        // Gaussian elimination with partial pivoting
+        for (int col = 0; col < n; ++col) {
+            int pivot = col;
+            for (int row = col + 1; row < n; ++row)
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col]))
+                    pivot = row;
+            double[] tmp = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmp;
+
+            if (a[col][col] == 0)
+                continue;
+            for (int row = col + 1; row < n; ++row) {
+                double f = a[row][col] / a[col][col];
+                for (int k = col; k <= n; ++k)
+                    a[row][k] -= f * a[col][k];
+            }
+        }
+
+        double[] weights = new double[n];
+        for (int row = n - 1; row >= 0; --row) {
+            double sum = a[row][n];
+            for (int k = row + 1; k < n; ++k)
+                sum -= a[row][k] * weights[k];
+            weights[row] = a[row][row] == 0 ? 0 : sum / a[row][row];
+        }
+        return LinearValueFunction.ofWeights(weights);
+    }
+
+    /**
+     * Trains a value function from the record files given as arguments and
+     * prints its weights, which can be read back with
+     * LinearValueFunction.ofString()
+     *
+     * @param args
+     *            the paths of the record files
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println(
+                    "Usage: ValueFunctionTrainer <records file>...");
+            System.exit(1);
+        }
+
+        ValueFunctionTrainer trainer = new ValueFunctionTrainer(DEFAULT_RIDGE);
+        for (String path : args)
+            try (Reader r = Files.newBufferedReader(Paths.get(path), UTF_8)) {
+                trainer.addRecords(r);
+            }
+
+        System.err.println(trainer.samplesCount() + " samples");
+        System.out.println(trainer.train());
+    }
+}
@@ -0,0 +1,315 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+
+public class AsyncJassGameTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    private static Map<PlayerId, String> names() {
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL)
+            names.put(pId, pId.name());
+        return names;
+    }
+
+    private static Map<PlayerId, RecordingPlayer> recordingPlayers() {
+        Map<PlayerId, RecordingPlayer> players = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL)
+            players.put(pId, new RecordingPlayer());
+        return players;
+    }
+
+    private static List<List<String>> logs(Map<PlayerId, RecordingPlayer> players) {
+        List<List<String>> logs = new ArrayList<>();
+        for (PlayerId pId : PlayerId.ALL)
+            logs.add(players.get(pId).log);
+        return logs;
+    }
+
+    private static List<List<String>> playSynchronously(long seed) {
+        Map<PlayerId, RecordingPlayer> players = recordingPlayers();
+        JassGame g = new JassGame(seed, new EnumMap<>(players), names());
+        while (!g.isGameOver())
+            g.advanceToEndOfNextTrick();
+        return logs(players);
+    }
+
+    private static List<List<String>> playAsynchronously(long seed, Function<Player, AsyncPlayer> adapter,
+            ExecutorService executor) throws Exception {
+        Map<PlayerId, RecordingPlayer> players = recordingPlayers();
+        Map<PlayerId, AsyncPlayer> asyncPlayers = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL)
+            asyncPlayers.put(pId, adapter.apply(players.get(pId)));
+        new AsyncJassGame(seed, asyncPlayers, names()).play(executor).get();
+        return logs(players);
+    }
+
+    @Test
+    void gamesGiveTheSameCallsAsJassGames() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                SplittableRandom rng = newRandom();
+                for (int i = 0; i < 20; ++i) {
+                    long seed = rng.nextLong();
+                    List<List<String>> expected = playSynchronously(seed);
+                    // Already completed futures, then futures completed by another thread
+                    assertEquals(expected, playAsynchronously(seed, AsyncPlayer::of, pool));
+                    assertEquals(expected, playAsynchronously(seed, p -> AsyncPlayer.of(p, pool), pool));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        });
+    }
+
+    @Test
+    void batchingPlayersGetTheSameBatchesAsInJassGames() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            SplittableRandom rng = newRandom();
+            for (int i = 0; i < 20; ++i) {
+                long seed = rng.nextLong();
+                // Players 1 and 3 receive their events in batches
+                Map<PlayerId, RecordingPlayer> syncPlayers = new EnumMap<>(PlayerId.class);
+                Map<PlayerId, RecordingPlayer> asyncPlayers = new EnumMap<>(PlayerId.class);
+                Map<PlayerId, Player> sync = new EnumMap<>(PlayerId.class);
+                Map<PlayerId, AsyncPlayer> async = new EnumMap<>(PlayerId.class);
+                for (PlayerId pId : PlayerId.ALL) {
+                    if (pId.ordinal() % 2 == 0) {
+                        BatchRecordingPlayer p = new BatchRecordingPlayer();
+                        syncPlayers.put(pId, new BatchRecordingPlayer());
+                        asyncPlayers.put(pId, p);
+                        async.put(pId, p);
+                    } else {
+                        syncPlayers.put(pId, new RecordingPlayer());
+                        asyncPlayers.put(pId, new RecordingPlayer());
+                        async.put(pId, AsyncPlayer.of(asyncPlayers.get(pId)));
+                    }
+                    sync.put(pId, syncPlayers.get(pId));
+                }
+                JassGame g = new JassGame(seed, sync, names());
+                while (!g.isGameOver())
+                    g.advanceToEndOfNextTrick();
+                TeamId winner = new AsyncJassGame(seed, async, names()).play(Runnable::run).get();
+
+                List<List<String>> expected = logs(syncPlayers);
+                assertEquals(expected, logs(asyncPlayers));
+                assertTrue(expected.get(0).contains("BTCH 2"));
+                assertEquals("WINR " + winner, expected.get(1).get(expected.get(1).size() - 1));
+            }
+        });
+    }
+
+    @Test
+    void asyncPlayersCanPlayInJassGames() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            ExecutorService pool = Executors.newSingleThreadExecutor();
+            try {
+                Map<PlayerId, RecordingPlayer> players = recordingPlayers();
+                Map<PlayerId, Player> asyncPlayers = new EnumMap<>(PlayerId.class);
+                for (PlayerId pId : PlayerId.ALL)
+                    asyncPlayers.put(pId, AsyncPlayer.of(players.get(pId), pool));
+                JassGame g = new JassGame(2019, asyncPlayers, names());
+                while (!g.isGameOver())
+                    g.advanceToEndOfNextTrick();
+                assertEquals(playSynchronously(2019), logs(players));
+            } finally {
+                pool.shutdown();
+            }
+        });
+    }
+
+    @Test
+    void aSmallPoolPlaysManySlowGames() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            int games = 200;
+            ScheduledExecutorService humans = Executors.newScheduledThreadPool(1);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                List<CompletableFuture<TeamId>> winners = new ArrayList<>();
+                for (int i = 0; i < games; ++i) {
+                    Map<PlayerId, AsyncPlayer> players = new EnumMap<>(PlayerId.class);
+                    for (PlayerId pId : PlayerId.ALL)
+                        players.put(pId, new SlowPlayer(humans));
+                    winners.add(new AsyncJassGame(i, players, names()).play(pool));
+                }
+                for (int i = 0; i < games; ++i) {
+                    Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+                    WinnerRecorder recorder = new WinnerRecorder();
+                    for (PlayerId pId : PlayerId.ALL)
+                        players.put(pId, recorder);
+                    JassGame g = new JassGame(i, players, names());
+                    while (!g.isGameOver())
+                        g.advanceToEndOfNextTrick();
+                    assertEquals(recorder.winner, winners.get(i).get());
+                }
+            } finally {
+                humans.shutdown();
+                pool.shutdown();
+            }
+        });
+    }
+
+    @Test
+    void gameFailsWhenAPlayerFails() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, AsyncPlayer> players = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL)
+                players.put(pId, AsyncPlayer.of(new RecordingPlayer()));
+            players.put(PlayerId.PLAYER_3, (s, h) -> CompletableFuture.failedFuture(new IllegalStateException()));
+            CompletableFuture<TeamId> winner = new AsyncJassGame(0, players, names()).play(Runnable::run);
+            ExecutionException e = assertThrows(ExecutionException.class, winner::get);
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        });
+    }
+
+    @Test
+    void gameCantBeStartedTwice() {
+        Map<PlayerId, AsyncPlayer> players = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL)
+            players.put(pId, AsyncPlayer.of(new RecordingPlayer()));
+        AsyncJassGame g = new AsyncJassGame(0, players, names());
+        g.play(Runnable::run);
+        assertThrows(IllegalStateException.class, () -> {
+            g.play(Runnable::run);
+        });
+    }
+
+    /*
+     * Plays the first playable Card after a short delay, without blocking a
+     * thread while it waits
+     */
+    private static final class SlowPlayer implements AsyncPlayer {
+        private final ScheduledExecutorService scheduler;
+
+        SlowPlayer(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public CompletableFuture<Card> cardToPlayAsync(TurnState state, CardSet hand) {
+            CompletableFuture<Card> card = new CompletableFuture<>();
+            scheduler.schedule(() -> card.complete(state.trick().playableCards(hand).get(0)), 1,
+                    TimeUnit.MILLISECONDS);
+            return card;
+        }
+    }
+
+    /*
+     * Logs the size of each batch before its events
+     */
+    private static final class BatchRecordingPlayer extends RecordingPlayer
+            implements AsyncPlayer, EventBatchPlayer {
+        @Override
+        public void handleEvents(List<GameEvent> events) {
+            log.add("BTCH " + events.size());
+            for (GameEvent e : events)
+                e.deliverTo(this);
+        }
+
+        @Override
+        public CompletableFuture<Card> cardToPlayAsync(TurnState state, CardSet hand) {
+            return CompletableFuture.completedFuture(cardToPlay(state, hand));
+        }
+
+        @Override
+        public CompletableFuture<Color> chooseTrumpAsync(CardSet hand) {
+            return CompletableFuture.completedFuture(chooseTrump(hand));
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            return super.cardToPlay(state, hand);
+        }
+
+        @Override
+        public Color chooseTrump(CardSet hand) {
+            return super.chooseTrump(hand);
+        }
+    }
+
+    private static final class WinnerRecorder implements Player {
+        TeamId winner;
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            return state.trick().playableCards(hand).get(0);
+        }
+
+        @Override
+        public void setWinningTeam(TeamId winningTeam) {
+            winner = winningTeam;
+        }
+    }
+
+    private static class RecordingPlayer implements Player {
+        final List<String> log = new ArrayList<>();
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            log.add("CARD " + state.packedScore() + " " + state.packedUnplayedCards() + " " + state.packedTrick());
+            CardSet playable = state.trick().playableCards(hand);
+            return playable.get(playable.size() - 1);
+        }
+
+        @Override
+        public Color chooseTrump(CardSet hand) {
+            // Chooses the Color of its first Card for the first Turns only
+            log.add("CHOOSE " + hand.packed());
+            return log.size() < 200 ? Color.ALL.get(Long.numberOfTrailingZeros(hand.packed()) / 16) : null;
+        }
+
+        @Override
+        public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+            // The names in the order of the players, whatever the Map
+            log.add("PLRS " + ownId + " " + new EnumMap<>(playerNames));
+        }
+
+        @Override
+        public void updateHand(CardSet newHand) {
+            log.add("HAND " + newHand.packed());
+        }
+
+        @Override
+        public void setTrump(Color trump) {
+            log.add("TRMP " + trump);
+        }
+
+        @Override
+        public void updateTrick(Trick newTrick) {
+            log.add("TRCK " + newTrick.packed());
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            log.add("SCOR " + score.packed());
+        }
+
+        @Override
+        public void setWinningTeam(TeamId winningTeam) {
+            log.add("WINR " + winningTeam);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+
+public class EventBatchPlayerTest {
+
+    private static Map<PlayerId, String> names() {
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL)
+            names.put(pId, pId.name());
+        return names;
+    }
+
+    private static void play(long seed, Map<PlayerId, Player> players) {
+        JassGame g = new JassGame(seed, players, names());
+        while (!g.isGameOver())
+            g.advanceToEndOfNextTrick();
+    }
+
+    @Test
+    void batchesContainTheSameNotificationsInTheSameOrder() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < 20; ++i) {
+            long seed = rng.nextLong();
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            List<RecordingPlayer> expected = new ArrayList<>();
+            for (PlayerId pId : PlayerId.ALL) {
+                RecordingPlayer p = new RecordingPlayer();
+                expected.add(p);
+                players.put(pId, p);
+            }
+            play(seed, players);
+
+            List<BatchRecordingPlayer> actual = new ArrayList<>();
+            for (PlayerId pId : PlayerId.ALL) {
+                // Only the even players receive batches
+                BatchRecordingPlayer p = new BatchRecordingPlayer();
+                actual.add(p);
+                players.put(pId, pId.ordinal() % 2 == 0 ? p : p.recorder);
+            }
+            play(seed, players);
+
+            for (int j = 0; j < PlayerId.COUNT; ++j)
+                assertEquals(expected.get(j).log, actual.get(j).recorder.log);
+        }
+    }
+
+    @Test
+    void batchesAreGivenBeforeEachChoiceAndAfterEachCard() {
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        List<BatchRecordingPlayer> batchPlayers = new ArrayList<>();
+        for (PlayerId pId : PlayerId.ALL) {
+            BatchRecordingPlayer p = new BatchRecordingPlayer();
+            batchPlayers.add(p);
+            players.put(pId, p);
+        }
+        play(2019, players);
+
+        for (BatchRecordingPlayer p : batchPlayers) {
+            int tricks = 0, events = 0;
+            for (String s : p.recorder.log) {
+                if (!s.startsWith("CARD") && !s.startsWith("CHOOSE"))
+                    ++events;
+                if (s.startsWith("SCOR"))
+                    ++tricks;
+            }
+            // A batch at most before the first Card of each Trick, after each
+            // Card played, at the end of the game and before each choice of
+            // trump
+            assertTrue(p.batchesCount <= 5 * tricks + 1 + p.chooseCount);
+            assertTrue(p.batchesCount < events);
+            assertFalse(p.emptyBatch);
+        }
+    }
+
+    @Test
+    void batchingObserverSeesEachCardBeforeTheNextPlayerIsAsked() {
+        BatchRecordingPlayer observer = new BatchRecordingPlayer();
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        List<Trick> askedTricks = new ArrayList<>();
+        players.put(PlayerId.PLAYER_1, observer);
+        for (PlayerId pId : PlayerId.ALL.subList(1, PlayerId.COUNT))
+            players.put(pId, new RecordingPlayer() {
+                @Override
+                public Card cardToPlay(TurnState state, CardSet hand) {
+                    askedTricks.add(state.trick());
+                    // The observer already knows every Card of the Trick
+                    assertEquals("TRCK " + state.packedTrick(), observer.lastTrick());
+                    return super.cardToPlay(state, hand);
+                }
+            });
+        play(2019, players);
+        assertTrue(askedTricks.stream().anyMatch(t -> t.size() > 0));
+    }
+
+    @Test
+    void batchesCantBeModified() {
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        List<List<GameEvent>> batches = new ArrayList<>();
+        for (PlayerId pId : PlayerId.ALL)
+            players.put(pId, new BatchRecordingPlayer() {
+                @Override
+                public void handleEvents(List<GameEvent> events) {
+                    batches.add(events);
+                    super.handleEvents(events);
+                }
+            });
+        JassGame g = new JassGame(0, players, names());
+        g.advanceToEndOfNextTrick();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            batches.get(0).add(GameEvent.trump(Color.HEART));
+        });
+    }
+
+    @Test
+    void eventsAreDeliveredAsNotifications() {
+        RecordingPlayer p = new RecordingPlayer();
+        Trick trick = Trick.firstEmpty(Color.CLUB, PlayerId.PLAYER_2);
+        List<GameEvent> events = List.of(GameEvent.players(PlayerId.PLAYER_3, names()),
+                GameEvent.hand(CardSet.ALL_CARDS), GameEvent.trump(Color.CLUB), GameEvent.trick(trick),
+                GameEvent.score(Score.INITIAL), GameEvent.winner(TeamId.TEAM_2));
+        EventBatchPlayer.deliver(events, p);
+
+        RecordingPlayer q = new RecordingPlayer();
+        q.setPlayers(PlayerId.PLAYER_3, names());
+        q.updateHand(CardSet.ALL_CARDS);
+        q.setTrump(Color.CLUB);
+        q.updateTrick(trick);
+        q.updateScore(Score.INITIAL);
+        q.setWinningTeam(TeamId.TEAM_2);
+        assertEquals(q.log, p.log);
+
+        assertEquals(GameEvent.trick(trick), GameEvent.trick(trick));
+        assertEquals(GameEvent.trick(trick).hashCode(), GameEvent.trick(trick).hashCode());
+        assertNotEquals(GameEvent.trump(Color.CLUB), GameEvent.winner(TeamId.TEAM_1));
+        assertEquals(GameEvent.Type.TRICK, GameEvent.trick(trick).type());
+    }
+
+    private static class BatchRecordingPlayer implements EventBatchPlayer {
+        final RecordingPlayer recorder = new RecordingPlayer();
+        int batchesCount = 0, chooseCount = 0;
+        boolean emptyBatch = false;
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            return recorder.cardToPlay(state, hand);
+        }
+
+        @Override
+        public Color chooseTrump(CardSet hand) {
+            ++chooseCount;
+            return recorder.chooseTrump(hand);
+        }
+
+        String lastTrick() {
+            for (int i = recorder.log.size() - 1; i >= 0; --i)
+                if (recorder.log.get(i).startsWith("TRCK"))
+                    return recorder.log.get(i);
+            return null;
+        }
+
+        @Override
+        public void handleEvents(List<GameEvent> events) {
+            ++batchesCount;
+            emptyBatch |= events.isEmpty();
+            for (GameEvent e : events)
+                e.deliverTo(recorder);
+        }
+    }
+
+    private static class RecordingPlayer implements Player {
+        final List<String> log = new ArrayList<>();
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            log.add("CARD " + state.packedTrick() + " " + hand.packed());
+            return state.trick().playableCards(hand).get(0);
+        }
+
+        @Override
+        public Color chooseTrump(CardSet hand) {
+            log.add("CHOOSE " + hand.packed());
+            return null;
+        }
+
+        @Override
+        public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+            log.add("PLRS " + ownId + " " + new EnumMap<>(playerNames));
+        }
+
+        @Override
+        public void updateHand(CardSet newHand) {
+            log.add("HAND " + newHand.packed());
+        }
+
+        @Override
+        public void setTrump(Color trump) {
+            log.add("TRMP " + trump);
+        }
+
+        @Override
+        public void updateTrick(Trick newTrick) {
+            log.add("TRCK " + newTrick.packed());
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            log.add("SCOR " + score.packed());
+        }
+
+        @Override
+        public void setWinningTeam(TeamId winningTeam) {
+            log.add("WINR " + winningTeam);
+        }
+    }
+}
@@ -256,6 +256,25 @@ public class JassGameTest {
         });
     }
 
+    @Test
+    void trumpChosenByFirstPlayerIsUsed() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            SplittableRandom rng = newRandom();
+            for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+                List<PlayerId> playingOrderLog = new ArrayList<>();
+                Map<PlayerId, TestPlayer> ps = testPlayers(playingOrderLog);
+                for (TestPlayer p: ps.values())
+                    p.chosenTrump = Color.ALL.get(p.ownId.ordinal());
+                JassGame g = new JassGame(rng.nextLong(), toNormalPlayers(ps), testPlayerNames());
+                g.advanceToEndOfNextTrick();
+                PlayerId firstPlayer = playingOrderLog.get(0);
+                for (TestPlayer p: ps.values())
+                    assertEquals(Color.ALL.get(firstPlayer.ordinal()), p.setTrumpTrump);
+                assertEquals(1, ps.get(firstPlayer).chooseTrumpCallCount);
+            }
+        });
+    }
+
     @SuppressWarnings("unused")
     private static class TestPlayer implements Player {
         final PlayerId ownId;
@@ -277,6 +296,9 @@ public class JassGameTest {
         int setTrumpCallCount = 0;
         Color setTrumpTrump = null;
 
+        int chooseTrumpCallCount = 0;
+        Color chosenTrump = null;
+
         int updateTrickCallCount = 0;
         Trick updateTrickNewTrick = null;
 
@@ -318,6 +340,12 @@ public class JassGameTest {
                 updateHandInitialHand = newHand;
         }
 
+        @Override
+        public Color chooseTrump(CardSet hand) {
+            chooseTrumpCallCount += 1;
+            return chosenTrump;
+        }
+
         @Override
         public void setTrump(Color trump) {
             setTrumpCallCount += 1;
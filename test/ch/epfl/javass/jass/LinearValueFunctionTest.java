@@ -0,0 +1,84 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+
+public class LinearValueFunctionTest {
+    private static double[] randomWeights(SplittableRandom rng) {
+        double[] weights = new double[LinearValueFunction.FEATURES_COUNT];
+        for (int i = 0; i < weights.length; ++i)
+            weights[i] = rng.nextDouble(-10, 10);
+        return weights;
+    }
+
+    @Test
+    void ofWeightsFailsWithWrongNumberOfWeights() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            LinearValueFunction.ofWeights(1, 2, 3);
+        });
+    }
+
+    @Test
+    void ofStringIsInverseOfToString() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            LinearValueFunction f = LinearValueFunction.ofWeights(randomWeights(rng));
+            assertEquals(f, LinearValueFunction.ofString(f.toString()));
+        }
+    }
+
+    @Test
+    void evaluateIsWeightedSumOfFeatures() {
+        SplittableRandom rng = newRandom();
+        double[] features = new double[LinearValueFunction.FEATURES_COUNT];
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            double[] weights = randomWeights(rng);
+            LinearValueFunction f = LinearValueFunction.ofWeights(weights);
+
+            TurnState state = TurnState.initial(Color.ALL.get(rng.nextInt(4)), Score.INITIAL, PlayerId.ALL.get(rng.nextInt(4)));
+            int cards = rng.nextInt(30);
+            for (int j = 0; j < cards; ++j) {
+                CardSet playable = state.trick().playableCards(state.unplayedCards());
+                state = state.withNewCardPlayedAndTrickCollected(playable.get(rng.nextInt(playable.size())));
+            }
+            long hand = PackedCardSet.subsetOfColor(state.packedUnplayedCards(), Color.ALL.get(rng.nextInt(4)));
+            PlayerId ownId = PlayerId.ALL.get(rng.nextInt(4));
+
+            LinearValueFunction.features(state.packedScore(), state.packedUnplayedCards(), state.packedTrick(), hand, ownId, features);
+            double expected = 0;
+            for (int j = 0; j < weights.length; ++j)
+                expected += weights[j] * features[j];
+            assertEquals(expected, f.evaluate(state.packedScore(), state.packedUnplayedCards(), state.packedTrick(), hand, ownId), 1e-9);
+        }
+    }
+
+    @Test
+    void evaluateGivesTurnPointsOfTerminalState() {
+        LinearValueFunction f = LinearValueFunction.ofWeights(new double[LinearValueFunction.FEATURES_COUNT]);
+        long score = PackedScore.pack(5, 100, 0, 4, 57, 0);
+        assertEquals(100, f.evaluate(score, PackedCardSet.EMPTY, PackedTrick.INVALID, PackedCardSet.EMPTY, PlayerId.PLAYER_1));
+        assertEquals(57, f.evaluate(score, PackedCardSet.EMPTY, PackedTrick.INVALID, PackedCardSet.EMPTY, PlayerId.PLAYER_2));
+    }
+
+    @Test
+    void masterCardsAreCounted() {
+        double[] features = new double[LinearValueFunction.FEATURES_COUNT];
+        long hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.ACE))
+                .add(Card.of(Color.HEART, Rank.JACK))
+                .add(Card.of(Color.CLUB, Rank.KING))
+                .packed();
+        int trick = PackedTrick.firstEmpty(Color.HEART, PlayerId.PLAYER_1);
+        LinearValueFunction.features(PackedScore.INITIAL, PackedCardSet.ALL_CARDS, trick, hand, PlayerId.PLAYER_1, features);
+        assertEquals(2, features[5]);
+    }
+}
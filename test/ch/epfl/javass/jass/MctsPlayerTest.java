@@ -1,10 +1,14 @@
 package ch.epfl.javass.jass;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -27,6 +31,25 @@ public class MctsPlayerTest {
         }
     }
 
+    @Test
+    void interruptedSearchStopsEarly() {
+        MctsPlayer heap = new MctsPlayer(PlayerId.PLAYER_2, SEED, 100_000_000);
+        MctsPlayer offHeap = new MctsPlayer(PlayerId.PLAYER_2, SEED, 100_000_000)
+                .withOffHeapTree(1 << 20);
+        TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK));
+        CardSet hand = CardSet.ALL_CARDS.subsetOfColor(Color.HEART)
+                .add(Card.of(Color.SPADE, Rank.EIGHT));
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (MctsPlayer p : new MctsPlayer[] { heap, offHeap }) {
+                Thread.currentThread().interrupt();
+                Card c = p.cardToPlay(state, hand);
+                assertTrue(Thread.interrupted());
+                assertTrue(state.trick().playableCards(hand).contains(c));
+            }
+        });
+    }
+
     @Test
     void mctsPlayerPlaysCorrectly1() {
         // Opponent team will win this trick, we have to minimize loss
@@ -398,10 +421,283 @@ public class MctsPlayerTest {
         });
     }
 
+    @Test
+    void withPonderingFailsWithInvalidCpuShare() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, ITERATIONS);
+        assertThrows(IllegalArgumentException.class, () -> {
+            p.withPondering(-0.5);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            p.withPondering(1.5);
+        });
+    }
+
+    @Test
+    void withRolloutsPerLeafFailsWithoutRollouts() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, ITERATIONS);
+        assertThrows(IllegalArgumentException.class, () -> {
+            p.withRolloutsPerLeaf(0);
+        });
+    }
+
+    @Test
+    void mctsPlayerWithBatchedRolloutsPlaysCorrectly() {
+        // Same as mctsPlayerPlaysCorrectly2, with 4 rollouts per new node
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_4, SEED, ITERATIONS / 4)
+                .withRolloutsPerLeaf(4);
+        TurnState state = TurnState.initial(Color.CLUB, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.QUEEN))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX));
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.EIGHT))
+                .add(Card.of(Color.SPADE, Rank.NINE))
+                .add(Card.of(Color.SPADE, Rank.TEN))
+                .add(Card.of(Color.CLUB, Rank.SIX))
+                .add(Card.of(Color.HEART, Rank.SEVEN))
+                .add(Card.of(Color.HEART, Rank.EIGHT))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.TEN))
+                .add(Card.of(Color.HEART, Rank.JACK));
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Card c = p.cardToPlay(state, hand);
+            assertEquals(Card.of(Color.SPADE, Rank.TEN), c);
+        });
+    }
+
+    @Test
+    void vectorRolloutsPlayTheCardsOfScalarRollouts() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL) {
+                MctsPlayer scalar = new MctsPlayer(pId, SEED, 200).withRolloutsPerLeaf(pId.ordinal() + 4);
+                players.put(pId, new ComparingPlayer(scalar, scalar.withVectorRollouts(true)));
+                names.put(pId, pId.name());
+            }
+
+            JassGame g = new JassGame(SEED, players, names);
+            for (int i = 0; i < 2 * Jass.TRICKS_PER_TURN; ++i)
+                g.advanceToEndOfNextTrick();
+        });
+    }
+
+    @Test
+    void ponderingPlayersOnlyPlayPlayableCards() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL) {
+                players.put(pId, new CheckingPlayer(new MctsPlayer(pId, SEED,
+                        100).withPondering(pId.ordinal() % 2 == 0 ? 1 : 0.5)));
+                names.put(pId, pId.name());
+            }
+
+            JassGame g = new JassGame(SEED, players, names);
+            for (int i = 0; i < 2 * Jass.TRICKS_PER_TURN; ++i)
+                g.advanceToEndOfNextTrick();
+            for (Player p : players.values())
+                ((CheckingPlayer) p).underlyingPlayer.stopPondering();
+        });
+    }
+
+    @Test
+    void treeBuiltWhilePonderingIsKeptAfterAnOpponentPlays() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, 2_000).withPondering(1);
+            Trick trick = Trick.firstEmpty(Color.HEART, PlayerId.PLAYER_4);
+            p.updateHand(CardSet.ALL_CARDS.subsetOfColor(Color.SPADE));
+            p.updateScore(Score.INITIAL);
+            p.updateTrick(trick);
+            while (p.isPondering())
+                Thread.sleep(10);
+            int before = p.searchedTurns();
+            assertTrue(before >= 2_000);
+
+            // The root becomes the child of the Card played, and as the player
+            // is next to play, no background search adds to it
+            p.updateTrick(trick.withAddedCard(Card.of(Color.HEART, Rank.SIX)));
+            assertFalse(p.isPondering());
+            int after = p.searchedTurns();
+            assertTrue(after > 0 && after < before);
+        });
+    }
+
+    @Test
+    void playerWithoutPonderingDoesntSearchInTheBackground() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, 2_000).withPondering(1).withPondering(0);
+        p.updateHand(CardSet.ALL_CARDS.subsetOfColor(Color.SPADE));
+        p.updateScore(Score.INITIAL);
+        p.updateTrick(Trick.firstEmpty(Color.HEART, PlayerId.PLAYER_2));
+        assertFalse(p.isPondering());
+        assertEquals(0, p.searchedTurns());
+    }
+
+    @Test
+    void withOffHeapTreeFailsWithTooSmallBuffer() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, ITERATIONS);
+        assertThrows(IllegalArgumentException.class, () -> {
+            p.withOffHeapTree(MctsPlayer.OFF_HEAP_NODE_BYTES - 1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            p.withOffHeapTree(-1);
+        });
+    }
+
+    @Test
+    void offHeapTreePlaysLikeHeapTree() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL) {
+                MctsPlayer heap = new MctsPlayer(pId, SEED, 200).withRolloutsPerLeaf(pId.ordinal() + 1);
+                players.put(pId, new ComparingPlayer(heap, heap.withOffHeapTree(1 << 20)));
+                names.put(pId, pId.name());
+            }
+
+            JassGame g = new JassGame(SEED, players, names);
+            for (int i = 0; i < 2 * Jass.TRICKS_PER_TURN; ++i)
+                g.advanceToEndOfNextTrick();
+        });
+    }
+
+    @Test
+    void offHeapPlayersWithFullTreeOnlyPlayPlayableCards() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL) {
+                players.put(pId, new CheckingPlayer(new MctsPlayer(pId, SEED, ITERATIONS)
+                        .withOffHeapTree((pId.ordinal() + 1) * MctsPlayer.OFF_HEAP_NODE_BYTES)));
+                names.put(pId, pId.name());
+            }
+
+            JassGame g = new JassGame(SEED, players, names);
+            for (int i = 0; i < 2 * Jass.TRICKS_PER_TURN; ++i)
+                g.advanceToEndOfNextTrick();
+        });
+    }
+
+    @Test
+    void withNodeBudgetFailsWithoutNodes() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_1, SEED, ITERATIONS);
+        assertThrows(IllegalArgumentException.class, () -> {
+            p.withNodeBudget(0);
+        });
+    }
+
+    // Same state as in mctsPlayerPlaysCorrectly2
+    private static final TurnState BUDGET_STATE = TurnState.initial(Color.CLUB, Score.INITIAL, PlayerId.PLAYER_1)
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK))
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.QUEEN))
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX));
+    private static final CardSet BUDGET_HAND = CardSet.EMPTY
+            .add(Card.of(Color.SPADE, Rank.EIGHT))
+            .add(Card.of(Color.SPADE, Rank.NINE))
+            .add(Card.of(Color.SPADE, Rank.TEN))
+            .add(Card.of(Color.CLUB, Rank.SIX))
+            .add(Card.of(Color.HEART, Rank.SEVEN))
+            .add(Card.of(Color.HEART, Rank.EIGHT))
+            .add(Card.of(Color.HEART, Rank.NINE))
+            .add(Card.of(Color.HEART, Rank.TEN))
+            .add(Card.of(Color.HEART, Rank.JACK));
+
+    @Test
+    void nodeBudgetIsRespected() {
+        for (int budget : new int[] { 1, 10, 500 }) {
+            MctsPlayer heap = new MctsPlayer(PlayerId.PLAYER_4, SEED, 2_000).withNodeBudget(budget);
+            MctsPlayer offHeap = heap.withOffHeapTree(1 << 20);
+            assertTimeoutPreemptively(TIMEOUT, () -> {
+                assertEquals(heap.cardToPlay(BUDGET_STATE, BUDGET_HAND),
+                        offHeap.cardToPlay(BUDGET_STATE, BUDGET_HAND));
+            });
+            assertEquals(budget, heap.nodesHighWaterMark());
+            assertEquals(budget, offHeap.nodesHighWaterMark());
+        }
+    }
+
+    @Test
+    void nodesHighWaterMarkIsTheLargestTree() {
+        MctsPlayer p = new MctsPlayer(PlayerId.PLAYER_4, SEED, 2_000);
+        assertEquals(0, p.nodesHighWaterMark());
+        p.cardToPlay(BUDGET_STATE, BUDGET_HAND);
+        // One node per iteration and the root
+        assertEquals(2_001, p.nodesHighWaterMark());
+    }
+
+    @Test
+    void budgetedPlayersOnlyPlayPlayableCards() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+            Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL) {
+                MctsPlayer heap = new MctsPlayer(pId, SEED, 300).withNodeBudget(50 * (pId.ordinal() + 1))
+                        .withPondering(pId.ordinal() % 2);
+                players.put(pId, new CheckingPlayer(heap));
+                names.put(pId, pId.name());
+            }
+
+            JassGame g = new JassGame(SEED, players, names);
+            for (int i = 0; i < 2 * Jass.TRICKS_PER_TURN; ++i)
+                g.advanceToEndOfNextTrick();
+            for (PlayerId pId : PlayerId.ALL) {
+                MctsPlayer p = ((CheckingPlayer) players.get(pId)).underlyingPlayer;
+                p.stopPondering();
+                assertTrue(p.nodesHighWaterMark() <= 50 * (pId.ordinal() + 1));
+            }
+        });
+    }
+
     private static TurnState stateAfterPlayingAllCardsIn(CardSet cards, Color trump, PlayerId firstPlayer) {
         TurnState s = TurnState.initial(trump, Score.INITIAL, firstPlayer);
         for (int i = 0; i < cards.size(); ++i)
             s = s.withNewCardPlayedAndTrickCollected(cards.get(i));
         return s;
     }
+
+    private static final class CheckingPlayer implements Player {
+        final MctsPlayer underlyingPlayer;
+
+        CheckingPlayer(MctsPlayer underlyingPlayer) {
+            this.underlyingPlayer = underlyingPlayer;
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            Card c = underlyingPlayer.cardToPlay(state, hand);
+            assertTrue(state.trick().playableCards(hand).contains(c));
+            return c;
+        }
+
+        @Override
+        public void updateHand(CardSet newHand) {
+            underlyingPlayer.updateHand(newHand);
+        }
+
+        @Override
+        public void updateTrick(Trick newTrick) {
+            underlyingPlayer.updateTrick(newTrick);
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            underlyingPlayer.updateScore(score);
+        }
+    }
+
+    private static final class ComparingPlayer implements Player {
+        final Player expected, actual;
+
+        ComparingPlayer(Player expected, Player actual) {
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            Card c = actual.cardToPlay(state, hand);
+            assertEquals(expected.cardToPlay(state, hand), c);
+            return c;
+        }
+    }
 }
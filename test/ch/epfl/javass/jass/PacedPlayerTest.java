@@ -113,6 +113,29 @@ public class PacedPlayerTest {
         });
     }
 
+    @Test
+    void timeBudgetedPlayerIsGivenTheWaitingTime() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            TestTimeBudgetedPlayer tp = new TestTimeBudgetedPlayer();
+            Player pp = new PacedPlayer(tp, 0.5);
+            long t0 = System.currentTimeMillis();
+            pp.cardToPlay(TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1), CardSet.ALL_CARDS.subsetOfColor(Color.SPADE));
+            long elapsedTime = System.currentTimeMillis() - t0;
+            assertEquals(500, tp.cardToPlayTimeBudget);
+            assertTrue(elapsedTime >= 495);
+        });
+    }
+
+    private static final class TestTimeBudgetedPlayer extends TestPlayer implements TimeBudgetedPlayer {
+        long cardToPlayTimeBudget = -1;
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand, long timeBudget) {
+            cardToPlayTimeBudget = timeBudget;
+            return cardToPlay(state, hand);
+        }
+    }
+
     private static class TestPlayer implements Player {
         private final int indexOfCardToPlay;
 
@@ -0,0 +1,75 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class PackedDealerTest {
+    @Test
+    void dealFailsWithWrongNumberOfHands() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            PackedDealer.deal(0, 0, new long[3]);
+        });
+    }
+
+    @Test
+    void dealGivesAllCardsOnce() {
+        SplittableRandom rng = newRandom();
+        long[] hands = new long[PlayerId.COUNT];
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            PackedDealer.deal(rng.nextLong(), rng.nextLong(), hands);
+            long all = PackedCardSet.EMPTY;
+            for (long h : hands) {
+                assertTrue(PackedCardSet.isValid(h));
+                assertEquals(Jass.HAND_SIZE, PackedCardSet.size(h));
+                assertEquals(PackedCardSet.EMPTY, PackedCardSet.intersection(all, h));
+                all = PackedCardSet.union(all, h);
+            }
+            assertEquals(PackedCardSet.ALL_CARDS, all);
+        }
+    }
+
+    @Test
+    void dealOnlyDependsOnSeedAndIndex() {
+        long[] expected = new long[PlayerId.COUNT];
+        PackedDealer.deal(2019, 5, expected);
+
+        long[] hands = new long[PlayerId.COUNT];
+        for (int i = 0; i < 10; ++i)
+            PackedDealer.deal(2019, i, hands);
+        PackedDealer.deal(2019, 5, hands);
+        assertArrayEquals(expected, hands);
+
+        PackedDealer.deal(2019, 6, hands);
+        assertFalse(Arrays.equals(expected, hands));
+        PackedDealer.deal(2020, 5, hands);
+        assertFalse(Arrays.equals(expected, hands));
+    }
+
+    @Test
+    void dealGivesEachCardToEachPlayerEvenly() {
+        int deals = 40_000;
+        int[][] counts = new int[PlayerId.COUNT][Long.SIZE];
+        long[] hands = new long[PlayerId.COUNT];
+        for (int i = 0; i < deals; ++i) {
+            PackedDealer.deal(1, i, hands);
+            for (int p = 0; p < PlayerId.COUNT; ++p)
+                for (long h = hands[p]; h != 0; h &= h - 1)
+                    ++counts[p][Long.numberOfTrailingZeros(h)];
+        }
+
+        for (int p = 0; p < PlayerId.COUNT; ++p)
+            for (int c = 0; c < Long.SIZE; ++c)
+                if ((PackedCardSet.ALL_CARDS & (1L << c)) != 0)
+                    assertEquals(deals / 4d, counts[p][c], deals / 40d);
+    }
+}
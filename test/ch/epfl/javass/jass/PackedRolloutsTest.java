@@ -0,0 +1,52 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+
+public class PackedRolloutsTest {
+    private static final int ROLLOUTS = 10_000;
+
+    private static final TurnState STATE = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_1)
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.ACE));
+    private static final CardSet HAND = CardSet.EMPTY
+            .add(Card.of(Color.SPADE, Rank.SIX))
+            .add(Card.of(Color.SPADE, Rank.TEN))
+            .add(Card.of(Color.HEART, Rank.JACK))
+            .add(Card.of(Color.HEART, Rank.NINE))
+            .add(Card.of(Color.HEART, Rank.SEVEN))
+            .add(Card.of(Color.DIAMOND, Rank.KING))
+            .add(Card.of(Color.DIAMOND, Rank.EIGHT))
+            .add(Card.of(Color.CLUB, Rank.ACE))
+            .add(Card.of(Color.CLUB, Rank.QUEEN));
+
+    @Test
+    void turnPointsAreTheOnesOfTurnStateSimulations() {
+        SplittableRandom seeds = newRandom();
+        for (int i = 0; i < ROLLOUTS; ++i) {
+            long seed = seeds.nextLong();
+            SplittableRandom rng = new SplittableRandom(seed);
+            TurnState s = STATE;
+            long hand = HAND.packed();
+            long score = s.packedScore();
+            while (!s.isTerminal()) {
+                score = s.packedScore();
+                long playable = s.nextPlayer() == PlayerId.PLAYER_2
+                        ? PackedTrick.playableCards(s.packedTrick(), hand)
+                        : PackedTrick.playableCards(s.packedTrick(), PackedCardSet.difference(s.packedUnplayedCards(), hand));
+                int c = PackedCardSet.get(playable, rng.nextInt(PackedCardSet.size(playable)));
+                hand = PackedCardSet.remove(hand, c);
+                s = s.withNewCardPlayedAndTrickCollected(Card.ofPacked(c));
+            }
+            assertEquals(PackedScore.turnPoints(score, TeamId.TEAM_2),
+                    PackedRollouts.turnPoints(STATE.packedScore(), STATE.packedUnplayedCards(),
+                            STATE.packedTrick(), HAND.packed(), PlayerId.PLAYER_2, seed));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class SplitMixTest {
+    @Test
+    void seedsAreTheValuesOfASplittableRandom() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < 100; ++i) {
+            long seed = rng.nextLong();
+            SplittableRandom expected = new SplittableRandom(seed);
+            for (int index = 0; index < 10; ++index)
+                assertEquals(expected.nextLong(), SplitMix.seed(seed, index));
+        }
+    }
+
+    @Test
+    void mixChangesAboutHalfOfTheBits() {
+        SplittableRandom rng = newRandom();
+        long changedBits = 0;
+        int count = 0;
+        for (int i = 0; i < 100; ++i) {
+            long z = rng.nextLong();
+            for (int b = 0; b < Long.SIZE; ++b, ++count)
+                changedBits += Long.bitCount(SplitMix.mix(z) ^ SplitMix.mix(z ^ (1L << b)));
+        }
+        double mean = changedBits / (double) count;
+        assertTrue(Math.abs(mean - Long.SIZE / 2) < 1);
+        assertEquals(0, SplitMix.mix(0));
+    }
+}
@@ -0,0 +1,50 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+
+public class TrumpEvaluatorTest {
+    @Test
+    void strengthOfEmptyHandIsZero() {
+        for (Color c: Color.ALL)
+            assertEquals(0, TrumpEvaluator.strength(PackedCardSet.EMPTY, c));
+    }
+
+    @Test
+    void bestTrumpIsColorWithJackAndNine() {
+        CardSet hand = CardSet.EMPTY
+                .add(Card.of(Color.SPADE, Rank.ACE))
+                .add(Card.of(Color.SPADE, Rank.KING))
+                .add(Card.of(Color.SPADE, Rank.QUEEN))
+                .add(Card.of(Color.HEART, Rank.JACK))
+                .add(Card.of(Color.HEART, Rank.NINE))
+                .add(Card.of(Color.HEART, Rank.SIX))
+                .add(Card.of(Color.DIAMOND, Rank.SEVEN))
+                .add(Card.of(Color.CLUB, Rank.EIGHT))
+                .add(Card.of(Color.CLUB, Rank.TEN));
+        assertEquals(Color.HEART, TrumpEvaluator.bestTrump(hand.packed()));
+    }
+
+    @Test
+    void bestTrumpGivesTheHighestStrength() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            long hand = PackedCardSet.EMPTY;
+            while (PackedCardSet.size(hand) < Jass.HAND_SIZE)
+                hand = PackedCardSet.add(hand, PackedCardSet.get(PackedCardSet.ALL_CARDS, rng.nextInt(36)));
+
+            Color best = TrumpEvaluator.bestTrump(hand);
+            for (Color c: Color.ALL)
+                assertTrue(TrumpEvaluator.strength(hand, best) >= TrumpEvaluator.strength(hand, c));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+
+public class TurnStateTrackerTest {
+    @Test
+    void turnStateIsNullBeforeFirstTrick() {
+        assertNull(new TurnStateTracker().turnState());
+    }
+
+    @Test
+    void fullTrickIsCollected() {
+        TurnState state = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.ACE))
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.TEN));
+        TurnStateTracker tracker = new TurnStateTracker();
+        tracker.updateScore(state.packedScore());
+        tracker.updateTrick(TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_1).packedTrick());
+        tracker.updateTrick(state.packedTrick());
+        assertEquals(state.withTrickCollected(), tracker.turnState());
+
+        tracker.updateScore(state.withTrickCollected().packedScore());
+        assertNull(tracker.turnState());
+    }
+
+    @Test
+    void firstTrickOfATurnIsRecognizedWithoutItsEmptyVersion() {
+        TurnState state = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_1)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.ACE))
+                .withNewCardPlayed(Card.of(Color.HEART, Rank.SIX))
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.TEN));
+        TurnStateTracker tracker = new TurnStateTracker();
+        tracker.updateTrick(state.packedTrick());
+        tracker.updateScore(state.withTrickCollected().packedScore());
+        tracker.updateTrick(state.withTrickCollected().packedTrick());
+
+        // The empty first Trick of the next Turn is missing
+        TurnState next = TurnState.initial(Color.CLUB, state.score().nextTurn(), PlayerId.PLAYER_2)
+                .withNewCardPlayed(Card.of(Color.SPADE, Rank.ACE));
+        tracker.updateScore(next.packedScore());
+        tracker.updateTrick(next.packedTrick());
+        assertEquals(next, tracker.turnState());
+    }
+
+    @Test
+    void resyncReplacesTheWholeState() {
+        TurnState state = TurnState.initial(Color.CLUB, Score.INITIAL.nextTurn(), PlayerId.PLAYER_3)
+                .withNewCardPlayed(Card.of(Color.DIAMOND, Rank.KING));
+        CardSet hand = CardSet.ALL_CARDS.subsetOfColor(Color.CLUB);
+        TurnStateTracker tracker = new TurnStateTracker();
+        tracker.updateHand(CardSet.ALL_CARDS.packed());
+        tracker.resync(state, hand.packed());
+        assertEquals(state, tracker.turnState());
+        assertEquals(hand.packed(), tracker.packedHand());
+
+        // The next notifications apply to the new state
+        TurnState next = state.withNewCardPlayed(Card.of(Color.DIAMOND, Rank.ACE));
+        tracker.updateTrick(next.packedTrick());
+        assertEquals(next, tracker.turnState());
+    }
+
+    @Test
+    void trackedStateMatchesGameState() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            SplittableRandom rng = newRandom();
+            for (int i = 0; i < 20; ++i) {
+                Map<PlayerId, Player> ps = new EnumMap<>(PlayerId.class);
+                Map<PlayerId, String> ns = new EnumMap<>(PlayerId.class);
+                for (PlayerId pId : PlayerId.ALL) {
+                    ps.put(pId, new TrackingPlayer());
+                    ns.put(pId, pId.name());
+                }
+                JassGame g = new JassGame(rng.nextLong(), ps, ns);
+                while (!g.isGameOver())
+                    g.advanceToEndOfNextTrick();
+            }
+        });
+    }
+
+    private static final class TrackingPlayer implements Player {
+        final TurnStateTracker tracker = new TurnStateTracker();
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            assertEquals(state, tracker.turnState());
+            assertEquals(hand.packed(), tracker.packedHand());
+            return state.trick().playableCards(hand).get(0);
+        }
+
+        @Override
+        public void updateHand(CardSet newHand) {
+            tracker.updateHand(newHand.packed());
+        }
+
+        @Override
+        public void updateTrick(Trick newTrick) {
+            tracker.updateTrick(newTrick.packed());
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            tracker.updateScore(score.packed());
+        }
+    }
+}
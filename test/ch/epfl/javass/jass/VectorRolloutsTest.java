@@ -0,0 +1,100 @@
+package ch.epfl.javass.jass;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+
+// The vector backend is only tested when the tests run with the classes of the
+// vector directory and --add-modules jdk.incubator.vector
+public class VectorRolloutsTest {
+    // Not a multiple of the number of lanes, so that some lanes are unused
+    private static final int SEEDS = 13;
+
+    private static void assertSamePointsAsScalarRollouts(
+            RolloutBackend backend) {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            // Random Turn, stopped after a random number of Cards
+            long[] hands = new long[PlayerId.COUNT];
+            long deck = PackedCardSet.ALL_CARDS;
+            for (int p = 0; p < PlayerId.COUNT; ++p)
+                for (int k = 0; k < Jass.HAND_SIZE; ++k) {
+                    int c = PackedCardSet.get(deck,
+                            rng.nextInt(PackedCardSet.size(deck)));
+                    hands[p] = PackedCardSet.add(hands[p], c);
+                    deck = PackedCardSet.remove(deck, c);
+                }
+            TurnState s = TurnState.initial(
+                    Color.ALL.get(rng.nextInt(Color.COUNT)), Score.INITIAL,
+                    PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT)));
+            int cards = rng.nextInt(Jass.TRICKS_PER_TURN * PlayerId.COUNT);
+            for (int k = 0; k < cards; ++k) {
+                int p = s.nextPlayer().ordinal();
+                long playable = PackedTrick.playableCards(s.packedTrick(),
+                        hands[p]);
+                int c = PackedCardSet.get(playable,
+                        rng.nextInt(PackedCardSet.size(playable)));
+                hands[p] = PackedCardSet.remove(hands[p], c);
+                s = s.withNewCardPlayedAndTrickCollected(Card.ofPacked(c));
+            }
+
+            PlayerId ownId = PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT));
+            long[] seeds = new long[SEEDS];
+            for (int k = 0; k < SEEDS; ++k)
+                seeds[k] = rng.nextLong();
+            int[] expected = new int[SEEDS];
+            int[] actual = new int[SEEDS];
+            PackedRollouts.SCALAR.turnPoints(s.packedScore(),
+                    s.packedUnplayedCards(), s.packedTrick(),
+                    hands[ownId.ordinal()], ownId, seeds, expected);
+            backend.turnPoints(s.packedScore(), s.packedUnplayedCards(),
+                    s.packedTrick(), hands[ownId.ordinal()], ownId, seeds,
+                    actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void scalarBackendGivesThePointsOfTurnPoints() {
+        long[] seeds = newRandom().longs(SEEDS).toArray();
+        TurnState s = TurnState.initial(Color.HEART, Score.INITIAL,
+                PlayerId.PLAYER_1);
+        long hand = PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS,
+                Color.HEART);
+        int[] points = new int[SEEDS];
+        PackedRollouts.SCALAR.turnPoints(s.packedScore(),
+                s.packedUnplayedCards(), s.packedTrick(), hand,
+                PlayerId.PLAYER_1, seeds, points);
+        for (int k = 0; k < SEEDS; ++k)
+            assertEquals(PackedRollouts.turnPoints(s.packedScore(),
+                    s.packedUnplayedCards(), s.packedTrick(), hand,
+                    PlayerId.PLAYER_1, seeds[k]), points[k]);
+    }
+
+    @Test
+    void newVectorBackendFallsBackToTheScalarOne() {
+        assertTrue(PackedRollouts.hasVectorBackend()
+                || PackedRollouts.newVectorBackend() == PackedRollouts.SCALAR);
+    }
+
+    @Test
+    void vectorBackendHasSeveralLanes() {
+        assumeTrue(PackedRollouts.hasVectorBackend());
+        assertTrue(PackedRollouts.newVectorBackend().lanes() >= 4);
+    }
+
+    @Test
+    void vectorBackendGivesThePointsOfTheScalarOne() {
+        assumeTrue(PackedRollouts.hasVectorBackend());
+        assertSamePointsAsScalarRollouts(PackedRollouts.newVectorBackend());
+    }
+}
@@ -0,0 +1,244 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+public class ByteBufferCodecTest {
+
+    private static List<ByteBuffer> buffers(int size) {
+        return List.of(ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN),
+                ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN), ByteBuffer.allocate(size),
+                ByteBuffer.allocateDirect(size));
+    }
+
+    /*
+     * The states and hands given to the players of random games, which play
+     * random Cards
+     */
+    private static List<Object[]> gameStates(SplittableRandom rng) {
+        List<Object[]> states = new ArrayList<>();
+        Player p = new Player() {
+            @Override
+            public Card cardToPlay(TurnState state, CardSet hand) {
+                states.add(new Object[] { state, hand });
+                CardSet playable = state.trick().playableCards(hand);
+                return playable.get(rng.nextInt(playable.size()));
+            }
+        };
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL) {
+            players.put(pId, p);
+            names.put(pId, pId.name());
+        }
+        for (int i = 0; i < 5; ++i) {
+            JassGame g = new JassGame(rng.nextLong(), players, names);
+            while (!g.isGameOver())
+                g.advanceToEndOfNextTrick();
+        }
+        return states;
+    }
+
+    @Test
+    void gameValuesRoundTrip() {
+        SplittableRandom rng = newRandom();
+        for (Object[] o : gameStates(rng)) {
+            TurnState state = (TurnState) o[0];
+            CardSet hand = (CardSet) o[1];
+            for (ByteBuffer b : buffers(64)) {
+                ByteBufferCodec.putTurnState(b, state);
+                ByteBufferCodec.putCardSet(b, hand);
+                ByteBufferCodec.putTrick(b, state.trick());
+                ByteBufferCodec.putScore(b, state.score());
+                assertEquals(ByteBufferCodec.TURN_STATE_SIZE + 2 * Long.BYTES + Integer.BYTES, b.position());
+                b.flip();
+                assertEquals(state, ByteBufferCodec.getTurnState(b));
+                assertEquals(hand, ByteBufferCodec.getCardSet(b));
+                assertEquals(state.trick(), ByteBufferCodec.getTrick(b));
+                assertEquals(state.score(), ByteBufferCodec.getScore(b));
+                assertEquals(0, b.remaining());
+            }
+        }
+    }
+
+    private static String randomString(SplittableRandom rng) {
+        StringBuilder s = new StringBuilder();
+        int length = rng.nextInt(20);
+        for (int i = 0; i < length; ++i) {
+            switch (rng.nextInt(4)) {
+            case 0:
+                s.append((char) rng.nextInt(0x80));
+                break;
+            case 1:
+                s.append((char) (0x80 + rng.nextInt(0x800 - 0x80)));
+                break;
+            case 2:
+                // Any character of the first plane, but the surrogates
+                s.appendCodePoint(0xE000 + rng.nextInt(0x10000 - 0xE000));
+                break;
+            default:
+                s.appendCodePoint(0x10000 + rng.nextInt(Character.MAX_CODE_POINT + 1 - 0x10000));
+                break;
+            }
+        }
+        return s.toString();
+    }
+
+    @Test
+    void stringsRoundTrip() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            String s = randomString(rng);
+            int size = ByteBufferCodec.stringSize(s);
+            assertEquals(Short.BYTES + s.getBytes(StandardCharsets.UTF_8).length, size);
+            for (ByteBuffer b : buffers(size)) {
+                ByteBufferCodec.putString(b, s);
+                assertEquals(size, b.position());
+                assertEquals(s, ByteBufferCodec.getString(b.flip()));
+                assertEquals(size, b.position());
+            }
+        }
+    }
+
+    @Test
+    void loneSurrogatesAreReplaced() {
+        String s = "a\uD800b\uDC00";
+        ByteBuffer b = ByteBuffer.allocate(ByteBufferCodec.stringSize(s));
+        ByteBufferCodec.putString(b, s);
+        assertEquals("a?b?", ByteBufferCodec.getString(b.flip()));
+    }
+
+    @Test
+    void namesRoundTrip() {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+            for (PlayerId pId : PlayerId.ALL)
+                names.put(pId, randomString(rng));
+            for (ByteBuffer b : buffers(ByteBufferCodec.namesSize(names))) {
+                ByteBufferCodec.putNames(b, names);
+                assertEquals(0, b.remaining());
+                assertEquals(names, ByteBufferCodec.getNames(b.flip()));
+            }
+        }
+    }
+
+    @Test
+    void tooLongStringsAndTooSmallBuffersFail() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            ByteBufferCodec.putString(ByteBuffer.allocate(1 << 18), "\u00e9".repeat(ByteBufferCodec.MAX_STRING_SIZE));
+        });
+        ByteBuffer b = ByteBuffer.allocate(5).position(1);
+        assertThrows(BufferOverflowException.class, () -> {
+            ByteBufferCodec.putString(b, "abcd");
+        });
+        assertEquals(1, b.position());
+    }
+
+    /*
+     * Reads a value from random bytes: either it fails without moving the
+     * buffer, or the value read is written back to the same bytes
+     */
+    private static <T> void fuzz(Function<ByteBuffer, T> get, BiWriter<T> put) {
+        SplittableRandom rng = newRandom();
+        for (int i = 0; i < 10 * RANDOM_ITERATIONS; ++i) {
+            byte[] bytes = new byte[rng.nextInt(24)];
+            for (int j = 0; j < bytes.length; ++j)
+                bytes[j] = (byte) rng.nextInt(256);
+            // The values of the game are mostly made of small bytes
+            if (rng.nextBoolean())
+                for (int j = 0; j < bytes.length; ++j)
+                    bytes[j] &= rng.nextBoolean() ? 0x0F : 0x01;
+            ByteBuffer b = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            T value;
+            try {
+                value = get.apply(b);
+            } catch (IllegalArgumentException | BufferUnderflowException e) {
+                assertEquals(0, b.position());
+                continue;
+            }
+            ByteBuffer written = ByteBuffer.allocate(b.position()).order(ByteOrder.LITTLE_ENDIAN);
+            put.write(written, value);
+            assertEquals(ByteBuffer.wrap(bytes, 0, b.position()), written.flip());
+        }
+    }
+
+    @FunctionalInterface
+    private interface BiWriter<T> {
+        void write(ByteBuffer b, T value);
+    }
+
+    @Test
+    void invalidBytesAreRejected() {
+        fuzz(ByteBufferCodec::getCardSet, ByteBufferCodec::putCardSet);
+        fuzz(ByteBufferCodec::getTrick, ByteBufferCodec::putTrick);
+        fuzz(ByteBufferCodec::getScore, ByteBufferCodec::putScore);
+        fuzz(ByteBufferCodec::getTurnState, ByteBufferCodec::putTurnState);
+        fuzz(ByteBufferCodec::getNames, ByteBufferCodec::putNames);
+    }
+
+    @Test
+    void commandsRoundTrip() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(JassCommand.values().length + 1);
+        for (JassCommand c : JassCommand.values())
+            ByteBufferCodec.putCommand(b, c);
+        b.put((byte) 0).flip();
+        for (JassCommand c : JassCommand.values())
+            assertEquals(c, ByteBufferCodec.getCommand(b));
+        assertThrows(IOException.class, () -> {
+            ByteBufferCodec.getCommand(b);
+        });
+        assertEquals(JassCommand.values().length, b.position());
+    }
+
+    @Test
+    void poolReusesItsBuffers() {
+        BufferPool pool = new BufferPool(128, 1);
+        ByteBuffer b1 = pool.acquire(), b2 = pool.acquire();
+        assertTrue(b1.isDirect());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, b1.order());
+        b1.putLong(42);
+        pool.release(b1);
+        // Only one buffer is kept, and the ones of other sizes are ignored
+        pool.release(b2);
+        pool.release(ByteBuffer.allocateDirect(64));
+        ByteBuffer b3 = pool.acquire();
+        assertSame(b1, b3);
+        assertEquals(0, b3.position());
+        assertEquals(128, b3.remaining());
+        assertNotSame(b2, pool.acquire());
+        assertEquals(3, pool.allocatedCount());
+        assertThrows(IllegalArgumentException.class, () -> {
+            new BufferPool(0, 1);
+        });
+    }
+}
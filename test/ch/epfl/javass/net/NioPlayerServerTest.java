@@ -0,0 +1,245 @@
+package ch.epfl.javass.net;
+
+import static ch.epfl.javass.net.RemotePlayerTest.SEED;
+import static ch.epfl.javass.net.RemotePlayerTest.playGame;
+import static ch.epfl.javass.net.RemotePlayerTest.playLocally;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+import ch.epfl.javass.net.RemotePlayerTest.RecordingPlayer;
+
+public class NioPlayerServerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int CLIENTS = 100;
+    private static final TurnState STATE = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1);
+
+    private static NioPlayerServer newServer(Map<String, RecordingPlayer> players, int workers) throws Exception {
+        return newServer(players, workers, NioPlayerServer.DEFAULT_SESSION_TIMEOUT);
+    }
+
+    private static NioPlayerServer newServer(Map<String, RecordingPlayer> players, int workers,
+            long sessionTimeout) throws Exception {
+        NioPlayerServer server = new NioPlayerServer(new InetSocketAddress("localhost", 0), id -> {
+            RecordingPlayer p = new RecordingPlayer();
+            // Keeps the previous players of the same session apart
+            players.put(players.containsKey(id) ? id + "'" : id, p);
+            return p;
+        }, workers, sessionTimeout);
+        server.start();
+        return server;
+    }
+
+    private static String lastCommand(RecordingPlayer p) {
+        synchronized (p.log) {
+            return p.log.isEmpty() ? "" : p.log.get(p.log.size() - 1);
+        }
+    }
+
+    @Test
+    void constructorFailsWithoutWorkers() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new NioPlayerServer(new InetSocketAddress("localhost", 0), id -> new RecordingPlayer(), 0);
+        });
+    }
+
+    @Test
+    void manyClientsPlayTheSameGamesAsLocally() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<String, RecordingPlayer> players = new ConcurrentHashMap<>();
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            try (NioPlayerServer server = newServer(players, 4)) {
+                List<Future<?>> games = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; ++i) {
+                    int game = i;
+                    games.add(clients.submit(() -> {
+                        WireProtocol protocol = WireProtocol.values()[game % 2];
+                        try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.port(), protocol,
+                                "game-" + game)) {
+                            playGame(c, SEED + game);
+                            assertEquals(0, c.resyncsCount());
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> g : games)
+                    g.get();
+                // The last commands of the games may not have been read yet
+                for (int i = 0; i < CLIENTS; ++i)
+                    while (!lastCommand(players.get("game-" + i)).startsWith("WINR"))
+                        Thread.sleep(1);
+            } finally {
+                clients.shutdown();
+            }
+
+            assertEquals(CLIENTS, players.size());
+            for (int i = 0; i < CLIENTS; ++i)
+                assertEquals(playLocally(SEED + i), players.get("game-" + i).log);
+        });
+    }
+
+    @Test
+    void clientsOfTheSameSessionShareTheirPlayer() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<String, RecordingPlayer> players = new ConcurrentHashMap<>();
+            NioPlayerServer server = newServer(players, 2);
+            try {
+                for (WireProtocol protocol : WireProtocol.values()) {
+                    try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.port(), protocol, "s")) {
+                        c.setTrump(Color.ALL.get(protocol.ordinal()));
+                        // Waits for the server to apply the commands before connecting again
+                        c.cardToPlay(STATE, CardSet.ALL_CARDS);
+                    }
+                }
+                try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.port())) {
+                    c.setTrump(Color.CLUB);
+                    c.cardToPlay(STATE, CardSet.ALL_CARDS);
+                }
+            } finally {
+                server.close();
+            }
+            assertEquals(1, server.sessionsCount());
+            List<String> log = players.get("s").log;
+            assertEquals(4, log.size());
+            assertEquals("TRMP " + Color.ALL.get(0), log.get(0));
+            assertEquals("TRMP " + Color.ALL.get(1), log.get(2));
+            assertEquals("TRMP " + Color.CLUB, players.get("anonymous-1").log.get(0));
+        });
+    }
+
+    @Test
+    void constructorFailsWithNegativeSessionTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new NioPlayerServer(new InetSocketAddress("localhost", 0), id -> new RecordingPlayer(), 1, -1);
+        });
+    }
+
+    @Test
+    void sessionsAreForgottenOnceTheirConnectionIsClosed() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<String, RecordingPlayer> players = new ConcurrentHashMap<>();
+            try (NioPlayerServer server = newServer(players, 1, 0)) {
+                for (int i = 0; i < 2; ++i) {
+                    try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.port(),
+                            WireProtocol.BINARY, "s")) {
+                        c.cardToPlay(STATE, CardSet.ALL_CARDS);
+                        assertEquals(1, server.sessionsCount());
+                    }
+                    while (server.sessionsCount() != 0)
+                        Thread.sleep(1);
+                }
+            }
+            // The second connection got a new player
+            assertEquals(2, players.size());
+            assertEquals(1, players.get("s").log.size());
+            assertEquals(1, players.get("s'").log.size());
+        });
+    }
+
+    @Test
+    void newConnectionOfASessionReplacesTheOpenOne() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<String, RecordingPlayer> players = new ConcurrentHashMap<>();
+            try (NioPlayerServer server = newServer(players, 2);
+                    RemotePlayerClient old = new RemotePlayerClient("localhost", server.port(),
+                            WireProtocol.BINARY, "s")) {
+                old.cardToPlay(STATE, CardSet.ALL_CARDS);
+                try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.port(),
+                        WireProtocol.BINARY, "s")) {
+                    c.setTrump(Color.HEART);
+                    c.cardToPlay(STATE, CardSet.ALL_CARDS);
+                }
+                // The server closed the previous connection
+                assertThrows(UncheckedIOException.class, () -> {
+                    old.cardToPlay(STATE, CardSet.ALL_CARDS);
+                });
+                assertEquals(1, server.sessionsCount());
+            }
+            assertEquals(Set.of("s"), players.keySet());
+            List<String> log = players.get("s").log;
+            assertEquals(3, log.size());
+            assertEquals("TRMP " + Color.HEART, log.get(1));
+        });
+    }
+
+    @Test
+    void malformedSessionsOnlyCloseTheirConnection() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<String, RecordingPlayer> players = new ConcurrentHashMap<>();
+            // Invalid Base64, no id, an empty id and invalid UTF-8
+            List<byte[]> commands = new ArrayList<>();
+            for (String line : List.of("SESS !!!\n", "SESS\n", "SESS \n"))
+                commands.add(line.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer binary = BinarySerializer.frame(JassCommand.SESS, 3);
+            binary.putShort((short) 1);
+            binary.put((byte) 0xFF);
+            byte[] handshake = { BinarySerializer.MAGIC[0], BinarySerializer.MAGIC[1], BinarySerializer.MAGIC[2],
+                    (byte) BinarySerializer.VERSION };
+            commands.add(concat(handshake, binary.array()));
+
+            try (NioPlayerServer server = newServer(players, 1)) {
+                for (byte[] command : commands) {
+                    try (Socket s = new Socket("localhost", server.port())) {
+                        s.getOutputStream().write(command);
+                        InputStream in = s.getInputStream();
+                        // The version agreed on with a binary Client may be
+                        // written before the connection is closed
+                        int b = in.read();
+                        if (b != -1 && command[0] == BinarySerializer.MAGIC[0])
+                            b = in.read();
+                        assertEquals(-1, b);
+                    }
+                }
+                try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.port(), WireProtocol.TEXT,
+                        "after")) {
+                    playGame(c, SEED);
+                }
+                while (!lastCommand(players.get("after")).startsWith("WINR"))
+                    Thread.sleep(1);
+            }
+            assertEquals(playLocally(SEED), players.get("after").log);
+        });
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] ab = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, ab, a.length, b.length);
+        return ab;
+    }
+
+    @Test
+    void connectionsWithInvalidHandshakeAreClosed() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (NioPlayerServer server = newServer(new ConcurrentHashMap<>(), 1);
+                    Socket s = new Socket("localhost", server.port())) {
+                s.getOutputStream().write(new byte[] { 0, 'X', 'B', 1 });
+                InputStream in = s.getInputStream();
+                assertEquals(-1, in.read());
+            }
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package ch.epfl.javass.net;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+
+public class OutboundQueueTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static byte[] message(String s) {
+        return (s + "\n").getBytes(UTF_8);
+    }
+
+    @Test
+    void constructorFailsWithoutCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new OutboundQueue(new ByteArrayOutputStream(), () -> {}, 0, OutboundPolicy.BLOCK);
+        });
+    }
+
+    @Test
+    void messagesAreWrittenInOrderAndFlushedWhenAsked() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            GatedStream out = new GatedStream();
+            out.open.countDown();
+            OutboundQueue q = new OutboundQueue(out, () -> {}, 4, OutboundPolicy.BLOCK);
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 100; ++i) {
+                q.add(JassCommand.HAND, message("HAND " + i));
+                expected.append("HAND " + i + "\n");
+                if (i % 10 == 9)
+                    q.flush();
+            }
+            q.close();
+            assertEquals(expected.toString(), out.written());
+            // The flushes asked for, and the last one when the queue is closed
+            assertEquals(11, out.flushes);
+        });
+    }
+
+    @Test
+    void blockPolicyWaitsForTheWriter() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            GatedStream out = new GatedStream();
+            OutboundQueue q = new OutboundQueue(out, () -> {}, 2, OutboundPolicy.BLOCK);
+            AtomicBoolean done = new AtomicBoolean();
+            Thread game = new Thread(() -> {
+                for (int i = 0; i < 10; ++i)
+                    q.add(JassCommand.TRCK, message("TRCK " + i));
+                done.set(true);
+            });
+            game.start();
+            Thread.sleep(200);
+            assertTrue(!done.get());
+            out.open.countDown();
+            game.join();
+            q.close();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 10; ++i)
+                expected.append("TRCK " + i + "\n");
+            assertEquals(expected.toString(), out.written());
+            assertEquals(0, q.coalescedCount());
+        });
+    }
+
+    @Test
+    void coalescePolicyOnlyDropsSupersededTricksAndScores() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            GatedStream out = new GatedStream();
+            OutboundQueue q = new OutboundQueue(out, () -> {}, 32, OutboundPolicy.COALESCE);
+            // The first message blocks the writer, the others wait in the queue,
+            // which always has room for the last Trick and Score, the full
+            // Tricks and the hands
+            q.add(JassCommand.PLRS, message("PLRS"));
+            Thread.sleep(100);
+            for (int i = 0; i < 1000; ++i) {
+                // Every hundredth Trick is full, and is kept
+                if (i % 100 == 99)
+                    q.addKept(JassCommand.TRCK, message("TRCK " + i));
+                else
+                    q.add(JassCommand.TRCK, message("TRCK " + i));
+                q.add(JassCommand.SCOR, message("SCOR " + i));
+                if (i % 100 == 0)
+                    q.add(JassCommand.HAND, message("HAND " + i));
+            }
+            out.open.countDown();
+            q.close();
+
+            String[] lines = out.written().split("\n");
+            assertEquals("PLRS", lines[0]);
+            int hands = 0, fullTricks = 0, lastTrick = -1, lastScore = -1;
+            for (String l : lines) {
+                String[] s = l.split(" ");
+                if (s[0].equals("HAND"))
+                    ++hands;
+                else if (s[0].equals("TRCK")) {
+                    assertTrue(Integer.parseInt(s[1]) > lastTrick);
+                    lastTrick = Integer.parseInt(s[1]);
+                    if (lastTrick % 100 == 99)
+                        ++fullTricks;
+                } else if (s[0].equals("SCOR")) {
+                    assertTrue(Integer.parseInt(s[1]) > lastScore);
+                    lastScore = Integer.parseInt(s[1]);
+                }
+            }
+            assertEquals(10, hands);
+            assertEquals(10, fullTricks);
+            assertEquals(999, lastTrick);
+            assertEquals(999, lastScore);
+            assertEquals(2 * 1000 + 10 + 1, lines.length + q.coalescedCount());
+        });
+    }
+
+    @Test
+    void disconnectPolicyClosesTheConnection() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            GatedStream out = new GatedStream();
+            CountDownLatch closed = new CountDownLatch(1);
+            OutboundQueue q = new OutboundQueue(out, closed::countDown, 2, OutboundPolicy.DISCONNECT);
+            q.add(JassCommand.PLRS, message("PLRS"));
+            Thread.sleep(100);
+            q.add(JassCommand.SCOR, message("SCOR"));
+            q.add(JassCommand.SCOR, message("SCOR"));
+            assertThrows(UncheckedIOException.class, () -> {
+                q.add(JassCommand.SCOR, message("SCOR"));
+            });
+            closed.await();
+            assertThrows(UncheckedIOException.class, () -> {
+                q.add(JassCommand.WINR, message("WINR"));
+            });
+            out.open.countDown();
+            q.close();
+        });
+    }
+
+    @Test
+    void clientDoesntWaitForAServerWhichDoesntRead() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                try (RemotePlayerClient c = new RemotePlayerClient("localhost", server.getLocalPort(),
+                        WireProtocol.TEXT, null, 16, OutboundPolicy.COALESCE); Socket s = server.accept()) {
+                    // Far more than the buffers of the socket can hold
+                    for (int i = 0; i < 1_000_000; ++i)
+                        c.updateScore(Score.INITIAL.withAdditionalTrick(TeamId.TEAM_1, i % 100));
+                    assertTrue(c.coalescedMessagesCount() > 0);
+                    // What the buffers could hold was sent
+                    assertTrue(s.getInputStream().read() != -1);
+                }
+            }
+        });
+    }
+
+    /*
+     * Stream keeping what is written, whose writes wait until it is opened
+     */
+    private static final class GatedStream extends OutputStream {
+        final CountDownLatch open = new CountDownLatch(1);
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int flushes = 0;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            try {
+                open.await();
+            } catch (InterruptedException e) {
+                throw new Error(e);
+            }
+            synchronized (bytes) {
+                bytes.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() {
+            ++flushes;
+        }
+
+        String written() {
+            synchronized (bytes) {
+                return new String(bytes.toByteArray(), UTF_8);
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package ch.epfl.javass.net;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.MctsPlayer;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TimeBudgetedPlayer;
+import ch.epfl.javass.jass.Trick;
+import ch.epfl.javass.jass.TurnState;
+
+public class RemotePlayerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+    static final long SEED = 2019;
+
+    @Test
+    void binaryProtocolGivesTheSameCallsAsTheTextProtocol() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (long seed = SEED; seed < SEED + 3; ++seed) {
+                List<String> local = playLocally(seed);
+                assertEquals(local, playRemotely(WireProtocol.TEXT, seed));
+                assertEquals(local, playRemotely(WireProtocol.BINARY, seed));
+            }
+        });
+    }
+
+    @Test
+    void notificationsAreOnlySentWithTheEndOfTheTrick() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (ServerSocket s0 = new ServerSocket(0);
+                    RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort());
+                    Socket s = s0.accept();
+                    BufferedReader r = new BufferedReader(new InputStreamReader(s.getInputStream(), UTF_8))) {
+                Trick trick = Trick.firstEmpty(Color.HEART, PlayerId.PLAYER_1);
+                c.updateHand(CardSet.ALL_CARDS);
+                c.updateTrick(trick);
+                for (int i = 0; i < 3; ++i) {
+                    trick = trick.withAddedCard(CardSet.ALL_CARDS.get(i));
+                    c.updateTrick(trick);
+                }
+                Thread.sleep(100);
+                assertEquals(0, s.getInputStream().available());
+
+                c.updateTrick(trick.withAddedCard(CardSet.ALL_CARDS.get(3)));
+                assertEquals("HAND " + StringSerializer.serializeLong(CardSet.ALL_CARDS.packed()), r.readLine());
+                for (int i = 0; i < 5; ++i)
+                    assertTrue(r.readLine().startsWith("TRCK "));
+            }
+        });
+    }
+
+    @Test
+    void serverAnswersItsVersionToNewerClients() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordingPlayer p = new RecordingPlayer();
+        byte[] trump = { BinarySerializer.tag(JassCommand.TRMP), 2 };
+        new RemotePlayerServer(p).serve(new ByteArrayInputStream(concat(BinarySerializer.MAGIC,
+                new byte[] { (byte) (BinarySerializer.VERSION + 5) }, trump)), out);
+        assertArrayEquals(new byte[] { BinarySerializer.VERSION }, out.toByteArray());
+        assertEquals(List.of("TRMP " + Color.ALL.get(2)), p.log);
+    }
+
+    @Test
+    void serverKeepsToTextWithClientsWithoutBinaryVersion() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordingPlayer p = new RecordingPlayer();
+        new RemotePlayerServer(p).serve(new ByteArrayInputStream(concat(BinarySerializer.MAGIC,
+                new byte[] { 0 }, "TRMP 1\n".getBytes(UTF_8))), out);
+        assertArrayEquals(new byte[] { 0 }, out.toByteArray());
+        assertEquals(List.of("TRMP " + Color.ALL.get(1)), p.log);
+    }
+
+    @Test
+    void serverFailsWithInvalidHandshakeOrTag() {
+        assertThrows(IOException.class, () -> {
+            new RemotePlayerServer(new RecordingPlayer()).serve(
+                    new ByteArrayInputStream(new byte[] { 0, 'X', 'B', 1 }), new ByteArrayOutputStream());
+        });
+        assertThrows(IOException.class, () -> {
+            new RemotePlayerServer(new RecordingPlayer()).serve(
+                    new ByteArrayInputStream(concat(BinarySerializer.MAGIC, new byte[] { 1, 42 })),
+                    new ByteArrayOutputStream());
+        });
+    }
+
+    @Test
+    void tagsAreTheOnesOfTheCommands() throws IOException {
+        for (JassCommand c : JassCommand.values())
+            assertEquals(c, BinarySerializer.command(BinarySerializer.tag(c)));
+    }
+
+    @Test
+    void lateMovesAreReplacedByTheFallback() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (WireProtocol protocol : WireProtocol.values()) {
+                TurnState state = TurnState.initial(Color.SPADE, Score.INITIAL, PlayerId.PLAYER_1);
+                CardSet hand1 = CardSet.ALL_CARDS.subsetOfColor(Color.HEART);
+                CardSet hand2 = CardSet.ALL_CARDS.subsetOfColor(Color.CLUB);
+                // Only the first move is late
+                RecordingPlayer remote = new RecordingPlayer() {
+                    @Override
+                    public Card cardToPlay(TurnState state, CardSet hand) {
+                        if (hand.equals(hand1)) {
+                            try {
+                                Thread.sleep(300);
+                            } catch (InterruptedException e) {
+                                throw new Error(e);
+                            }
+                        }
+                        return super.cardToPlay(state, hand);
+                    }
+                };
+                try (ServerSocket s0 = new ServerSocket(0)) {
+                    Thread server = new Thread(() -> {
+                        try (Socket s = s0.accept()) {
+                            new RemotePlayerServer(remote).serve(s.getInputStream(), s.getOutputStream());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    server.start();
+                    try (RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort(), protocol)) {
+                        // The fallback plays the first Card, the remote player the last one
+                        c.setMoveDeadline(200, new FirstCardPlayer(), 5);
+                        assertEquals(hand1.get(0), c.cardToPlay(state, hand1));
+                        // The late answer to the first move, received while waiting for the
+                        // second one, isn't taken for it
+                        assertEquals(hand2.get(hand2.size() - 1), c.cardToPlay(state, hand2));
+
+                        MoveLatencies latencies = c.moveLatencies();
+                        assertEquals(2, latencies.count());
+                        assertEquals(1, latencies.timeoutsCount());
+                        assertTrue(latencies.percentile(100) >= 200);
+                    }
+                    server.join();
+                }
+            }
+        });
+    }
+
+    @Test
+    void moveDeadlineMustBePositive() throws Exception {
+        try (ServerSocket s0 = new ServerSocket(0);
+                RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort())) {
+            assertThrows(IllegalArgumentException.class, () -> {
+                c.setMoveDeadline(0, new MctsPlayer(PlayerId.PLAYER_1, 0, 10), 5);
+            });
+            assertThrows(IllegalArgumentException.class, () -> {
+                c.setMoveDeadline(100, new MctsPlayer(PlayerId.PLAYER_1, 0, 10), -1);
+            });
+        }
+    }
+
+    @Test
+    void moveDeadlineNeedsAFallbackPlayer() throws Exception {
+        try (ServerSocket s0 = new ServerSocket(0);
+                RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort())) {
+            assertThrows(NullPointerException.class, () -> {
+                c.setMoveDeadline(100, null, 5);
+            });
+        }
+    }
+
+    @Test
+    void percentilesOfLatenciesAreNearestRanks() {
+        MoveLatencies latencies = new MoveLatencies();
+        assertThrows(IllegalStateException.class, () -> {
+            latencies.percentile(50);
+        });
+        for (int i = 100; i >= 1; --i)
+            latencies.record(i * 1_000_000L, i > 95);
+        assertEquals(50, latencies.percentile(50), 1e-9);
+        assertEquals(99, latencies.percentile(99), 1e-9);
+        assertEquals(1, latencies.percentile(0), 1e-9);
+        assertEquals(100, latencies.percentile(100), 1e-9);
+        assertEquals(5, latencies.timeoutsCount());
+        assertThrows(IllegalArgumentException.class, () -> {
+            latencies.percentile(101);
+        });
+    }
+
+    @Test
+    void wrongMirroredStateIsResynced() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            RecordingPlayer remote = new RecordingPlayer();
+            RecordingPlayer local = new RecordingPlayer();
+            try (ServerSocket s0 = new ServerSocket(0)) {
+                Thread server = new Thread(() -> {
+                    try (Socket s = s0.accept()) {
+                        new RemotePlayerServer(remote).serve(s.getInputStream(), s.getOutputStream());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                server.start();
+                try (RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort(),
+                        WireProtocol.BINARY)) {
+                    CardSet hand = CardSet.ALL_CARDS.subsetOfColor(Color.DIAMOND);
+                    TurnState state = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_2);
+                    // The server doesn't know the Trick yet
+                    assertEquals(local.cardToPlay(state, hand), c.cardToPlay(state, hand));
+                    assertEquals(1, c.resyncsCount());
+
+                    // It knows it now, but the hand it got with the last CARD is wrong
+                    Card played = CardSet.ALL_CARDS.get(0);
+                    c.updateTrick(state.trick().withAddedCard(played));
+                    TurnState next = state.withNewCardPlayed(played);
+                    CardSet newHand = hand.remove(hand.get(0));
+                    assertEquals(local.cardToPlay(next, newHand), c.cardToPlay(next, newHand));
+                    assertEquals(2, c.resyncsCount());
+
+                    // Its state is the right one once it is told about the hand
+                    c.updateHand(newHand.remove(newHand.get(0)));
+                    newHand = newHand.remove(newHand.get(0));
+                    assertEquals(local.cardToPlay(next, newHand), c.cardToPlay(next, newHand));
+                    assertEquals(2, c.resyncsCount());
+                }
+                server.join();
+            }
+            remote.log.removeIf(l -> !l.startsWith("CARD"));
+            assertEquals(local.log, remote.log);
+        });
+    }
+
+    @Test
+    void coalescedNotificationsDontRequireResyncs() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            // A server reading more slowly than the game sends its notifications
+            RecordingPlayer remote = new RecordingPlayer() {
+                @Override
+                public void updateTrick(Trick newTrick) {
+                    super.updateTrick(newTrick);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        throw new Error(e);
+                    }
+                }
+            };
+            try (ServerSocket s0 = new ServerSocket(0)) {
+                Thread server = new Thread(() -> {
+                    try (Socket s = s0.accept()) {
+                        new RemotePlayerServer(remote).serve(s.getInputStream(), s.getOutputStream());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                server.start();
+                try (RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort(),
+                        WireProtocol.BINARY, null, 2, OutboundPolicy.COALESCE)) {
+                    playGame(c, SEED);
+                    assertTrue(c.coalescedMessagesCount() > 0);
+                    assertEquals(0, c.resyncsCount());
+                }
+                server.join();
+            }
+            List<String> local = playLocally(SEED);
+            local.removeIf(l -> !l.startsWith("CARD"));
+            remote.log.removeIf(l -> !l.startsWith("CARD"));
+            assertEquals(local, remote.log);
+        });
+    }
+
+    @Test
+    void serverStillAnswersCardsOfTheFirstVersion() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CardSet hand = CardSet.ALL_CARDS.subsetOfColor(Color.CLUB);
+        TurnState state = TurnState.initial(Color.HEART, Score.INITIAL, PlayerId.PLAYER_2);
+        byte[] card = BinarySerializer.frame(JassCommand.CARD, 3 * Long.BYTES + Integer.BYTES)
+                .putLong(state.packedScore()).putLong(state.packedUnplayedCards()).putInt(state.packedTrick())
+                .putLong(hand.packed()).array();
+        new RemotePlayerServer(new RecordingPlayer()).serve(
+                new ByteArrayInputStream(concat(BinarySerializer.MAGIC, new byte[] { 1 }, card)), out);
+        assertArrayEquals(new byte[] { 1, (byte) hand.get(hand.size() - 1).packed() }, out.toByteArray());
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        for (byte[] a : arrays)
+            b.write(a, 0, a.length);
+        return b.toByteArray();
+    }
+
+    static List<String> playLocally(long seed) {
+        RecordingPlayer p = new RecordingPlayer();
+        playGame(p, seed);
+        return p.log;
+    }
+
+    private static List<String> playRemotely(WireProtocol protocol, long seed) throws Exception {
+        RecordingPlayer remote = new RecordingPlayer();
+        try (ServerSocket s0 = new ServerSocket(0)) {
+            Thread server = new Thread(() -> {
+                try (Socket s = s0.accept()) {
+                    new RemotePlayerServer(remote).serve(s.getInputStream(), s.getOutputStream());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            server.start();
+            try (RemotePlayerClient c = new RemotePlayerClient("localhost", s0.getLocalPort(), protocol)) {
+                assertEquals(protocol, c.protocol());
+                playGame(c, seed);
+                // The state mirrored by the server is always the right one
+                assertEquals(0, c.resyncsCount());
+            }
+            server.join();
+        }
+        return remote.log;
+    }
+
+    static void playGame(Player p1, long seed) {
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId p : PlayerId.ALL) {
+            players.put(p, p == PlayerId.PLAYER_1 ? p1 : new RecordingPlayer());
+            names.put(p, "J\u00f6ueur, " + p.ordinal() + " \u2660");
+        }
+        JassGame g = new JassGame(seed, players, names);
+        while (!g.isGameOver())
+            g.advanceToEndOfNextTrick();
+    }
+
+    private static final class FirstCardPlayer implements TimeBudgetedPlayer {
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            return hand.get(0);
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand, long timeBudget) {
+            return cardToPlay(state, hand);
+        }
+    }
+
+    static class RecordingPlayer implements Player {
+        final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            log.add("CARD " + state.packedScore() + " " + state.packedUnplayedCards() + " "
+                    + state.packedTrick() + " " + hand.packed());
+            // Plays the last playable Card
+            CardSet playable = state.trick().playableCards(hand);
+            return playable.get(playable.size() - 1);
+        }
+
+        @Override
+        public void setPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+            StringBuilder b = new StringBuilder("PLRS ").append(ownId);
+            for (PlayerId p : PlayerId.ALL)
+                b.append(' ').append(playerNames.get(p));
+            log.add(b.toString());
+        }
+
+        @Override
+        public void updateHand(CardSet newHand) {
+            log.add("HAND " + newHand.packed());
+        }
+
+        @Override
+        public void setTrump(Color trump) {
+            log.add("TRMP " + trump);
+        }
+
+        @Override
+        public void updateTrick(Trick newTrick) {
+            log.add("TRCK " + newTrick.packed());
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            log.add("SCOR " + score.packed());
+        }
+
+        @Override
+        public void setWinningTeam(TeamId winningTeam) {
+            log.add("WINR " + winningTeam);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TurnState;
+
+public class BatchSimulatorTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    private static Map<PlayerId, Policy.Factory> randomFactories() {
+        Map<PlayerId, Policy.Factory> factories = new EnumMap<>(PlayerId.class);
+        for (PlayerId pId : PlayerId.ALL)
+            factories.put(pId, (id, seed) -> {
+                Policy random = Policy.random(seed * 31 + id.ordinal());
+                // The second Team chooses trump from its hand
+                return id.team() == TeamId.TEAM_1 ? random : new Policy() {
+                    @Override
+                    public int cardToPlay(long pkScore, long pkUnplayedCards, int pkTrick, long pkHand) {
+                        return random.cardToPlay(pkScore, pkUnplayedCards, pkTrick, pkHand);
+                    }
+
+                    @Override
+                    public Color chooseTrump(long pkHand) {
+                        return Color.ALL.get(Long.numberOfTrailingZeros(pkHand) / 16);
+                    }
+                };
+            });
+        return factories;
+    }
+
+    @Test
+    void constructorFailsWithMissingPlayer() {
+        Map<PlayerId, Policy.Factory> factories = randomFactories();
+        factories.remove(PlayerId.PLAYER_3);
+        assertThrows(IllegalArgumentException.class, () -> {
+            new BatchSimulator(factories);
+        });
+    }
+
+    @Test
+    void constructorFailsWithoutThreads() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new BatchSimulator(randomFactories(), 0);
+        });
+    }
+
+    @Test
+    void gamesAreTheSameAsJassGames() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Map<PlayerId, Policy.Factory> factories = randomFactories();
+            BatchSimulator simulator = new BatchSimulator(factories, 1);
+            SplittableRandom rng = newRandom();
+            for (int i = 0; i < 20; ++i) {
+                long seed = rng.nextLong();
+
+                Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+                Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+                ScoreRecorder recorder = null;
+                for (PlayerId pId : PlayerId.ALL) {
+                    ScoreRecorder p = new ScoreRecorder(factories.get(pId).newPolicy(pId, seed));
+                    recorder = p;
+                    players.put(pId, p);
+                    names.put(pId, pId.name());
+                }
+                JassGame g = new JassGame(seed, players, names);
+                while (!g.isGameOver())
+                    g.advanceToEndOfNextTrick();
+
+                assertEquals(recorder.lastScore, simulator.finalScore(seed));
+            }
+        });
+    }
+
+    @Test
+    void runIsTheSameWithAnyNumberOfThreads() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            int games = 3 * BatchSimulator.CHUNK_SIZE + 17;
+            BatchStatistics s1 = new BatchSimulator(randomFactories(), 1).run(2019, games);
+            BatchStatistics s4 = new BatchSimulator(randomFactories(), 4).run(2019, games);
+            assertEquals(games, s1.gamesCount());
+            for (TeamId t : TeamId.ALL) {
+                assertEquals(s1.winsCount(t), s4.winsCount(t));
+                assertArrayEquals(s1.pointsHistogram(t), s4.pointsHistogram(t));
+            }
+            assertEquals(games, s1.winsCount(TeamId.TEAM_1) + s1.winsCount(TeamId.TEAM_2));
+        });
+    }
+
+    @Test
+    void runStatisticsMatchTheGamesPlayed() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            BatchSimulator simulator = new BatchSimulator(randomFactories(), 2);
+            int games = 100;
+            BatchStatistics expected = new BatchStatistics();
+            for (int i = 0; i < games; ++i)
+                expected.add(simulator.finalScore(BatchSimulator.gameSeed(7, i)));
+
+            List<Long> progress = new ArrayList<>();
+            BatchStatistics actual = simulator.run(7, games, s -> progress.add(s.gamesCount()));
+            for (TeamId t : TeamId.ALL) {
+                assertEquals(expected.winsCount(t), actual.winsCount(t));
+                assertEquals(expected.averagePoints(t), actual.averagePoints(t), 1e-9);
+            }
+            assertEquals(Long.valueOf(games), progress.get(progress.size() - 1));
+        });
+    }
+
+    @Test
+    void packedDealerGamesAreReproducibleAndFair() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            int games = 4 * BatchSimulator.CHUNK_SIZE;
+            BatchSimulator simulator = new BatchSimulator(randomFactories(), 3).withPackedDealer(true);
+            BatchStatistics s1 = simulator.run(2019, games);
+            BatchStatistics s2 = simulator.run(2019, games);
+            for (TeamId t : TeamId.ALL) {
+                assertArrayEquals(s1.pointsHistogram(t), s2.pointsHistogram(t));
+                assertEquals(0.5, s1.winRate(t), 0.1);
+            }
+
+            long seed = BatchSimulator.gameSeed(2019, 42);
+            assertEquals(simulator.finalScore(seed), simulator.finalScore(seed));
+        });
+    }
+
+    @Test
+    void runFailsWithUnplayableCard() {
+        Map<PlayerId, Policy.Factory> factories = randomFactories();
+        // Always plays the first card of the hand, even if it is not playable
+        factories.put(PlayerId.PLAYER_2, (id, seed) -> (s, u, t, h) -> Long.numberOfTrailingZeros(h));
+        assertThrows(IllegalStateException.class, () -> {
+            new BatchSimulator(factories, 2).run(0, 50);
+        });
+    }
+
+    @Test
+    void statisticsHistogramCountsEveryGame() {
+        BatchStatistics s = new BatchStatistics();
+        s.add(Score.INITIAL.withAdditionalTrick(TeamId.TEAM_1, 100).nextTurn().packed());
+        s.add(Score.INITIAL.withAdditionalTrick(TeamId.TEAM_2, 60).nextTurn().packed());
+        assertEquals(2, s.gamesCount());
+        assertEquals(1, s.pointsHistogram(TeamId.TEAM_1)[2]);
+        assertEquals(1, s.pointsHistogram(TeamId.TEAM_1)[0]);
+        assertEquals(1, s.pointsHistogram(TeamId.TEAM_2)[1]);
+        assertEquals(50, s.averagePoints(TeamId.TEAM_1), 1e-9);
+        assertTrue(s.copy().toString().startsWith("2 games"));
+    }
+
+    private static final class ScoreRecorder implements Player {
+        final Policy policy;
+        long lastScore;
+
+        ScoreRecorder(Policy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public Card cardToPlay(TurnState state, CardSet hand) {
+            return Card.ofPacked(policy.cardToPlay(state.packedScore(), state.packedUnplayedCards(),
+                    state.packedTrick(), hand.packed()));
+        }
+
+        @Override
+        public Color chooseTrump(CardSet hand) {
+            return policy.chooseTrump(hand.packed());
+        }
+
+        @Override
+        public void updateScore(Score score) {
+            lastScore = score.packed();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ch.epfl.javass.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.MctsPlayer;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.Score;
+import ch.epfl.javass.jass.TurnState;
+import ch.epfl.javass.sim.PositionSuite.Position;
+
+public class PositionSuiteTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    // Same position as MctsPlayerTest.mctsPlayerPlaysCorrectly2
+    private static final TurnState STATE = TurnState.initial(Color.CLUB, Score.INITIAL, PlayerId.PLAYER_1)
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.JACK))
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.QUEEN))
+            .withNewCardPlayed(Card.of(Color.SPADE, Rank.SIX));
+    private static final CardSet HAND = CardSet.EMPTY
+            .add(Card.of(Color.SPADE, Rank.EIGHT))
+            .add(Card.of(Color.SPADE, Rank.NINE))
+            .add(Card.of(Color.SPADE, Rank.TEN))
+            .add(Card.of(Color.CLUB, Rank.SIX))
+            .add(Card.of(Color.HEART, Rank.SEVEN))
+            .add(Card.of(Color.HEART, Rank.EIGHT))
+            .add(Card.of(Color.HEART, Rank.NINE))
+            .add(Card.of(Color.HEART, Rank.TEN))
+            .add(Card.of(Color.HEART, Rank.JACK));
+    private static final Card TEN = Card.of(Color.SPADE, Rank.TEN);
+
+    private static Position position(String name, Card acceptable) {
+        return new Position(name, STATE, HAND, CardSet.EMPTY.add(acceptable), "play the 10");
+    }
+
+    @Test
+    void positionFailsWithUnplayableAcceptableCards() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            position("p", Card.of(Color.HEART, Rank.TEN));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Position("p", STATE, HAND, CardSet.EMPTY, "");
+        });
+    }
+
+    @Test
+    void positionFailsWithInvalidName() {
+        for (String name : new String[] { "", "a b", "#a" })
+            assertThrows(IllegalArgumentException.class, () -> {
+                position(name, TEN);
+            });
+    }
+
+    @Test
+    void positionFailsWithPlayedCardsInHand() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Position("p", STATE, HAND.add(Card.of(Color.SPADE, Rank.JACK)), CardSet.EMPTY.add(TEN), "");
+        });
+    }
+
+    @Test
+    void suiteIsTheSameAfterWritingAndReading() {
+        PositionSuite suite = new PositionSuite(List.of(position("a", TEN),
+                new Position("b", STATE, HAND, CardSet.EMPTY.add(TEN).add(Card.of(Color.CLUB, Rank.SIX)), "")));
+        StringWriter w = new StringWriter();
+        suite.write(w);
+
+        List<Position> read = PositionSuite.read(new StringReader(w.toString())).positions();
+        assertEquals(2, read.size());
+        for (int i = 0; i < 2; ++i) {
+            Position expected = suite.positions().get(i), actual = read.get(i);
+            assertEquals(expected.name(), actual.name());
+            assertEquals(expected.state().packedScore(), actual.state().packedScore());
+            assertEquals(expected.state().packedUnplayedCards(), actual.state().packedUnplayedCards());
+            assertEquals(expected.state().packedTrick(), actual.state().packedTrick());
+            assertEquals(expected.hand(), actual.hand());
+            assertEquals(expected.acceptableCards(), actual.acceptableCards());
+            assertEquals(expected.comment(), actual.comment());
+        }
+        assertEquals(PlayerId.PLAYER_4, read.get(0).player());
+    }
+
+    @Test
+    void readIgnoresCommentsAndEmptyLines() {
+        String line = position("a", TEN).toString();
+        PositionSuite suite = PositionSuite.read(new StringReader("# header\n\n  " + line + "\n   # other\n"));
+        assertEquals(1, suite.positions().size());
+        assertEquals("play the 10", suite.positions().get(0).comment());
+    }
+
+    @Test
+    void readFailsWithTheNumberOfTheInvalidLine() {
+        String line = position("a", TEN).toString();
+        for (String invalid : new String[] { "a 0 1ff", line.replace(" 10 #", " 1 #"), line.replace("a 0 ", "a zz ") }) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> {
+                PositionSuite.read(new StringReader(line + "\n\n" + invalid + "\n"));
+            });
+            assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+        }
+    }
+
+    @Test
+    void runnerFindsTheFirstIterationsFromWhichThePlayerSettles() {
+        Position p = position("a", TEN);
+        Card other = Card.of(Color.SPADE, Rank.EIGHT);
+        // Right with 9 iterations, wrong with 18, then right from 36 on
+        SolveTimeRunner runner = new SolveTimeRunner((id, it) -> (s, h) -> it == 18 ? other : TEN, 9, 500);
+        SolveTimeRunner.Result r = runner.solve(p);
+        assertTrue(r.isSolved());
+        assertEquals(36, r.iterations());
+        assertEquals(TEN, r.lastCard());
+
+        SolveTimeRunner.Result wrong = new SolveTimeRunner((id, it) -> (s, h) -> it == 500 ? other : TEN, 9, 500)
+                .solve(p);
+        assertFalse(wrong.isSolved());
+        assertEquals(other, wrong.lastCard());
+    }
+
+    @Test
+    void runnerGivesTheRightPlayerToTheEngine() {
+        Position p = position("a", TEN);
+        new SolveTimeRunner((id, it) -> {
+            assertEquals(PlayerId.PLAYER_4, id);
+            return (s, h) -> TEN;
+        }, 10, 10).solve(p);
+    }
+
+    @Test
+    void runnerFailsWithInvalidIterations() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SolveTimeRunner((id, it) -> null, 0, 10);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SolveTimeRunner((id, it) -> null, 20, 10);
+        });
+    }
+
+    @Test
+    void solveRateCountsThePositionsSolvedInTime() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            PositionSuite suite = new PositionSuite(List.of(position("a", TEN),
+                    position("b", Card.of(Color.CLUB, Rank.SIX))));
+            List<SolveTimeRunner.Result> results = new SolveTimeRunner(
+                    (id, it) -> new MctsPlayer(id, 0, it), 9, 2000).run(suite);
+            assertTrue(results.get(0).isSolved());
+            assertFalse(results.get(1).isSolved());
+            assertEquals(0.5, SolveTimeRunner.solveRate(results, Long.MAX_VALUE));
+            assertEquals(0, SolveTimeRunner.solveRate(results, -1));
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package ch.epfl.javass.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SprtTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Test
+    void constructorFailsWithInvalidHypotheses() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Sprt(10, 0, 0.05, 0.05);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Sprt(0, 10, 0, 0.05);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Sprt(0, 10, 0.05, 0.5);
+        });
+    }
+
+    @Test
+    void addFailsWithInvalidWins() {
+        Sprt s = new Sprt(0, 10, 0.05, 0.05);
+        assertThrows(IllegalArgumentException.class, () -> {
+            s.add(3);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            s.add(-1);
+        });
+    }
+
+    @Test
+    void boundsFollowAlphaAndBeta() {
+        Sprt s = new Sprt(0, 10, 0.05, 0.1);
+        assertEquals(Math.log(0.1 / 0.95), s.lowerBound(), 1e-12);
+        assertEquals(Math.log(0.9 / 0.05), s.upperBound(), 1e-12);
+        assertEquals(0, s.llr());
+        assertEquals(Sprt.Outcome.CONTINUE, s.outcome());
+    }
+
+    @Test
+    void expectedScoreFollowsTheEloModel() {
+        assertEquals(0.5, Sprt.expectedScore(0), 1e-12);
+        assertEquals(10 / 11d, Sprt.expectedScore(400), 1e-12);
+        assertEquals(1, Sprt.expectedScore(100) + Sprt.expectedScore(-100), 1e-12);
+    }
+
+    @Test
+    void llrFollowsTheScoreOfTheCandidate() {
+        Sprt s = new Sprt(0, 20, 0.05, 0.05);
+        for (int i = 0; i < 99; ++i)
+            s.add(i % 3);
+        // A score of 1/2 is nearer to H0 than to H1
+        assertTrue(s.llr() < 0);
+        Sprt copy = s.copy();
+        for (int i = 0; i < 99; ++i)
+            s.add(2);
+        assertTrue(s.llr() > 0);
+        assertEquals(99, copy.pairsCount());
+        assertEquals(198, s.pairsCount());
+        assertEquals(0.75, s.score(), 1e-12);
+    }
+
+    @Test
+    void llrMatchesTheNormalApproximation() {
+        Sprt s = new Sprt(0, 50, 0.05, 0.05);
+        s.add(0);
+        s.add(1);
+        s.add(2);
+        s.add(2);
+        // With the prior, the pairs are 1.5, 1.5 and 2.5 virtual pairs
+        double mean = (1.5 / 2 + 2.5) / 5.5, variance = (1.5 / 4 + 2.5) / 5.5 - mean * mean;
+        double s0 = 0.5, s1 = Sprt.expectedScore(50);
+        assertEquals(4 * (s1 - s0) * (2 * mean - s0 - s1) / (2 * variance), s.llr(), 1e-12);
+    }
+
+    @Test
+    void matchAcceptsH1AgainstAWeakerBaseline() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<Sprt> progress = new ArrayList<>();
+            Sprt s = new SprtMatch(PlayerConfig.mcts("m", 100, 0), PlayerConfig.random("r"), 2)
+                    .run(new Sprt(0, 50, 0.05, 0.05), 1, 1000, progress::add);
+            assertEquals(Sprt.Outcome.ACCEPT_H1, s.outcome());
+            assertTrue(s.pairsCount() < 1000);
+            assertEquals(s.pairsCount(), progress.size());
+            assertEquals(s.llr(), progress.get(progress.size() - 1).llr());
+        });
+    }
+
+    @Test
+    void matchAcceptsH0AgainstAStrongerBaseline() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            Sprt s = new SprtMatch(PlayerConfig.random("r"), PlayerConfig.mcts("m", 100, 0), 2)
+                    .withDuplicateDeals(true).run(new Sprt(0, 50, 0.05, 0.05), 1, 1000);
+            assertEquals(Sprt.Outcome.ACCEPT_H0, s.outcome());
+        });
+    }
+
+    @Test
+    void matchStopsAfterTheSamePairWithAnyNumberOfThreads() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            PlayerConfig a = PlayerConfig.mcts("a", 30, 0), b = PlayerConfig.random("b");
+            Sprt s1 = new SprtMatch(a, b, 1).run(new Sprt(0, 50, 0.05, 0.05), 7, 1000);
+            Sprt s4 = new SprtMatch(a, b, 4).run(new Sprt(0, 50, 0.05, 0.05), 7, 1000);
+            assertEquals(s1.pairsCount(), s4.pairsCount());
+            assertEquals(s1.llr(), s4.llr());
+        });
+    }
+
+    @Test
+    void matchStopsAtTheMaximalNumberOfPairs() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            PlayerConfig a = PlayerConfig.random("a"), b = PlayerConfig.random("b");
+            Sprt s = new SprtMatch(a, b, 2).run(new Sprt(-5, 5, 0.05, 0.05), 3, 20);
+            assertEquals(20, s.pairsCount());
+            assertEquals(Sprt.Outcome.CONTINUE, s.outcome());
+            assertThrows(IllegalArgumentException.class, () -> {
+                new SprtMatch(a, b, 2).run(s, 3, -1);
+            });
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package ch.epfl.javass.sim;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.Card;
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+import ch.epfl.javass.jass.TurnState;
+
+public class TableServerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final PlayerConfig RANDOM_1 = PlayerConfig.random("r1");
+    private static final PlayerConfig RANDOM_2 = PlayerConfig.random("r2");
+
+    private static BatchStatistics tournamentGames(PlayerConfig team1, PlayerConfig team2, long seed, int games) {
+        BatchStatistics s = new BatchStatistics();
+        for (int i = 0; i < games; ++i)
+            s.add(Tournament.playGame(team1, team2, BatchSimulator.gameSeed(seed, i)));
+        return s;
+    }
+
+    private static void assertSameStatistics(BatchStatistics expected, BatchStatistics actual) {
+        assertEquals(expected.gamesCount(), actual.gamesCount());
+        for (TeamId t : TeamId.ALL) {
+            assertEquals(expected.winsCount(t), actual.winsCount(t));
+            assertArrayEquals(expected.pointsHistogram(t), actual.pointsHistogram(t));
+        }
+    }
+
+    @Test
+    void constructorAndOptionsFailWithInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new TableServer(RANDOM_1, RANDOM_2, 0);
+        });
+        TableServer server = new TableServer(RANDOM_1, RANDOM_2, 1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            server.withGamesPerTable(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            server.withTrickPause(-1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            server.withBotThreads(0);
+        });
+        if (!TableServer.hasVirtualThreads())
+            assertThrows(IllegalArgumentException.class, () -> {
+                server.withVirtualThreads(true);
+            });
+    }
+
+    @Test
+    void tablesPlayTheGamesOfATournament() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<Long> progress = Collections.synchronizedList(new ArrayList<>());
+            BatchStatistics s = new TableServer(RANDOM_1, RANDOM_2, 50).withGamesPerTable(3)
+                    .withVirtualThreads(false).run(2019, p -> progress.add(p.gamesCount()));
+            assertSameStatistics(tournamentGames(RANDOM_1, RANDOM_2, 2019, 150), s);
+            assertEquals(150, progress.size());
+            assertTrue(progress.contains(150L));
+        });
+    }
+
+    @Test
+    void aSlowProgressDoesntStopTheOtherTables() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            // The first progress waits until the other table has played all
+            // its games
+            AtomicBoolean first = new AtomicBoolean(true);
+            CountDownLatch otherTable = new CountDownLatch(3);
+            BatchStatistics s = new TableServer(RANDOM_1, RANDOM_2, 2).withGamesPerTable(3)
+                    .withVirtualThreads(false).run(2019, p -> {
+                        if (first.getAndSet(false)) {
+                            try {
+                                otherTable.await();
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        } else
+                            otherTable.countDown();
+                    });
+            assertEquals(6, s.gamesCount());
+        });
+    }
+
+    @Test
+    void mctsPlayersSearchingOnTheBotThreadsPlayTheSameGames() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            PlayerConfig mcts = PlayerConfig.mcts("m", 50, 0);
+            BatchStatistics s = new TableServer(mcts, RANDOM_2, 4).withBotThreads(1).run(7);
+            assertSameStatistics(tournamentGames(mcts, RANDOM_2, 7, 4), s);
+        });
+    }
+
+    @Test
+    void interruptingTheServerStopsTheTables() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            AtomicReference<BatchStatistics> result = new AtomicReference<>();
+            AtomicBoolean interrupted = new AtomicBoolean();
+            Thread server = new Thread(() -> {
+                result.set(new TableServer(RANDOM_1, RANDOM_2, 100).withGamesPerTable(1000)
+                        .withTrickPause(10).run(0));
+                interrupted.set(Thread.currentThread().isInterrupted());
+            });
+            server.start();
+            Thread.sleep(500);
+            long start = System.nanoTime();
+            server.interrupt();
+            server.join();
+
+            assertTrue(interrupted.get());
+            // The tables don't finish their games
+            assertTrue(System.nanoTime() - start < 1_000_000_000L);
+            assertTrue(result.get().gamesCount() < 100);
+        });
+    }
+
+    @Test
+    void aFailingPlayerStopsTheServer() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            // The players of the fifth game created fail at their first Card
+            AtomicInteger players = new AtomicInteger();
+            TableServer server = new TableServer(RANDOM_1, RANDOM_2, 100).withGamesPerTable(1000)
+                    .withTrickPause(10).withPlayerWrapper(p -> {
+                        if (players.incrementAndGet() / PlayerId.COUNT != 4)
+                            return p;
+                        return new ForwardingPlayer(p) {
+                            @Override
+                            public Card cardToPlay(TurnState state, CardSet hand) {
+                                throw new IllegalStateException("failed");
+                            }
+                        };
+                    });
+            long start = System.nanoTime();
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+                server.run(0);
+            });
+            assertEquals("failed", e.getMessage());
+            // The other tables don't finish their games
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        });
+    }
+}
@@ -0,0 +1,226 @@
+package ch.epfl.javass.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TeamId;
+
+public class TournamentTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Test
+    void playerConfigParsesValidConfigs() {
+        assertEquals("r:random", PlayerConfig.ofString("r:random").toString());
+        assertEquals("m:mcts:100:0", PlayerConfig.ofString("m:mcts:100").toString());
+        assertEquals("m:mcts:100:20", PlayerConfig.ofString(" m:mcts:100:20 ").toString());
+        assertEquals("m", PlayerConfig.ofString("m:mcts:100").name());
+    }
+
+    @Test
+    void playerConfigFailsWithInvalidConfigs() {
+        for (String s : new String[] { "random", ":random", "r:random:1", "m:mcts", "m:mcts:x",
+                "m:mcts:5", "m:mcts:100:-1", "m:mcts:100:1:2", "m:greedy" })
+            assertThrows(IllegalArgumentException.class, () -> {
+                PlayerConfig.ofString(s);
+            }, s);
+    }
+
+    @Test
+    void playerConfigCreatesPlayersOfTheRightKind() {
+        PlayerConfig c = PlayerConfig.ofString("m:mcts:50:5");
+        assertTrue(c.newPlayer(PlayerId.PLAYER_1, 0) instanceof ForwardingPlayer);
+        assertTrue(PlayerConfig.ofString("m:mcts:50").newPlayer(PlayerId.PLAYER_1, 0)
+                instanceof ch.epfl.javass.jass.MctsPlayer);
+    }
+
+    @Test
+    void constructorFailsWithInvalidArguments() {
+        PlayerConfig r = PlayerConfig.random("r");
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tournament(List.of(r), 2, 1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tournament(List.of(r, PlayerConfig.random("r")), 2, 1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tournament(List.of(r, PlayerConfig.random("s")), 0, 1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Tournament(List.of(r, PlayerConfig.random("s")), 2, 0);
+        });
+    }
+
+    @Test
+    void playGameIsReproducible() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            PlayerConfig a = PlayerConfig.random("a"), b = PlayerConfig.mcts("b", 20, 0);
+            for (long seed = 0; seed < 10; ++seed)
+                assertEquals(Tournament.playGame(a, b, seed), Tournament.playGame(a, b, seed));
+        });
+    }
+
+    @Test
+    void roundRobinPlaysEveryPairWithSeatRotation() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<PlayerConfig> configs = Arrays.asList(PlayerConfig.random("a"),
+                    PlayerConfig.random("b"), PlayerConfig.random("c"));
+            TournamentResult r1 = new Tournament(configs, 7, 1).run(2019);
+            TournamentResult r3 = new Tournament(configs, 7, 3).run(2019);
+            assertEquals(3, r1.playersCount());
+            for (int i = 0; i < 3; ++i) {
+                assertEquals(14, r1.gamesCount(i));
+                for (int j = 0; j < 3; ++j) {
+                    assertEquals(i == j ? 0 : 7, r1.gamesCount(i, j));
+                    assertEquals(r1.winsCount(i, j), r3.winsCount(i, j));
+                    if (i != j)
+                        assertEquals(7, r1.winsCount(i, j) + r1.winsCount(j, i));
+                }
+            }
+
+        });
+    }
+
+    @Test
+    void configurationsSwapSeatsEveryGame() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            PlayerConfig a = PlayerConfig.random("a"), b = PlayerConfig.mcts("b", 20, 0);
+            TournamentResult r = new Tournament(List.of(a, b), 2, 2).run(2019);
+            long first = Tournament.playGame(a, b, BatchSimulator.gameSeed(2019, 0));
+            long second = Tournament.playGame(b, a, BatchSimulator.gameSeed(2019, 1));
+            long aWins = (Tournament.winner(first) == TeamId.TEAM_1 ? 1 : 0)
+                    + (Tournament.winner(second) == TeamId.TEAM_2 ? 1 : 0);
+            assertEquals(aWins, r.winsCount(0, 1));
+            assertEquals(2 - aWins, r.winsCount(1, 0));
+        });
+    }
+
+    @Test
+    void ratingsFollowTheBradleyTerryModel() {
+        long[][] games = { { 0, 100 }, { 100, 0 } };
+        long[][] wins = { { 0, 75 }, { 25, 0 } };
+        TournamentResult r = new TournamentResult(List.of("a", "b"), games, wins, null);
+        double expected = 400 * Math.log10(75.5 / 25.5);
+        assertEquals(expected / 2, r.elo(0), 1e-6);
+        assertEquals(-expected / 2, r.elo(1), 1e-6);
+        assertEquals(r.eloError(0), r.eloError(1), 1e-9);
+        assertTrue(r.eloError(0) > 50 && r.eloError(0) < 100);
+    }
+
+    @Test
+    void ratingsAreFiniteWhenAConfigurationWinsEverything() {
+        long[][] games = { { 0, 10, 10 }, { 10, 0, 10 }, { 10, 10, 0 } };
+        long[][] wins = { { 0, 10, 10 }, { 0, 0, 5 }, { 0, 5, 0 } };
+        TournamentResult r = new TournamentResult(List.of("a", "b", "c"), games, wins, null);
+        assertTrue(Double.isFinite(r.elo(0)) && r.elo(0) > r.elo(1));
+        assertEquals(r.elo(1), r.elo(2), 1e-6);
+        assertEquals(0, r.elo(0) + r.elo(1) + r.elo(2), 1e-6);
+    }
+
+    @Test
+    void strongerConfigurationGetsTheHigherRating() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<PlayerConfig> configs = List.of(PlayerConfig.random("random"),
+                    PlayerConfig.mcts("mcts", 200, 0));
+            TournamentResult r = new Tournament(configs, 10, 4).run(1);
+            assertTrue(r.elo(1) > r.elo(0));
+            assertTrue(r.winsCount(1) > r.winsCount(0));
+        });
+    }
+
+    @Test
+    void resultsAreWrittenAsCsvAndJson() {
+        long[][] games = { { 0, 4 }, { 4, 0 } };
+        long[][] wins = { { 0, 3 }, { 1, 0 } };
+        TournamentResult r = new TournamentResult(List.of("a\"b", "c"), games, wins, null);
+
+        StringWriter csv = new StringWriter();
+        r.writeCsv(csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals("name,elo,ci95,games,wins", lines[0]);
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith("a\"b,") && lines[1].endsWith(",4,3"));
+
+        StringWriter json = new StringWriter();
+        r.writeJson(json);
+        assertTrue(json.toString().startsWith("{\"players\":[{\"name\":\"a\\\"b\","));
+        assertTrue(json.toString().contains("\"pairs\":[{\"player1\":\"a\\\"b\",\"player2\":\"c\",\"games\":4,\"wins1\":3,\"wins2\":1}]"));
+    }
+
+    @Test
+    void duplicateDealsNeedAnEvenNumberOfGames() {
+        Tournament t = new Tournament(List.of(PlayerConfig.random("a"), PlayerConfig.random("b")), 3, 1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            t.withDuplicateDeals(true);
+        });
+        t.withDuplicateDeals(false);
+    }
+
+    @Test
+    void duplicateDealsCancelOutBetweenIdenticalConfigurations() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            // Both configurations play exactly the same way, so the second
+            // game of each deal is the first one with the Teams swapped
+            List<PlayerConfig> configs = List.of(PlayerConfig.mcts("a", 20, 0), PlayerConfig.mcts("b", 20, 0));
+            TournamentResult r = new Tournament(configs, 10, 2).withDuplicateDeals(true).run(5);
+            assertEquals(5, r.winsCount(0, 1));
+            assertEquals(5, r.winsCount(1, 0));
+            DuplicateStatistics d = r.duplicateStatistics(0, 1);
+            assertEquals(5, d.dealsCount());
+            assertEquals(0, d.averageMargin(), 0);
+            assertEquals(Double.POSITIVE_INFINITY, d.varianceReduction());
+
+            StringWriter json = new StringWriter();
+            r.writeJson(json);
+            assertTrue(json.toString().contains("\"deals\":5,\"margin1\":0.00,\"marginCi95\":0.00,\"varianceReduction\":null"));
+        });
+    }
+
+    @Test
+    void duplicateStatisticsAreOnlyAvailableForDuplicateDeals() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<PlayerConfig> configs = List.of(PlayerConfig.random("a"), PlayerConfig.random("b"));
+            TournamentResult r = new Tournament(configs, 2, 1).run(5);
+            assertThrows(IllegalStateException.class, () -> {
+                r.duplicateStatistics(0, 1);
+            });
+            DuplicateStatistics d = new Tournament(configs, 2, 1).withDuplicateDeals(true).run(5)
+                    .duplicateStatistics(1, 0);
+            assertEquals(1, d.dealsCount());
+        });
+    }
+
+    @Test
+    void duplicateStatisticsMeasureTheVarianceReduction() {
+        DuplicateStatistics d = new DuplicateStatistics();
+        d.add(100, -80);
+        d.add(-50, 70);
+        d.add(30, -10);
+        d.add(-120, 140);
+        assertEquals(4, d.dealsCount());
+        assertEquals(10, d.averageMargin(), 1e-9);
+        // Games: mean 10, variance 67400 / 7; pairs: 10, 10, 10, 10
+        assertEquals(Double.POSITIVE_INFINITY, d.varianceReduction());
+
+        DuplicateStatistics e = new DuplicateStatistics();
+        e.add(100, 0);
+        e.add(0, -100);
+        e.add(100, 100);
+        e.add(-100, -100);
+        // Games: mean 0, variance 60000 / 7; pairs: 50, -50, 100, -100 so
+        // variance 25000 / 3
+        assertEquals(0, e.averageMargin(), 1e-9);
+        assertEquals(60000 / 7d / 2 / (25000 / 3d), e.varianceReduction(), 1e-9);
+        assertEquals(1.96 * Math.sqrt(25000 / 3d / 4), e.marginError(), 1e-9);
+        assertTrue(Double.isNaN(new DuplicateStatistics().varianceReduction()));
+    }
+}
@@ -0,0 +1,90 @@
+package ch.epfl.javass.sim;
+
+import static ch.epfl.test.TestRandomizer.newRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import ch.epfl.javass.jass.CardSet;
+import ch.epfl.javass.jass.JassGame;
+import ch.epfl.javass.jass.LinearValueFunction;
+import ch.epfl.javass.jass.PackedCardSet;
+import ch.epfl.javass.jass.Player;
+import ch.epfl.javass.jass.PlayerId;
+import ch.epfl.javass.jass.TurnState;
+
+public class ValueFunctionTrainerTest {
+    @Test
+    void trainerRecoversLinearTarget() {
+        SplittableRandom rng = newRandom();
+        double[] weights = new double[LinearValueFunction.FEATURES_COUNT];
+        for (int i = 0; i < weights.length; ++i)
+            weights[i] = rng.nextDouble(-5, 5);
+        LinearValueFunction target = LinearValueFunction.ofWeights(weights);
+
+        StringWriter records = new StringWriter();
+        recordGame(rng.nextLong(), records);
+
+        // Replaces the recorded points with the ones given by the target
+        StringBuilder relabeled = new StringBuilder();
+        for (String line : records.toString().split("\n")) {
+            String[] a = line.split(" ");
+            double points = target.evaluate(Long.parseUnsignedLong(a[0], 16), Long.parseUnsignedLong(a[1], 16),
+                    Integer.parseUnsignedInt(a[2], 16), Long.parseUnsignedLong(a[3], 16), PlayerId.ALL.get(Integer.parseInt(a[4])));
+            relabeled.append(String.join(" ", a[0], a[1], a[2], a[3], a[4], Long.toString(Math.round(points)))).append("\n");
+        }
+
+        ValueFunctionTrainer trainer = new ValueFunctionTrainer(0);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            trainer.addRecords(new StringReader(relabeled.toString()));
+        });
+        LinearValueFunction trained = trainer.train();
+
+        for (String line : relabeled.toString().split("\n")) {
+            String[] a = line.split(" ");
+            double points = trained.evaluate(Long.parseUnsignedLong(a[0], 16), Long.parseUnsignedLong(a[1], 16),
+                    Integer.parseUnsignedInt(a[2], 16), Long.parseUnsignedLong(a[3], 16), PlayerId.ALL.get(Integer.parseInt(a[4])));
+            assertEquals(Integer.parseInt(a[5]), points, 2);
+        }
+    }
+
+    @Test
+    void recorderWritesOneRecordPerPlayedCardOfFinishedTurns() {
+        StringWriter records = new StringWriter();
+        recordGame(2019, records);
+        String[] lines = records.toString().split("\n");
+        assertTrue(lines.length > 0);
+        assertEquals(0, lines.length % (4 * 9));
+        for (String line : lines) {
+            String[] a = line.split(" ");
+            assertEquals(6, a.length);
+            int points = Integer.parseInt(a[5]);
+            assertTrue(points >= 0 && points <= 257);
+        }
+    }
+
+    private static void recordGame(long seed, StringWriter records) {
+        Map<PlayerId, Player> ps = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> ns = new EnumMap<>(PlayerId.class);
+        SplittableRandom rng = new SplittableRandom(seed);
+        for (PlayerId pId : PlayerId.ALL) {
+            ps.put(pId, new SelfPlayRecorder((TurnState state, CardSet hand) -> {
+                long playable = PackedCardSet.intersection(state.trick().playableCards(hand).packed(), hand.packed());
+                return CardSet.ofPacked(playable).get(rng.nextInt(PackedCardSet.size(playable)));
+            }, records));
+            ns.put(pId, pId.name());
+        }
+        JassGame g = new JassGame(seed, ps, ns);
+        while (!g.isGameOver())
+            g.advanceToEndOfNextTrick();
+    }
+}
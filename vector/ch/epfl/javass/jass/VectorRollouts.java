@@ -0,0 +1,316 @@
+package ch.epfl.javass.jass;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import ch.epfl.javass.jass.Card.Color;
+import ch.epfl.javass.jass.Card.Rank;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * RolloutBackend advancing several random Turns in lockstep with the Vector
+ * API: each lane of the vectors holds one simulation (its unplayed cards, the
+ * player's hand, the base Color and the best Card of its Trick...), and all
+ * the lanes play their next Card at the same time. The playable Cards and the
+ * winners of the Tricks are computed lane-wise, only the random choice of the
+ * Card among the playable ones being done lane by lane, with the
+ * SplittableRandom of each simulation. Each lane thus plays the same Cards as
+ * PackedRollouts.turnPoints with the same seed.
+ *
+ * The class needs the incubating module jdk.incubator.vector, which is why it
+ * is kept apart from the other sources. It is compiled and run with
+ *
+ * javac --add-modules jdk.incubator.vector -cp classes -d classes
+ * vector/ch/epfl/javass/jass/VectorRollouts.java
+ *
+ * java --add-modules jdk.incubator.vector -cp classes ...
+ *
+ * and is found by PackedRollouts.newVectorBackend(), which falls back to the
+ * scalar backend when the class or the module is missing
+ *
+ * @author Joseph Abboud (296753)
+ * @author Zad Abi Fadel (295734)
+ */
+public final class VectorRollouts implements RolloutBackend {
+
+    // At least 4 lanes, and 8 when the processor has vectors of 512 bits
+    private static final VectorSpecies<Long> SPECIES = species();
+    private static final int LANES = SPECIES.length();
+
+    // Number of different packed cards (some of them are not valid)
+    private static final int PACKED_CARDS = Long.SIZE;
+
+    // For each trump Color and each Card, the key comparing the Cards of a
+    // Trick: 16 plus the trump ordinal for a trump Card, and the rank ordinal
+    // otherwise (the key of a Card which is neither trump nor of the base
+    // Color is replaced by -1 in the Tricks)
+    private static final long[][] KEYS = new long[Color.COUNT][PACKED_CARDS];
+    // For each trump Color and each Card, its points
+    private static final long[][] POINTS = new long[Color.COUNT][PACKED_CARDS];
+    // For each Card, the trump Cards above it and the Cards of its Color
+    private static final long[] TRUMP_ABOVE = new long[PACKED_CARDS];
+    private static final long[] COLOR_MASKS = new long[PACKED_CARDS];
+
+    static {
+        for (Color c : Color.ALL) {
+            for (Rank r : Rank.ALL) {
+                int card = PackedCard.pack(c, r);
+                TRUMP_ABOVE[card] = PackedCardSet.trumpAbove(card);
+                COLOR_MASKS[card] = PackedCardSet
+                        .subsetOfColor(PackedCardSet.ALL_CARDS, c);
+                for (Color trump : Color.ALL) {
+                    KEYS[trump.ordinal()][card] = c == trump
+                            ? 16 + r.trumpOrdinal()
+                            : r.ordinal();
+                    POINTS[trump.ordinal()][card] = PackedCard.points(trump,
+                            card);
+                }
+            }
+        }
+    }
+
+    // The state of the simulation of each lane (kept in arrays rather than in
+    // vectors going from one step to the next, which are allocated on the
+    // heap): its unplayed cards, the player's hand, the first player of its
+    // Trick and the points of the player's Team
+    private final SplittableRandom[] rngs = new SplittableRandom[LANES];
+    private final long[] unplayed = new long[LANES];
+    private final long[] hand = new long[LANES];
+    private final long[] firstPlayer = new long[LANES];
+    private final long[] lanePoints = new long[LANES];
+
+    // The state of the Trick of each lane: the Cards of its base Color, the
+    // trump Cards above its best trump (all of them if it has none), the key
+    // and the position of its best Card, its points and its number of trump
+    // Cards
+    private final long[] base = new long[LANES];
+    private final long[] allowedTrumps = new long[LANES];
+    private final long[] bestKey = new long[LANES];
+    private final long[] winner = new long[LANES];
+    private final long[] trickPoints = new long[LANES];
+    private final long[] trumpsCount = new long[LANES];
+
+    // The Cards played in each lane, and their properties
+    private final long[] playable = new long[LANES];
+    private final long[] cardBits = new long[LANES];
+    private final long[] keys = new long[LANES];
+    private final long[] points = new long[LANES];
+    private final long[] trumpAbove = new long[LANES];
+    private final long[] colorMasks = new long[LANES];
+
+    /**
+     * Constructs a backend, to be used by a single thread
+     */
+    public VectorRollouts() {
+    }
+
+    @Override
+    public int lanes() {
+        return LANES;
+    }
+
+    @Override
+    public void turnPoints(long pkScore, long pkUnplayedCards, int pkTrick,
+            long pkHand, PlayerId ownId, long[] rngSeeds, int[] points) {
+        for (int first = 0; first < rngSeeds.length; first += LANES) {
+            // The lanes without a seed repeat the last simulation
+            int count = Math.min(LANES, rngSeeds.length - first);
+            for (int l = 0; l < LANES; ++l)
+                rngs[l] = new SplittableRandom(
+                        rngSeeds[first + Math.min(l, count - 1)]);
+
+            simulate(pkScore, pkUnplayedCards, pkTrick, pkHand, ownId);
+            for (int l = 0; l < count; ++l)
+                points[first + l] = (int) lanePoints[l];
+        }
+    }
+
+    /*
+     * Simulates a Turn in each lane, and puts the points of the player's Team
+     * in the array of the points
+     */
+    private void simulate(long pkScore, long pkUnplayedCards, int pkTrick,
+            long pkHand, PlayerId ownId) {
+        Color trump = PackedTrick.trump(pkTrick);
+        long[] trumpKeys = KEYS[trump.ordinal()];
+        long[] trumpPoints = POINTS[trump.ordinal()];
+        long trumps = PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS,
+                trump);
+        long jack = PackedCardSet.singleton(PackedCard.pack(trump, Rank.JACK));
+        int own = ownId.ordinal();
+        int trickIndex = PackedTrick.index(pkTrick);
+        // The Cards of the given Trick are played again in every lane, without
+        // removing them from the unplayed cards and the hand (like
+        // PackedRollouts.turnPoints(), which takes the given hand as it is)
+        int known = PackedTrick.size(pkTrick);
+
+        Arrays.fill(unplayed, pkUnplayedCards);
+        Arrays.fill(hand, pkHand);
+        Arrays.fill(firstPlayer, PackedTrick.player(pkTrick, 0).ordinal());
+        Arrays.fill(lanePoints, PackedScore.turnPoints(pkScore, ownId.team()));
+        LongVector trumpsV = LongVector.broadcast(SPECIES, trumps);
+
+        while (true) {
+            for (int pos = 0; pos < PlayerId.COUNT; ++pos) {
+                if (known > 0) {
+                    int card = PackedTrick.card(pkTrick, pos);
+                    for (int l = 0; l < LANES; ++l)
+                        setCard(l, card, trumpKeys, trumpPoints);
+                    --known;
+                } else {
+                    chooseCards(pos, own, trumpsV, jack, trumpKeys,
+                            trumpPoints);
+                }
+                playCards(pos, trumpsV);
+            }
+
+            // The points of the last Trick are not counted
+            if (trickIndex == Jass.TRICKS_PER_TURN - 1)
+                return;
+            collectTricks(own);
+            ++trickIndex;
+        }
+    }
+
+    /*
+     * Chooses at random the Card played at the given position of the Trick in
+     * each lane, among the playable ones
+     */
+    private void chooseCards(int pos, int own, LongVector trumps, long jack,
+            long[] trumpKeys, long[] trumpPoints) {
+        LongVector unplayedV = LongVector.fromArray(SPECIES, unplayed, 0);
+        LongVector handV = LongVector.fromArray(SPECIES, hand, 0);
+        VectorMask<Long> ownLanes = LongVector
+                .fromArray(SPECIES, firstPlayer, 0).add(pos)
+                .and(PlayerId.COUNT - 1).compare(VectorOperators.EQ, own);
+        LongVector cards = unplayedV.lanewise(VectorOperators.AND_NOT, handV)
+                .blend(handV, ownLanes);
+        if (pos != 0)
+            cards = playableCards(cards, pos, trumps, jack);
+        cards.intoArray(playable, 0);
+
+        for (int l = 0; l < LANES; ++l) {
+            long p = playable[l];
+            setCard(l, PackedCardSet.get(p, rngs[l].nextInt(Long.bitCount(p))),
+                    trumpKeys, trumpPoints);
+        }
+
+        LongVector cardBit = LongVector.fromArray(SPECIES, cardBits, 0);
+        unplayedV.lanewise(VectorOperators.AND_NOT, cardBit)
+                .intoArray(unplayed, 0);
+        handV.lanewise(VectorOperators.AND_NOT, cardBit).intoArray(hand, 0);
+    }
+
+    /*
+     * Adds the chosen Cards to the Tricks of the lanes
+     */
+    private void playCards(int pos, LongVector trumps) {
+        LongVector cardBit = LongVector.fromArray(SPECIES, cardBits, 0);
+        LongVector key = LongVector.fromArray(SPECIES, keys, 0);
+        LongVector cardPoints = LongVector.fromArray(SPECIES, points, 0);
+        LongVector above = LongVector.fromArray(SPECIES, trumpAbove, 0);
+        VectorMask<Long> isTrump = cardBit.and(trumps)
+                .compare(VectorOperators.NE, 0);
+
+        if (pos == 0) {
+            System.arraycopy(colorMasks, 0, base, 0, LANES);
+            trumps.blend(above, isTrump).intoArray(allowedTrumps, 0);
+            key.intoArray(bestKey, 0);
+            Arrays.fill(winner, 0);
+            cardPoints.intoArray(trickPoints, 0);
+            LongVector.zero(SPECIES).blend(1, isTrump)
+                    .intoArray(trumpsCount, 0);
+            return;
+        }
+
+        LongVector bestKeyV = LongVector.fromArray(SPECIES, bestKey, 0);
+        VectorMask<Long> counts = isTrump
+                .or(cardBit.and(LongVector.fromArray(SPECIES, base, 0))
+                        .compare(VectorOperators.NE, 0));
+        key = key.blend(-1, counts.not());
+        VectorMask<Long> better = key.compare(VectorOperators.GT, bestKeyV);
+        bestKeyV.blend(key, better).intoArray(bestKey, 0);
+        LongVector.fromArray(SPECIES, winner, 0).blend(pos, better)
+                .intoArray(winner, 0);
+        LongVector.fromArray(SPECIES, allowedTrumps, 0)
+                .blend(above, better.and(isTrump)).intoArray(allowedTrumps, 0);
+        LongVector.fromArray(SPECIES, trickPoints, 0).add(cardPoints)
+                .intoArray(trickPoints, 0);
+        LongVector.fromArray(SPECIES, trumpsCount, 0).add(1, isTrump)
+                .intoArray(trumpsCount, 0);
+    }
+
+    /*
+     * Gives the points of the full Tricks to the Teams which won them, and
+     * makes their winners the first players of the next Tricks
+     */
+    private void collectTricks(int own) {
+        LongVector winningPlayer = LongVector.fromArray(SPECIES, firstPlayer, 0)
+                .add(LongVector.fromArray(SPECIES, winner, 0))
+                .and(PlayerId.COUNT - 1);
+        LongVector.fromArray(SPECIES, lanePoints, 0)
+                .add(LongVector.fromArray(SPECIES, trickPoints, 0),
+                        winningPlayer.and(1).compare(VectorOperators.EQ,
+                                own & 1))
+                .intoArray(lanePoints, 0);
+        winningPlayer.intoArray(firstPlayer, 0);
+    }
+
+    /*
+     * Gives the playable Cards of the lanes, given the Cards of each lane's
+     * player and the state of its Trick (which is not empty), following the
+     * same rules as PackedTrick.playableCards()
+     */
+    private LongVector playableCards(LongVector cards, int pos,
+            LongVector trumps, long jack) {
+        LongVector baseV = LongVector.fromArray(SPECIES, base, 0);
+        LongVector trumpCards = cards.and(trumps);
+        LongVector otherCards = cards.lanewise(VectorOperators.AND_NOT,
+                trumps);
+        LongVector followers = cards.and(baseV);
+
+        // The base Color is trump: the player follows with any trump Card,
+        // unless its only one is the jack
+        VectorMask<Long> free = trumpCards.compare(VectorOperators.EQ, 0)
+                .or(trumpCards.compare(VectorOperators.EQ, jack));
+        LongVector trumpBase = trumpCards.blend(cards, free);
+
+        // Otherwise the player follows or plays any other Color, and its trump
+        // Cards must be above the best trump of the Trick, unless it has no
+        // other choice
+        VectorMask<Long> follows = followers.compare(VectorOperators.NE, 0);
+        LongVector playable = otherCards.blend(followers, follows)
+                .or(trumpCards.and(
+                        LongVector.fromArray(SPECIES, allowedTrumps, 0)));
+        VectorMask<Long> forced = playable.compare(VectorOperators.EQ, 0);
+        // Like PackedTrick.playableCards(), a player who only has trump Cards
+        // may play any of them as the fourth Card when a single one of the
+        // previous Cards is trump
+        if (pos == PlayerId.COUNT - 1)
+            forced = forced.or(follows.not()
+                    .and(LongVector.fromArray(SPECIES, trumpsCount, 0)
+                            .compare(VectorOperators.EQ, 1))
+                    .and(otherCards.compare(VectorOperators.EQ, 0)));
+        playable = playable.blend(cards, forced);
+
+        return playable.blend(trumpBase,
+                baseV.compare(VectorOperators.EQ, trumps));
+    }
+
+    private void setCard(int lane, int card, long[] trumpKeys,
+            long[] trumpPoints) {
+        cardBits[lane] = PackedCardSet.singleton(card);
+        keys[lane] = trumpKeys[card];
+        points[lane] = trumpPoints[card];
+        trumpAbove[lane] = TRUMP_ABOVE[card];
+        colorMasks[lane] = COLOR_MASKS[card];
+    }
+
+    private static VectorSpecies<Long> species() {
+        VectorSpecies<Long> preferred = LongVector.SPECIES_PREFERRED;
+        return preferred.length() >= 4 ? preferred : LongVector.SPECIES_256;
+    }
+}